@@ -1,27 +1,231 @@
 package com.denisneagu.primenumberapi.controller;
 
 import com.denisneagu.primenumberapi.controller.operation.PrimeNumberOperation;
+import com.denisneagu.primenumberapi.dto.BinaryPrimeNumberResponse;
+import com.denisneagu.primenumberapi.dto.CacheStatisticsResponse;
+import com.denisneagu.primenumberapi.dto.NthPrimeResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityBatchResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityResponse;
+import com.denisneagu.primenumberapi.dto.PrimeBitmapResponse;
+import com.denisneagu.primenumberapi.dto.PrimeCountResponse;
 import com.denisneagu.primenumberapi.dto.PrimeNumberResponse;
 import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
+import com.denisneagu.primenumberapi.enums.PrimeStreamFormat;
 import com.denisneagu.primenumberapi.service.PrimeNumberService;
-import lombok.RequiredArgsConstructor;
+import com.denisneagu.primenumberapi.util.Constant;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
 
 @RestController
-@RequiredArgsConstructor
 @Slf4j
 public class PrimeNumberController implements PrimeNumberOperation {
+    public static final String PRIME_ENCODING_HEADER = "X-Prime-Encoding";
+    public static final String ALGORITHM_HEADER = "X-Algorithm";
+    public static final String CACHE_HEADER = "X-Cache";
+    public static final String NUM_OF_PRIMES_HEADER = "X-Num-Of-Primes";
+    public static final String EXEC_TIME_IN_NS_HEADER = "X-Exec-Time-In-Ns";
+    public static final String EXEC_TIME_IN_MS_HEADER = "X-Exec-Time-In-Ms";
+    public static final String BITMAP_OFFSET_HEADER = "X-Bitmap-Offset";
     private final PrimeNumberService primeNumberService;
+    private final long streamRequestTimeout;
+
+    public PrimeNumberController(PrimeNumberService primeNumberService,
+                                 @Value("${primenumberapi.stream.request-timeout:1800000}") long streamRequestTimeout) {
+        this.primeNumberService = primeNumberService;
+        this.streamRequestTimeout = streamRequestTimeout;
+    }
 
     @Override
-    public ResponseEntity<PrimeNumberResponse> getPrimeNumbers(long limit,
+    public ResponseEntity<PrimeNumberResponse> getPrimeNumbers(long from,
+                                                               long limit,
                                                                boolean showPrimes,
                                                                Algorithm algorithm,
                                                                boolean cache) {
-        PrimeNumberResponse primeNumberResponse = primeNumberService.getPrimeNumbers(limit, showPrimes, algorithm, cache);
-        log.info("Finished calculating primes with limit: {}", limit);
+        PrimeNumberResponse primeNumberResponse = primeNumberService.getPrimeNumbers(
+                from,
+                limit,
+                showPrimes,
+                algorithm,
+                cache);
+        log.info("Finished calculating primes from: {} with limit: {}", from, limit);
         return ResponseEntity.ok(primeNumberResponse);
     }
-}
\ No newline at end of file
+
+    // the fields of the response besides the primes go into headers, the body is only the encoded primes
+    @Override
+    public ResponseEntity<StreamingResponseBody> getPrimeNumbersInBinary(long from,
+                                                                        long limit,
+                                                                        Algorithm algorithm,
+                                                                        boolean cache,
+                                                                        PrimeEncoding encoding,
+                                                                        String acceptEncoding) {
+        BinaryPrimeNumberResponse binaryPrimeNumberResponse = primeNumberService.getPrimeNumbersInBinary(
+                from,
+                limit,
+                algorithm,
+                cache,
+                encoding,
+                acceptsGzip(acceptEncoding));
+        log.info("Finished calculating primes from: {} with limit: {} in {}", from, limit, encoding);
+
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(PRIME_ENCODING_HEADER, encoding.name())
+                .header(ALGORITHM_HEADER, binaryPrimeNumberResponse.algorithm().name())
+                .header(CACHE_HEADER, String.valueOf(binaryPrimeNumberResponse.cache()))
+                .header(NUM_OF_PRIMES_HEADER, String.valueOf(binaryPrimeNumberResponse.numOfPrimes()))
+                .header(EXEC_TIME_IN_NS_HEADER, String.valueOf(binaryPrimeNumberResponse.execTimeInNs()))
+                .header(EXEC_TIME_IN_MS_HEADER, String.valueOf(binaryPrimeNumberResponse.execTimeInMs()));
+        if (binaryPrimeNumberResponse.gzip()) {
+            responseBuilder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        if (binaryPrimeNumberResponse.contentLength() >= 0) {
+            responseBuilder.contentLength(binaryPrimeNumberResponse.contentLength());
+        }
+        return responseBuilder.body(binaryPrimeNumberResponse.body());
+    }
+
+    // gzip is accepted when it's listed, or covered by *, with a q-value above 0. "gzip;q=0" refuses it and a q-value
+    // that can't be parsed counts as 0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double quality = getQuality(parameters);
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (name.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    private static double getQuality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> getPrimeNumbersInNdjson(long from, long limit, Algorithm algorithm) {
+        return stream(from, limit, algorithm, PrimeStreamFormat.NDJSON, MediaType.APPLICATION_NDJSON);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> getPrimeNumbersInCsv(long from, long limit, Algorithm algorithm) {
+        return stream(from, limit, algorithm, PrimeStreamFormat.CSV, MediaType.parseMediaType(Constant.TEXT_CSV_VALUE));
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> streamPrimeNumbers(long from, long limit, Algorithm algorithm) {
+        return stream(from, limit, algorithm, PrimeStreamFormat.JSON, MediaType.APPLICATION_JSON);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(long from,
+                                                         long limit,
+                                                         Algorithm algorithm,
+                                                         PrimeStreamFormat format,
+                                                         MediaType mediaType) {
+        StreamingResponseBody streamingResponseBody = primeNumberService.streamPrimeNumbers(
+                from,
+                limit,
+                algorithm,
+                format);
+        log.info("Started streaming primes from: {} with limit: {} as {}", from, limit, format);
+
+        // a stream runs for as long as the client keeps reading, so it gets a timeout of its own instead of the
+        // default one of async requests. the async request is set up before the handler runs and started after it
+        ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        WebAsyncUtils.getAsyncManager(requestAttributes.getRequest())
+                .getAsyncWebRequest()
+                .setTimeout(streamRequestTimeout);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(streamingResponseBody);
+    }
+
+    @Override
+    public ResponseEntity<PrimeBitmapResponse> getPrimeBitmap(long from, long limit, Algorithm algorithm) {
+        PrimeBitmapResponse primeBitmapResponse = primeNumberService.getPrimeBitmap(from, limit, algorithm);
+        log.info("Finished sieving the bitmap from: {} with limit: {}", from, limit);
+        return ResponseEntity.ok(primeBitmapResponse);
+    }
+
+    @Override
+    public ResponseEntity<byte[]> getPrimeBitmapInBinary(long from, long limit, Algorithm algorithm) {
+        PrimeBitmapResponse primeBitmapResponse = primeNumberService.getPrimeBitmap(from, limit, algorithm);
+        log.info("Finished sieving the bitmap from: {} with limit: {}", from, limit);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(ALGORITHM_HEADER, primeBitmapResponse.algorithm().name())
+                .header(BITMAP_OFFSET_HEADER, String.valueOf(primeBitmapResponse.offset()))
+                .header(NUM_OF_PRIMES_HEADER, String.valueOf(primeBitmapResponse.numOfPrimes()))
+                .header(EXEC_TIME_IN_NS_HEADER, String.valueOf(primeBitmapResponse.execTimeInNs()))
+                .header(EXEC_TIME_IN_MS_HEADER, String.valueOf(primeBitmapResponse.execTimeInMs()))
+                .body(primeBitmapResponse.bitmap());
+    }
+
+    @Override
+    public ResponseEntity<PrimeCountResponse> countPrimeNumbers(long limit) {
+        PrimeCountResponse primeCountResponse = primeNumberService.countPrimeNumbers(limit);
+        log.info("Finished counting primes with limit: {}", limit);
+        return ResponseEntity.ok(primeCountResponse);
+    }
+
+    @Override
+    public ResponseEntity<NthPrimeResponse> getNthPrimeNumber(long n) {
+        NthPrimeResponse nthPrimeResponse = primeNumberService.getNthPrimeNumber(n);
+        log.info("Finished finding the prime number at n: {}", n);
+        return ResponseEntity.ok(nthPrimeResponse);
+    }
+
+    @Override
+    public ResponseEntity<PrimalityResponse> isPrime(long number) {
+        PrimalityResponse primalityResponse = primeNumberService.isPrime(number);
+        log.info("Finished checking primality of: {}", number);
+        return ResponseEntity.ok(primalityResponse);
+    }
+
+    @Override
+    public ResponseEntity<PrimalityBatchResponse> isPrimeBatch(long[] numbers) {
+        PrimalityBatchResponse primalityBatchResponse = primeNumberService.isPrime(numbers);
+        log.info("Finished checking primality of {} numbers", numbers.length);
+        return ResponseEntity.ok(primalityBatchResponse);
+    }
+
+    @Override
+    public ResponseEntity<CacheStatisticsResponse> getCacheStatistics() {
+        return ResponseEntity.ok(primeNumberService.getCacheStatistics());
+    }
+}
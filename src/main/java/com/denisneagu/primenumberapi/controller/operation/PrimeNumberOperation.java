@@ -1,7 +1,15 @@
 package com.denisneagu.primenumberapi.controller.operation;
 
+import com.denisneagu.primenumberapi.dto.CacheStatisticsResponse;
+import com.denisneagu.primenumberapi.dto.NthPrimeResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityBatchResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityResponse;
+import com.denisneagu.primenumberapi.dto.PrimeBitmapResponse;
+import com.denisneagu.primenumberapi.dto.PrimeCountResponse;
 import com.denisneagu.primenumberapi.dto.PrimeNumberResponse;
 import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
+import com.denisneagu.primenumberapi.util.Constant;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
@@ -10,22 +18,31 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Validated
 @RequestMapping("/api/v1")
 public interface PrimeNumberOperation {
 
     @Operation(
-            summary = "Get all prime numbers up to and including the limit",
+            summary = "Get all prime numbers from and up to and including the limit",
             description = """
-                    Calculates and returns all prime numbers up to the given limit.
+                    Calculates and returns all prime numbers in [from, limit].
+                    A range that starts above 2 only sieves its own window, so limits above Integer max value work.
                     Supports optional selection of the algorithm selected and includes the time taken for computation.
                     """
     )
@@ -44,6 +61,11 @@ public interface PrimeNumberOperation {
     )
     @Parameters(
             value = {
+                    @Parameter(
+                            name = "from",
+                            description = "Inclusive lower limit, defaults to 2",
+                            required = false,
+                            in = ParameterIn.QUERY),
                     @Parameter(
                             name = "limit",
                             description = "Inclusive upper limit",
@@ -57,7 +79,7 @@ public interface PrimeNumberOperation {
                     ),
                     @Parameter(
                             name = "algorithm",
-                            description = "Algorithm to calculate prime numbers",
+                            description = "Algorithm to calculate prime numbers, AUTO picks the cheapest safe engine for the range",
                             required = false,
                             in = ParameterIn.QUERY
                     ),
@@ -71,8 +93,464 @@ public interface PrimeNumberOperation {
     )
     @GetMapping(path = "/primes", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
     ResponseEntity<PrimeNumberResponse> getPrimeNumbers(
+            @RequestParam(name = "from", defaultValue = "2") @Min(0) long from,
             @RequestParam(name = "limit") @Min(2) long limit,
             @RequestParam(name = "showPrimes", defaultValue = "false") boolean showPrimes,
-            @RequestParam(name = "algorithm", defaultValue = "NAIVE_TRIAL_DIVISION") Algorithm algorithm,
+            @RequestParam(name = "algorithm", defaultValue = "AUTO") Algorithm algorithm,
             @RequestParam(name = "cache", defaultValue = "false") boolean cache);
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "Get all prime numbers from and up to and including the limit in a binary format",
+            description = """
+                    Same primes as the json and xml representations, selected with an Accept header of
+                    application/octet-stream. RAW_INT64 writes every prime as a little endian 64-bit integer.
+                    DELTA_VARINT writes a 25 byte header (encoding byte 1, then from, limit and count as little endian
+                    64-bit integers) followed by the gap of every prime to the previous one, the first to 0, as an
+                    unsigned varint. The algorithm, cache flag, count and time of computation are sent as headers.
+                    With caching the encoded body is cached as well and written as it is for the same range and
+                    encoding, gzipped when the Accept-Encoding header allows it.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "application/octet-stream", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "400", description = "Bad request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @Parameters(
+            value = {
+                    @Parameter(
+                            name = "from",
+                            description = "Inclusive lower limit, defaults to 2",
+                            required = false,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "limit",
+                            description = "Inclusive upper limit",
+                            required = true,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "algorithm",
+                            description = "Algorithm to calculate prime numbers, AUTO picks the cheapest safe engine for the range",
+                            required = false,
+                            in = ParameterIn.QUERY
+                    ),
+                    @Parameter(
+                            name = "cache",
+                            description = "Flag whether to use cache or not",
+                            required = false,
+                            in = ParameterIn.QUERY
+                    ),
+                    @Parameter(
+                            name = "encoding",
+                            description = "RAW_INT64 or DELTA_VARINT, defaults to RAW_INT64",
+                            required = false,
+                            in = ParameterIn.QUERY
+                    ),
+                    @Parameter(
+                            name = "Accept-Encoding",
+                            description = "A cached body is gzipped when gzip, or *, is listed with a q-value above 0",
+                            required = false,
+                            in = ParameterIn.HEADER
+                    )
+            }
+    )
+    @GetMapping(path = "/primes", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    ResponseEntity<StreamingResponseBody> getPrimeNumbersInBinary(
+            @RequestParam(name = "from", defaultValue = "2") @Min(0) long from,
+            @RequestParam(name = "limit") @Min(2) long limit,
+            @RequestParam(name = "algorithm", defaultValue = "AUTO") Algorithm algorithm,
+            @RequestParam(name = "cache", defaultValue = "false") boolean cache,
+            @RequestParam(name = "encoding", defaultValue = "RAW_INT64") PrimeEncoding encoding,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding);
+
+    @Operation(
+            summary = "Stream all prime numbers from and up to and including the limit as newline delimited json",
+            description = """
+                    Selected with an Accept header of application/x-ndjson. Every prime is a {"prime": p} line,
+                    written while the primes are sieved and never held as a whole. The last line is a trailer
+                    object with the algorithm, count and time of computation. Only the wheel engines stream, AUTO
+                    picks the segmented sieve wheel.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "application/x-ndjson", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "400", description = "Bad request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @Parameters(
+            value = {
+                    @Parameter(
+                            name = "from",
+                            description = "Inclusive lower limit, defaults to 2",
+                            required = false,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "limit",
+                            description = "Inclusive upper limit, at most 10^12",
+                            required = true,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "algorithm",
+                            description = "CONCURRENT_SEGMENTED_SIEVE_WHEEL or SIEVE_OF_ATKIN, AUTO picks the former",
+                            required = false,
+                            in = ParameterIn.QUERY
+                    )
+            }
+    )
+    @GetMapping(path = "/primes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> getPrimeNumbersInNdjson(
+            @RequestParam(name = "from", defaultValue = "2") @Min(0) long from,
+            @RequestParam(name = "limit") @Min(2) @Max(Constant.MAX_STREAM_LIMIT) long limit,
+            @RequestParam(name = "algorithm", defaultValue = "AUTO") Algorithm algorithm);
+
+    @Operation(
+            summary = "Stream all prime numbers from and up to and including the limit as csv",
+            description = """
+                    Selected with an Accept header of text/csv. A "prime" header line, then every prime on its own
+                    line, written while the primes are sieved and never held as a whole. The last line is a trailer
+                    comment starting with # that holds the algorithm, count and time of computation as name=value
+                    pairs. Only the wheel engines stream, AUTO picks the segmented sieve wheel.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "text/csv", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "400", description = "Bad request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @Parameters(
+            value = {
+                    @Parameter(
+                            name = "from",
+                            description = "Inclusive lower limit, defaults to 2",
+                            required = false,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "limit",
+                            description = "Inclusive upper limit, at most 10^12",
+                            required = true,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "algorithm",
+                            description = "CONCURRENT_SEGMENTED_SIEVE_WHEEL or SIEVE_OF_ATKIN, AUTO picks the former",
+                            required = false,
+                            in = ParameterIn.QUERY
+                    )
+            }
+    )
+    @GetMapping(path = "/primes", produces = Constant.TEXT_CSV_VALUE)
+    ResponseEntity<StreamingResponseBody> getPrimeNumbersInCsv(
+            @RequestParam(name = "from", defaultValue = "2") @Min(0) long from,
+            @RequestParam(name = "limit") @Min(2) @Max(Constant.MAX_STREAM_LIMIT) long limit,
+            @RequestParam(name = "algorithm", defaultValue = "AUTO") Algorithm algorithm);
+
+    @Operation(
+            summary = "Stream all prime numbers from and up to and including the limit",
+            description = """
+                    Writes the primes in [from, limit] segment by segment while they're sieved, so only a single
+                    segment is held in memory and the first primes arrive long before the sieve finishes. The body
+                    is a prime number response whose count and time of computation follow the primes. Only the
+                    wheel engines stream, AUTO picks the segmented sieve wheel.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "application/json", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "400", description = "Bad request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @Parameters(
+            value = {
+                    @Parameter(
+                            name = "from",
+                            description = "Inclusive lower limit, defaults to 2",
+                            required = false,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "limit",
+                            description = "Inclusive upper limit, at most 10^12",
+                            required = true,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "algorithm",
+                            description = "CONCURRENT_SEGMENTED_SIEVE_WHEEL or SIEVE_OF_ATKIN, AUTO picks the former",
+                            required = false,
+                            in = ParameterIn.QUERY
+                    )
+            }
+    )
+    @GetMapping(path = "/primes/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<StreamingResponseBody> streamPrimeNumbers(
+            @RequestParam(name = "from", defaultValue = "2") @Min(0) long from,
+            @RequestParam(name = "limit") @Min(2) @Max(Constant.MAX_STREAM_LIMIT) long limit,
+            @RequestParam(name = "algorithm", defaultValue = "AUTO") Algorithm algorithm);
+
+    @Operation(
+            summary = "Get the sieve of the numbers from and up to and including the limit",
+            description = """
+                    Returns the mod 30 wheel bitmap the sieve works on instead of the primes read out of it, one byte
+                    for every 30 numbers. Bit i of byte k is set when offset + 30 * k + r(i) is a prime in
+                    [from, limit], with r = {1, 7, 11, 13, 17, 19, 23, 29} and offset = 30 * (from / 30). 2, 3 and 5
+                    aren't on the wheel, they're only part of the count. The bitmap is base64 in json and xml, with an
+                    Accept header of application/octet-stream it's the body itself and the rest goes into headers.
+                    Only the wheel engines have a bitmap, AUTO picks the segmented sieve wheel.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "application/json", schema = @Schema()),
+                                    @Content(mediaType = "application/xml", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "400", description = "Bad request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @Parameters(
+            value = {
+                    @Parameter(
+                            name = "from",
+                            description = "Inclusive lower limit, defaults to 2",
+                            required = false,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "limit",
+                            description = "Inclusive upper limit",
+                            required = true,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "algorithm",
+                            description = "CONCURRENT_SEGMENTED_SIEVE_WHEEL or SIEVE_OF_ATKIN, AUTO picks the former",
+                            required = false,
+                            in = ParameterIn.QUERY
+                    )
+            }
+    )
+    @GetMapping(path = "/primes/bitmap", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    ResponseEntity<PrimeBitmapResponse> getPrimeBitmap(
+            @RequestParam(name = "from", defaultValue = "2") @Min(0) long from,
+            @RequestParam(name = "limit") @Min(2) long limit,
+            @RequestParam(name = "algorithm", defaultValue = "AUTO") Algorithm algorithm);
+
+    @Operation(
+            summary = "Get the sieve of the numbers from and up to and including the limit in a binary format",
+            description = """
+                    Same bitmap as the json and xml representations, selected with an Accept header of
+                    application/octet-stream. The body is the bitmap, the algorithm, offset, count and time of
+                    computation are sent as headers.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "application/octet-stream", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "400", description = "Bad request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @Parameters(
+            value = {
+                    @Parameter(
+                            name = "from",
+                            description = "Inclusive lower limit, defaults to 2",
+                            required = false,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "limit",
+                            description = "Inclusive upper limit",
+                            required = true,
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "algorithm",
+                            description = "CONCURRENT_SEGMENTED_SIEVE_WHEEL or SIEVE_OF_ATKIN, AUTO picks the former",
+                            required = false,
+                            in = ParameterIn.QUERY
+                    )
+            }
+    )
+    @GetMapping(path = "/primes/bitmap", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    ResponseEntity<byte[]> getPrimeBitmapInBinary(
+            @RequestParam(name = "from", defaultValue = "2") @Min(0) long from,
+            @RequestParam(name = "limit") @Min(2) long limit,
+            @RequestParam(name = "algorithm", defaultValue = "AUTO") Algorithm algorithm);
+
+    @Operation(
+            summary = "Count the prime numbers up to and including the limit",
+            description = """
+                    Counts pi(limit) with the Lagarias-Miller-Odlyzko method in about O(limit^(2/3)) time, without
+                    listing the primes. Includes the time taken for computation.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "application/json", schema = @Schema()),
+                                    @Content(mediaType = "application/xml", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "400", description = "Bad request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @Parameters(
+            value = {
+                    @Parameter(
+                            name = "limit",
+                            description = "Inclusive upper limit, at most 10^16",
+                            required = true,
+                            in = ParameterIn.QUERY)
+            }
+    )
+    @GetMapping(path = "/primes/count", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    ResponseEntity<PrimeCountResponse> countPrimeNumbers(
+            @RequestParam(name = "limit") @Min(2) @Max(Constant.MAX_COUNT_LIMIT) long limit);
+
+    @Operation(
+            summary = "Get the n-th prime number",
+            description = """
+                    Counts pi(x) at an analytic estimate of the n-th prime, then sieves only the narrow window
+                    between the estimate and the n-th prime. Includes the time taken for computation.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "application/json", schema = @Schema()),
+                                    @Content(mediaType = "application/xml", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "400", description = "Bad request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @Parameters(
+            value = {
+                    @Parameter(
+                            name = "n",
+                            description = "1-based index of the prime, n = 1 is 2",
+                            required = true,
+                            in = ParameterIn.QUERY)
+            }
+    )
+    @GetMapping(path = "/primes/nth", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    ResponseEntity<NthPrimeResponse> getNthPrimeNumber(
+            @RequestParam(name = "n") @Min(1) @Max(Constant.MAX_NTH_PRIME_INDEX) long n);
+
+    @Operation(
+            summary = "Check whether a single number is prime",
+            description = """
+                    Answers with a deterministic Miller-Rabin test, which is exact for every 64-bit number.
+                    Includes the time taken for computation.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "application/json", schema = @Schema()),
+                                    @Content(mediaType = "application/xml", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "400", description = "Bad request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @Parameters(
+            value = {
+                    @Parameter(
+                            name = "number",
+                            description = "Number to check",
+                            required = true,
+                            in = ParameterIn.QUERY)
+            }
+    )
+    @GetMapping(path = "/primes/is-prime", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    ResponseEntity<PrimalityResponse> isPrime(@RequestParam(name = "number") long number);
+
+    @Operation(
+            summary = "Check whether each number of a batch is prime",
+            description = """
+                    Answers every number of the JSON array body with a deterministic Miller-Rabin test.
+                    Large batches are spread across the thread pool. results[i] belongs to the i-th number.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "application/json", schema = @Schema()),
+                                    @Content(mediaType = "application/xml", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "400", description = "Bad request"),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @PostMapping(
+            path = "/primes/is-prime",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    ResponseEntity<PrimalityBatchResponse> isPrimeBatch(
+            @RequestBody @NotEmpty @Size(max = Constant.MAX_PRIMALITY_BATCH_SIZE) long[] numbers);
+
+    @Operation(
+            summary = "Get the statistics of the prime cache",
+            description = """
+                    Returns the limit and size of the cached prime prefix, with the number of cache hits, misses and
+                    evictions since start up.
+                    """
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful response",
+                            content = {
+                                    @Content(mediaType = "application/json", schema = @Schema()),
+                                    @Content(mediaType = "application/xml", schema = @Schema())
+                            }),
+                    @ApiResponse(responseCode = "500", description = "Server error")
+            }
+    )
+    @GetMapping(path = "/primes/cache", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    ResponseEntity<CacheStatisticsResponse> getCacheStatistics();
+}
@@ -0,0 +1,20 @@
+package com.denisneagu.primenumberapi.dto;
+
+import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// the fields of a PrimeNumberResponse go into headers, the body is the encoded primes. contentLength is -1 when the
+// size isn't known before the body is written
+public record BinaryPrimeNumberResponse(
+        Algorithm algorithm,
+        boolean cache,
+        long execTimeInNs,
+        long execTimeInMs,
+        long numOfPrimes,
+        PrimeEncoding encoding,
+        boolean gzip,
+        long contentLength,
+        StreamingResponseBody body
+        ) {
+}
@@ -0,0 +1,37 @@
+package com.denisneagu.primenumberapi.dto;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+
+import java.time.LocalDateTime;
+
+@JacksonXmlRootElement
+public record CacheStatisticsResponse(
+        long cachedLimit,
+        long sizeInBytes,
+        long hits,
+        long misses,
+        long evictions,
+        long evictedBytes,
+        long encodedBodies,
+        long encodedBodiesSizeInBytes,
+        LocalDateTime timestamp
+        ) {
+    public CacheStatisticsResponse(long cachedLimit,
+                                   long sizeInBytes,
+                                   long hits,
+                                   long misses,
+                                   long evictions,
+                                   long evictedBytes,
+                                   long encodedBodies,
+                                   long encodedBodiesSizeInBytes) {
+        this(cachedLimit,
+                sizeInBytes,
+                hits,
+                misses,
+                evictions,
+                evictedBytes,
+                encodedBodies,
+                encodedBodiesSizeInBytes,
+                LocalDateTime.now());
+    }
+}
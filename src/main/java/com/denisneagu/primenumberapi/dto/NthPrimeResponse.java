@@ -0,0 +1,21 @@
+package com.denisneagu.primenumberapi.dto;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+
+import java.time.LocalDateTime;
+
+@JacksonXmlRootElement
+public record NthPrimeResponse(
+        long n,
+        long prime,
+        long execTimeInNs,
+        long execTimeInMs,
+        LocalDateTime timestamp
+        ) {
+    public NthPrimeResponse(long n,
+                            long prime,
+                            long execTimeInNs,
+                            long execTimeInMs) {
+        this(n, prime, execTimeInNs, execTimeInMs, LocalDateTime.now());
+    }
+}
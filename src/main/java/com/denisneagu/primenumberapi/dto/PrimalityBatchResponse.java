@@ -0,0 +1,28 @@
+package com.denisneagu.primenumberapi.dto;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+
+import java.time.LocalDateTime;
+
+// results[i] tells whether the i-th requested number is prime
+@JacksonXmlRootElement
+public record PrimalityBatchResponse(
+        long execTimeInNs,
+        long execTimeInMs,
+        LocalDateTime timestamp,
+        int numOfNumbers,
+        int numOfPrimes,
+        @JacksonXmlElementWrapper(localName = "results")
+        @JacksonXmlProperty(localName = "result")
+        boolean[] results
+        ) {
+    public PrimalityBatchResponse(long execTimeInNs,
+                                  long execTimeInMs,
+                                  int numOfNumbers,
+                                  int numOfPrimes,
+                                  boolean[] results) {
+        this(execTimeInNs, execTimeInMs, LocalDateTime.now(), numOfNumbers, numOfPrimes, results);
+    }
+}
@@ -0,0 +1,21 @@
+package com.denisneagu.primenumberapi.dto;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+
+import java.time.LocalDateTime;
+
+@JacksonXmlRootElement
+public record PrimalityResponse(
+        long number,
+        boolean prime,
+        long execTimeInNs,
+        long execTimeInMs,
+        LocalDateTime timestamp
+        ) {
+    public PrimalityResponse(long number,
+                             boolean prime,
+                             long execTimeInNs,
+                             long execTimeInMs) {
+        this(number, prime, execTimeInNs, execTimeInMs, LocalDateTime.now());
+    }
+}
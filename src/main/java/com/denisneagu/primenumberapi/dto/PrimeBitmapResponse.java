@@ -0,0 +1,32 @@
+package com.denisneagu.primenumberapi.dto;
+
+import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+
+import java.time.LocalDateTime;
+
+// bit i of bitmap[k] is set when offset + 30 * k + {1, 7, 11, 13, 17, 19, 23, 29}[i] is a prime in [from, limit].
+// 2, 3 and 5 aren't in the bitmap but are part of numOfPrimes. byte[] is written as base64
+@JacksonXmlRootElement
+public record PrimeBitmapResponse(
+        Algorithm algorithm,
+        long from,
+        long limit,
+        long offset,
+        long numOfPrimes,
+        long execTimeInNs,
+        long execTimeInMs,
+        LocalDateTime timestamp,
+        byte[] bitmap
+        ) {
+    public PrimeBitmapResponse(Algorithm algorithm,
+                               long from,
+                               long limit,
+                               long offset,
+                               long numOfPrimes,
+                               long execTimeInNs,
+                               long execTimeInMs,
+                               byte[] bitmap) {
+        this(algorithm, from, limit, offset, numOfPrimes, execTimeInNs, execTimeInMs, LocalDateTime.now(), bitmap);
+    }
+}
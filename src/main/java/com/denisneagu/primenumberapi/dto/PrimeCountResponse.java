@@ -0,0 +1,21 @@
+package com.denisneagu.primenumberapi.dto;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+
+import java.time.LocalDateTime;
+
+@JacksonXmlRootElement
+public record PrimeCountResponse(
+        long limit,
+        long numOfPrimes,
+        long execTimeInNs,
+        long execTimeInMs,
+        LocalDateTime timestamp
+        ) {
+    public PrimeCountResponse(long limit,
+                              long numOfPrimes,
+                              long execTimeInNs,
+                              long execTimeInMs) {
+        this(limit, numOfPrimes, execTimeInNs, execTimeInMs, LocalDateTime.now());
+    }
+}
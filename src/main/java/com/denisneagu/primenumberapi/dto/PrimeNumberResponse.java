@@ -1,6 +1,7 @@
 package com.denisneagu.primenumberapi.dto;
 
 import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.util.PrimeSequence;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
@@ -14,17 +15,17 @@ public record PrimeNumberResponse(
         long execTimeInNs,
         long execTimeInMs,
         LocalDateTime timestamp,
-        int numOfPrimes,
+        long numOfPrimes,
         @JacksonXmlElementWrapper(localName = "primes")
         @JacksonXmlProperty(localName = "prime")
-        long[] primes
+        PrimeSequence primes
         ) {
     public PrimeNumberResponse(Algorithm algorithm,
                                boolean cache,
                                long execTimeInNs,
                                long execTimeInMs,
-                               int numOfPrimes,
-                               long[] primes) {
+                               long numOfPrimes,
+                               PrimeSequence primes) {
         this(algorithm, cache, execTimeInNs, execTimeInMs, LocalDateTime.now(), numOfPrimes, primes);
     }
 }
\ No newline at end of file
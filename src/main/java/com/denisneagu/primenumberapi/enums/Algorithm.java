@@ -1,9 +1,12 @@
 package com.denisneagu.primenumberapi.enums;
 
 public enum Algorithm {
+    AUTO,
     NAIVE_TRIAL_DIVISION,
     NAIVE_TRIAL_DIVISION_OPTIMISED,
     SIEVE_OF_ERATOSTHENES,
     CONCURRENT_SEGMENTED_SIEVE,
-    SEGMENTED_SIEVE_BITSET
+    SEGMENTED_SIEVE_BITSET,
+    CONCURRENT_SEGMENTED_SIEVE_WHEEL,
+    SIEVE_OF_ATKIN
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.denisneagu.primenumberapi.enums;
+
+public enum PrimeEncoding {
+    RAW_INT64,
+    DELTA_VARINT
+}
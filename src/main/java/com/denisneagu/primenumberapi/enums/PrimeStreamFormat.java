@@ -0,0 +1,7 @@
+package com.denisneagu.primenumberapi.enums;
+
+public enum PrimeStreamFormat {
+    JSON,
+    NDJSON,
+    CSV
+}
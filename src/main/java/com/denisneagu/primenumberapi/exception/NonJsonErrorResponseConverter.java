@@ -0,0 +1,44 @@
+package com.denisneagu.primenumberapi.exception;
+
+import com.denisneagu.primenumberapi.exception.dto.ErrorResponse;
+import com.denisneagu.primenumberapi.util.Constant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+// a request for the binary, ndjson or csv representation only accepts that media type, which no error response can be
+// written as, so the failed content negotiation would turn every error into a 500. its errors are written as json
+// instead, a representation the client didn't ask for beats losing the status of the error
+@Component
+public class NonJsonErrorResponseConverter extends MappingJackson2HttpMessageConverter {
+
+    public NonJsonErrorResponseConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+        setSupportedMediaTypes(List.of(
+                MediaType.APPLICATION_OCTET_STREAM,
+                MediaType.APPLICATION_NDJSON,
+                MediaType.parseMediaType(Constant.TEXT_CSV_VALUE)));
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+        return ErrorResponse.class.isAssignableFrom(clazz) && super.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    protected void addDefaultHeaders(HttpHeaders headers, Object body, @Nullable MediaType contentType)
+            throws IOException {
+        super.addDefaultHeaders(headers, body, MediaType.APPLICATION_JSON);
+    }
+}
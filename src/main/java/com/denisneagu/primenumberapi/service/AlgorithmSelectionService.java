@@ -0,0 +1,9 @@
+package com.denisneagu.primenumberapi.service;
+
+import com.denisneagu.primenumberapi.enums.Algorithm;
+
+public interface AlgorithmSelectionService {
+    Algorithm selectAlgorithm(long from, long limit, boolean showPrimes);
+
+    void calibrate();
+}
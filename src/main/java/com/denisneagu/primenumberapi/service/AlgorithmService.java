@@ -1,17 +1,70 @@
 package com.denisneagu.primenumberapi.service;
 
+import com.denisneagu.primenumberapi.util.AbstractSegmentedWheelSieve;
+import com.denisneagu.primenumberapi.util.PrimeSequence;
+
+import java.io.IOException;
 import java.util.concurrent.ExecutorService;
 
 public interface AlgorithmService {
-    long[] getPrimeNumbersUsingNaiveTrialDivision(long startAt, long limit);
+    PrimeSequence getPrimeNumbersUsingNaiveTrialDivision(long startAt, long limit);
+
+    PrimeSequence getPrimeNumbersUsingNaiveTrialDivisionOptimised(long startAt, long limit);
+
+    PrimeSequence getPrimeNumbersUsingSieveOfEratosthenes(long startAt, long limit);
+
+    PrimeSequence getPrimeNumbersUsingConcurrentSegmentedSieve(ExecutorService executorService,
+                                                          long startAt,
+                                                          long limit);
+
+    PrimeSequence getPrimeNumbersUsingSegmentedSieveBitset(long startAt, long limit);
+
+    PrimeSequence getPrimeNumbersUsingConcurrentSegmentedSieveWheel(ExecutorService executorService,
+                                                               long startAt,
+                                                               long limit);
+
+    PrimeSequence getPrimeNumbersUsingSieveOfAtkin(ExecutorService executorService, long startAt, long limit);
+
+    long streamPrimeNumbersUsingSegmentedSieveWheel(long startAt,
+                                                    long limit,
+                                                    AbstractSegmentedWheelSieve.SegmentConsumer consumer)
+            throws IOException;
+
+    long streamPrimeNumbersUsingSieveOfAtkin(long startAt,
+                                             long limit,
+                                             AbstractSegmentedWheelSieve.SegmentConsumer consumer) throws IOException;
 
-    long[] getPrimeNumbersUsingNaiveTrialDivisionOptimised(long startAt, long limit);
+    AbstractSegmentedWheelSieve.Bitmap getBitmapUsingSegmentedSieveWheel(ExecutorService executorService,
+                                                                         long startAt,
+                                                                         long limit);
 
-    long[] getPrimeNumbersUsingSieveOfEratosthenes(long startAt, long limit);
+    AbstractSegmentedWheelSieve.Bitmap getBitmapUsingSieveOfAtkin(ExecutorService executorService,
+                                                                  long startAt,
+                                                                  long limit);
 
-    long[] getPrimeNumbersUsingConcurrentSegmentedSieve(ExecutorService executorService,
+    long countPrimeNumbersUsingNaiveTrialDivision(long startAt, long limit);
+
+    long countPrimeNumbersUsingNaiveTrialDivisionOptimised(long startAt, long limit);
+
+    long countPrimeNumbersUsingSieveOfEratosthenes(long startAt, long limit);
+
+    long countPrimeNumbersUsingConcurrentSegmentedSieve(ExecutorService executorService,
                                                         long startAt,
                                                         long limit);
 
-    long[] getPrimeNumbersUsingSegmentedSieveBitset(long startAt, long limit);
+    long countPrimeNumbersUsingSegmentedSieveBitset(long startAt, long limit);
+
+    long countPrimeNumbersUsingConcurrentSegmentedSieveWheel(ExecutorService executorService,
+                                                             long startAt,
+                                                             long limit);
+
+    long countPrimeNumbersUsingSieveOfAtkin(ExecutorService executorService, long startAt, long limit);
+
+    long countPrimeNumbersUsingLagariasMillerOdlyzko(ExecutorService executorService, long limit);
+
+    long getNthPrimeNumber(ExecutorService executorService, long n);
+
+    boolean isPrimeUsingMillerRabin(long number);
+
+    boolean[] isPrimeUsingMillerRabin(ExecutorService executorService, long[] numbers);
 }
\ No newline at end of file
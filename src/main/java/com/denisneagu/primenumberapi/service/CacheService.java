@@ -1,13 +1,30 @@
 package com.denisneagu.primenumberapi.service;
 
+import com.denisneagu.primenumberapi.dto.CacheStatisticsResponse;
+import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
+import com.denisneagu.primenumberapi.util.CompressedPrimeSequence;
+
 import java.util.Map;
 
 public interface CacheService {
-    Map.Entry<Long, long[]> getHighestCachedPrimeNumbersEntry();
-    Map<Long, long[]> getAllCachedLimitToPrimeNumbers();
-    long[] getCachedPrimeNumbers(long limit);
+    // a binary body of the primes in [from, limit], the same range is encoded once per encoding and once more gzipped
+    record EncodedBodyKey(long from, long limit, PrimeEncoding encoding, boolean gzip) {
+    }
+
+    // algorithm is the engine that sieved the primes of the body, a hit reports it instead of one that never ran
+    record EncodedBody(byte[] bytes, long numOfPrimes, Algorithm algorithm) {
+    }
+
+    Map.Entry<Long, CompressedPrimeSequence> getHighestCachedPrimeNumbersEntry();
+    CompressedPrimeSequence getCachedPrimeNumbers(long limit);
     long getExistingCache();
-    boolean isCachingSafe(long[] primesToCache);
-    void addPrimeNumbersToCache(long limit, long[] primeNumbers);
+    boolean isCachingSafe(CompressedPrimeSequence primesToCache);
+    void addPrimeNumbersToCache(long limit, CompressedPrimeSequence primeNumbers);
+    EncodedBody getEncodedBody(EncodedBodyKey key);
+    boolean isEncodedBodyCachingSafe(long sizeInBytes);
+    void addEncodedBody(EncodedBodyKey key, EncodedBody body);
+    void shrinkCache(long maxSizeInBytes);
     void clearCache();
+    CacheStatisticsResponse getCacheStatistics();
 }
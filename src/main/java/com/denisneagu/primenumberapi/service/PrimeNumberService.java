@@ -1,8 +1,39 @@
 package com.denisneagu.primenumberapi.service;
 
+import com.denisneagu.primenumberapi.dto.BinaryPrimeNumberResponse;
+import com.denisneagu.primenumberapi.dto.CacheStatisticsResponse;
+import com.denisneagu.primenumberapi.dto.NthPrimeResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityBatchResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityResponse;
+import com.denisneagu.primenumberapi.dto.PrimeBitmapResponse;
+import com.denisneagu.primenumberapi.dto.PrimeCountResponse;
 import com.denisneagu.primenumberapi.dto.PrimeNumberResponse;
 import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
+import com.denisneagu.primenumberapi.enums.PrimeStreamFormat;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 public interface PrimeNumberService {
-    PrimeNumberResponse getPrimeNumbers(long limit, boolean showPrimes, Algorithm algorithm, boolean cache);
+    PrimeNumberResponse getPrimeNumbers(long from, long limit, boolean showPrimes, Algorithm algorithm, boolean cache);
+
+    BinaryPrimeNumberResponse getPrimeNumbersInBinary(long from,
+                                                      long limit,
+                                                      Algorithm algorithm,
+                                                      boolean cache,
+                                                      PrimeEncoding encoding,
+                                                      boolean acceptsGzip);
+
+    StreamingResponseBody streamPrimeNumbers(long from, long limit, Algorithm algorithm, PrimeStreamFormat format);
+
+    PrimeBitmapResponse getPrimeBitmap(long from, long limit, Algorithm algorithm);
+
+    PrimeCountResponse countPrimeNumbers(long limit);
+
+    NthPrimeResponse getNthPrimeNumber(long n);
+
+    PrimalityResponse isPrime(long number);
+
+    PrimalityBatchResponse isPrime(long[] numbers);
+
+    CacheStatisticsResponse getCacheStatistics();
 }
\ No newline at end of file
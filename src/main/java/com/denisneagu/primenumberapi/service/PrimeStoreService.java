@@ -0,0 +1,11 @@
+package com.denisneagu.primenumberapi.service;
+
+import com.denisneagu.primenumberapi.util.CompressedPrimeSequence;
+import com.denisneagu.primenumberapi.util.PrimeSequence;
+
+public interface PrimeStoreService {
+    boolean isCovered(long limit);
+    long countPrimeNumbers(long from, long limit);
+    PrimeSequence getPrimeNumbers(long from, long limit);
+    void storePrimeNumbers(CompressedPrimeSequence primeNumbers, long limit);
+}
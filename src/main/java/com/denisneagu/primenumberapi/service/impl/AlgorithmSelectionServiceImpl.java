@@ -0,0 +1,229 @@
+package com.denisneagu.primenumberapi.service.impl;
+
+import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.service.AlgorithmSelectionService;
+import com.denisneagu.primenumberapi.service.AlgorithmService;
+import com.denisneagu.primenumberapi.util.AbstractSegmentedWheelSieve;
+import com.denisneagu.primenumberapi.util.Constant;
+import com.denisneagu.primenumberapi.util.ExecutorServiceProvider;
+import com.denisneagu.primenumberapi.util.ForkJoinSegmentedSieve;
+import com.denisneagu.primenumberapi.util.Util;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+@Service
+@Slf4j
+public class AlgorithmSelectionServiceImpl implements AlgorithmSelectionService {
+    // engines AUTO can pick from, in order of preference when two cost the same
+    private static final Algorithm[] ENGINES = {
+            Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL,
+            Algorithm.SIEVE_OF_ATKIN,
+            Algorithm.CONCURRENT_SEGMENTED_SIEVE,
+            Algorithm.SEGMENTED_SIEVE_BITSET,
+            Algorithm.SIEVE_OF_ERATOSTHENES,
+            Algorithm.NAIVE_TRIAL_DIVISION_OPTIMISED,
+            Algorithm.NAIVE_TRIAL_DIVISION
+    };
+    // segment sizes used by the engines in AlgorithmServiceImpl, they bound how much memory a range needs at once
+    private static final long CONCURRENT_SEGMENT_SIZE = ForkJoinSegmentedSieve.DEFAULT_CHUNK_SIZE;
+    private static final long BITSET_SEGMENT_SIZE = 500_000_000L;
+    private static final long WHEEL_SEGMENT_SIZE = 30L * AbstractSegmentedWheelSieve.DEFAULT_SEGMENT_BYTES;
+    // trial division is calibrated on smaller limits than the sieves, it's quadratic-ish and would stall the boot
+    private static final long[] TRIAL_DIVISION_CALIBRATION_LIMITS = {10_000L, 100_000L};
+    private static final long[] SIEVE_CALIBRATION_LIMITS = {1_000_000L, 10_000_000L};
+    private static final int CALIBRATION_RUNS = 2;
+
+    private final AlgorithmService algorithmService;
+    private final ExecutorServiceProvider executorServiceProvider;
+    private final boolean calibrationEnabled;
+    private final int availableProcessors = Runtime.getRuntime().availableProcessors();
+    // nanoseconds per unit of work on a single core, replaced as a whole once calibration finishes
+    private volatile Map<Algorithm, Double> costPerUnitOfWork = getDefaultCostPerUnitOfWork();
+
+    public AlgorithmSelectionServiceImpl(AlgorithmService algorithmService,
+                                         ExecutorServiceProvider executorServiceProvider,
+                                         @Value("${primenumberapi.auto.calibration-enabled:true}")
+                                         boolean calibrationEnabled) {
+        this.algorithmService = algorithmService;
+        this.executorServiceProvider = executorServiceProvider;
+        this.calibrationEnabled = calibrationEnabled;
+    }
+
+    // rough figures from a development machine, only used until calibration has run or when it's disabled
+    private static Map<Algorithm, Double> getDefaultCostPerUnitOfWork() {
+        Map<Algorithm, Double> defaults = new EnumMap<>(Algorithm.class);
+        defaults.put(Algorithm.NAIVE_TRIAL_DIVISION, 4.0);
+        defaults.put(Algorithm.NAIVE_TRIAL_DIVISION_OPTIMISED, 2.0);
+        defaults.put(Algorithm.SIEVE_OF_ERATOSTHENES, 6.0);
+        defaults.put(Algorithm.CONCURRENT_SEGMENTED_SIEVE, 5.0);
+        defaults.put(Algorithm.SEGMENTED_SIEVE_BITSET, 7.0);
+        defaults.put(Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL, 1.0);
+        defaults.put(Algorithm.SIEVE_OF_ATKIN, 2.0);
+        return defaults;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void calibrateOnStartup() {
+        if (calibrationEnabled) {
+            calibrate();
+        } else {
+            log.info("AUTO calibration is disabled, using the default cost model");
+        }
+    }
+
+    // times every engine at a few sizes and fits time = k * work / parallelism through the origin by least squares,
+    // so k is the engine's cost per unit of work on one core of this machine
+    @Override
+    public void calibrate() {
+        Map<Algorithm, Double> calibrated = new EnumMap<>(Algorithm.class);
+
+        for (Algorithm algorithm : ENGINES) {
+            long[] limits = isTrialDivision(algorithm) ? TRIAL_DIVISION_CALIBRATION_LIMITS : SIEVE_CALIBRATION_LIMITS;
+            double sumTimeByWork = 0;
+            double sumWorkSquared = 0;
+
+            for (long limit : limits) {
+                double work = getWork(algorithm, 2, limit) / getParallelism(algorithm, 2, limit);
+                double time = getBestExecutionTimeInNs(algorithm, limit);
+                sumTimeByWork += time * work;
+                sumWorkSquared += work * work;
+            }
+
+            calibrated.put(algorithm, sumTimeByWork / sumWorkSquared);
+        }
+
+        costPerUnitOfWork = calibrated;
+        log.info("AUTO calibration finished on {} cores, cost per unit of work in ns: {}", availableProcessors, calibrated);
+    }
+
+    // the first run warms the JIT up, so the fastest run is the one closest to steady state
+    private long getBestExecutionTimeInNs(Algorithm algorithm, long limit) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < CALIBRATION_RUNS; run++) {
+            long startTimeInNs = System.nanoTime();
+            countPrimeNumbers(algorithm, limit);
+            best = Math.min(best, System.nanoTime() - startTimeInNs);
+        }
+        return Math.max(best, 1);
+    }
+
+    private void countPrimeNumbers(Algorithm algorithm, long limit) {
+        ExecutorService executorService = executorServiceProvider.getExecutorService();
+        switch (algorithm) {
+            case NAIVE_TRIAL_DIVISION -> algorithmService.countPrimeNumbersUsingNaiveTrialDivision(2, limit);
+            case NAIVE_TRIAL_DIVISION_OPTIMISED ->
+                    algorithmService.countPrimeNumbersUsingNaiveTrialDivisionOptimised(2, limit);
+            case SIEVE_OF_ERATOSTHENES -> algorithmService.countPrimeNumbersUsingSieveOfEratosthenes(2, limit);
+            case CONCURRENT_SEGMENTED_SIEVE ->
+                    algorithmService.countPrimeNumbersUsingConcurrentSegmentedSieve(executorService, 2, limit);
+            case SEGMENTED_SIEVE_BITSET -> algorithmService.countPrimeNumbersUsingSegmentedSieveBitset(2, limit);
+            case CONCURRENT_SEGMENTED_SIEVE_WHEEL ->
+                    algorithmService.countPrimeNumbersUsingConcurrentSegmentedSieveWheel(executorService, 2, limit);
+            case SIEVE_OF_ATKIN -> algorithmService.countPrimeNumbersUsingSieveOfAtkin(executorService, 2, limit);
+            default -> throw new IllegalStateException("Engine can't be calibrated: " + algorithm);
+        }
+    }
+
+    @Override
+    public Algorithm selectAlgorithm(long from, long limit, boolean showPrimes) {
+        if (from > limit) {
+            throw new IllegalArgumentException(Constant.FROM_GREATER_THAN_LIMIT_MESSAGE);
+        }
+
+        Map<Algorithm, Double> costs = costPerUnitOfWork;
+        long maxSafeMemory = Util.getMaxSafeMemory();
+        Algorithm cheapest = null;
+        double cheapestCost = Double.MAX_VALUE;
+
+        for (Algorithm algorithm : ENGINES) {
+            if (!isSafe(algorithm, from, limit, showPrimes, maxSafeMemory)) {
+                continue;
+            }
+
+            double cost = costs.get(algorithm) * getWork(algorithm, from, limit) / getParallelism(algorithm, from, limit);
+            if (cost < cheapestCost) {
+                cheapest = algorithm;
+                cheapestCost = cost;
+            }
+        }
+
+        log.info("AUTO selected {} for range [{}, {}] with an estimated cost of {} ms",
+                cheapest,
+                from,
+                limit,
+                String.format("%.3f", cheapestCost / 1_000_000));
+        return cheapest;
+    }
+
+    private boolean isSafe(Algorithm algorithm, long from, long limit, boolean showPrimes, long maxSafeMemory) {
+        // mirrors the limit PrimeNumberServiceImpl enforces for eratosthenes, its sieve is a single boolean[]
+        if (algorithm == Algorithm.SIEVE_OF_ERATOSTHENES && getSieveSize(from, limit) >= Integer.MAX_VALUE) {
+            return false;
+        }
+        return getMemoryInBytes(algorithm, from, limit, showPrimes) <= maxSafeMemory;
+    }
+
+    private static boolean isTrialDivision(Algorithm algorithm) {
+        return algorithm == Algorithm.NAIVE_TRIAL_DIVISION || algorithm == Algorithm.NAIVE_TRIAL_DIVISION_OPTIMISED;
+    }
+
+    private static long getRangeSize(long from, long limit) {
+        return Math.max(limit - Math.max(from, 2) + 1, 0);
+    }
+
+    // eratosthenes from 2 sieves the whole prefix, a range above 2 only sieves its window
+    private static long getSieveSize(long from, long limit) {
+        return from <= 2 ? limit : getRangeSize(from, limit);
+    }
+
+    // the shape of each engine's running time, the calibrated constant turns it into nanoseconds. the log log factor
+    // of the sieves is left out, it barely moves over the limits served here
+    private static double getWork(Algorithm algorithm, long from, long limit) {
+        double rangeSize = getRangeSize(from, limit);
+        double sqrtLimit = Math.sqrt(limit);
+
+        if (isTrialDivision(algorithm)) {
+            // composites bail out early, so the cost is dominated by the primes dividing up to sqrt
+            return rangeSize * sqrtLimit / Math.log(Math.max(limit, 3)) + rangeSize;
+        } else if (algorithm == Algorithm.SIEVE_OF_ERATOSTHENES) {
+            return getSieveSize(from, limit) + sqrtLimit;
+        }
+        return rangeSize + sqrtLimit;
+    }
+
+    // how many cores an engine keeps busy over the range, the single threaded engines only ever use one
+    private double getParallelism(Algorithm algorithm, long from, long limit) {
+        long rangeSize = Math.max(getRangeSize(from, limit), 1);
+        long tasks = switch (algorithm) {
+            case CONCURRENT_SEGMENTED_SIEVE -> (rangeSize + CONCURRENT_SEGMENT_SIZE - 1) / CONCURRENT_SEGMENT_SIZE;
+            case CONCURRENT_SEGMENTED_SIEVE_WHEEL, SIEVE_OF_ATKIN ->
+                    (rangeSize + WHEEL_SEGMENT_SIZE - 1) / WHEEL_SEGMENT_SIZE;
+            default -> 1;
+        };
+        return Math.min(tasks, availableProcessors);
+    }
+
+    // working memory of the sieve itself, the primes listed are the same for every engine and don't pick one. listing
+    // with the parallel sieves also keeps the sieved bits of the whole range until the result is sized
+    private long getMemoryInBytes(Algorithm algorithm, long from, long limit, boolean showPrimes) {
+        long rangeSize = getRangeSize(from, limit);
+        long parallelism = (long) getParallelism(algorithm, from, limit);
+        return switch (algorithm) {
+            case SIEVE_OF_ERATOSTHENES -> getSieveSize(from, limit) + 1;
+            case CONCURRENT_SEGMENTED_SIEVE ->
+                    CONCURRENT_SEGMENT_SIZE * parallelism + (showPrimes ? rangeSize / 8 : 0);
+            case SEGMENTED_SIEVE_BITSET -> Math.min(rangeSize, BITSET_SEGMENT_SIZE) / 8;
+            case CONCURRENT_SEGMENTED_SIEVE_WHEEL, SIEVE_OF_ATKIN ->
+                    (long) AbstractSegmentedWheelSieve.DEFAULT_SEGMENT_BYTES * parallelism
+                            + (showPrimes ? rangeSize / AbstractSegmentedWheelSieve.WHEEL : 0);
+            default -> 0;
+        };
+    }
+}
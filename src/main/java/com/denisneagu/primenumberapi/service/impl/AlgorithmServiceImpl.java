@@ -1,9 +1,19 @@
 package com.denisneagu.primenumberapi.service.impl;
 
 import com.denisneagu.primenumberapi.service.AlgorithmService;
+import com.denisneagu.primenumberapi.util.AbstractSegmentedWheelSieve;
+import com.denisneagu.primenumberapi.util.BasePrimes;
+import com.denisneagu.primenumberapi.util.Constant;
+import com.denisneagu.primenumberapi.util.ForkJoinSegmentedSieve;
+import com.denisneagu.primenumberapi.util.LagariasMillerOdlyzko;
+import com.denisneagu.primenumberapi.util.MillerRabin;
+import com.denisneagu.primenumberapi.util.PrimeSequence;
+import com.denisneagu.primenumberapi.util.SegmentedSieveOfAtkin;
+import com.denisneagu.primenumberapi.util.SegmentedWheelSieve;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -14,23 +24,16 @@ import java.util.concurrent.ExecutorService;
 @Service
 @Slf4j
 public class AlgorithmServiceImpl implements AlgorithmService {
-
-    private int getArrSizeUsingPrimeNumberTheorem(long limit) {
-        // limit should never be 1 due hibernate validations on the request parameter, but just in-case
-        if (limit <= 1) {
-            throw new IllegalArgumentException("Limit can't be less than or equal to 1 when calculating PNT");
-        }
-
-        // 1.3 buffer
-        long limitSize = (long) (limit / Math.log(limit) * 1.3);
-
-        // if there's more numbers than the Integer max limit then we'll throw an error to avoid an overflow.
-        if (limitSize > Integer.MAX_VALUE) {
-            throw new IllegalArgumentException("Too many prime numbers to fit within an array");
-        }
-
-        return (int) limitSize;
-    }
+    // numbers per miller-rabin task, smaller batches are answered on the calling thread
+    private static final int MILLER_RABIN_BATCH_SIZE = 4096;
+    // window of the n-th prime search, from a gap that a pi(x) count can't narrow down further up to a size whose
+    // primes still fit comfortably in memory
+    private static final long MIN_NTH_PRIME_WINDOW = 1 << 16;
+    private static final long MAX_NTH_PRIME_WINDOW = 1 << 26;
+    private final ForkJoinSegmentedSieve forkJoinSegmentedSieve = new ForkJoinSegmentedSieve();
+    private final SegmentedWheelSieve segmentedWheelSieve = new SegmentedWheelSieve();
+    private final SegmentedSieveOfAtkin segmentedSieveOfAtkin = new SegmentedSieveOfAtkin();
+    private final LagariasMillerOdlyzko lagariasMillerOdlyzko = new LagariasMillerOdlyzko(segmentedWheelSieve);
 
     private boolean isPrime(long num) {
         for (long i = 2; i * i <= num; i++) {
@@ -42,40 +45,45 @@ public class AlgorithmServiceImpl implements AlgorithmService {
     }
 
     @Override
-    public long[] getPrimeNumbersUsingNaiveTrialDivision(long startAt, long limit) {
+    public PrimeSequence getPrimeNumbersUsingNaiveTrialDivision(long startAt, long limit) {
         // ensure startAt is at least 2
         startAt = Math.max(startAt, 2);
 
-        int estimatedSize = getArrSizeUsingPrimeNumberTheorem(limit);
-
-        long[] primeNumbers = new long[estimatedSize];
-
-        int index = 0;
+        // the count isn't known up front, so the primes are appended page by page instead of into an estimate
+        PrimeSequence.Builder primeNumbers = new PrimeSequence.Builder(limit);
 
         for (long i = startAt; i <= limit; i++) {
             if (isPrime(i)) {
-                primeNumbers[index++] = i;
+                primeNumbers.add(i);
             }
         }
 
-        return Arrays.copyOf(primeNumbers, index);
+        return primeNumbers.build();
     }
 
-    private boolean isPrimeOptimized(long num) {
-        if (num <= 1) {
-            return false;
-        }
-        if (num == 2) {
-            return true;
+    @Override
+    public long countPrimeNumbersUsingNaiveTrialDivision(long startAt, long limit) {
+        long count = 0;
+        for (long i = Math.max(startAt, 2); i <= limit; i++) {
+            if (isPrime(i)) {
+                count++;
+            }
         }
-        // skip even numbers
-        if (num % 2 == 0) {
+        return count;
+    }
+
+    // basePrimes holds every prime up to and including sqrt(num)
+    private boolean isPrimeOptimized(long num, int[] basePrimes) {
+        if (num <= 1) {
             return false;
         }
 
-        // only check odd divisors to cut the number of checks roughly in half
-        for (long i = 3; i * i <= num; i = i + 2) {
-            if (num % i == 0) {
+        // only check prime divisors, a composite divisor has a smaller prime factor that divides num already
+        for (int p : basePrimes) {
+            if ((long) p * p > num) {
+                break;
+            }
+            if (num % p == 0) {
                 return false;
             }
         }
@@ -84,29 +92,40 @@ public class AlgorithmServiceImpl implements AlgorithmService {
 
     // skip even numbers and only check odd numbers if they're prime
     @Override
-    public long[] getPrimeNumbersUsingNaiveTrialDivisionOptimised(long startAt, long limit) {
+    public PrimeSequence getPrimeNumbersUsingNaiveTrialDivisionOptimised(long startAt, long limit) {
         // ensure startAt is at least 2
         startAt = Math.max(startAt, 2);
 
-        int estimatedSize = getArrSizeUsingPrimeNumberTheorem(limit);
-
-        long[] primeNumbers = new long[estimatedSize];
-
-        int index = 0;
+        // the count isn't known up front, so the primes are appended page by page instead of into an estimate
+        PrimeSequence.Builder primeNumbers = new PrimeSequence.Builder(limit);
+        int[] basePrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
 
         for (long i = startAt; i <= limit; i++) {
-            if (isPrimeOptimized(i)) {
-                primeNumbers[index++] = i;
+            if (isPrimeOptimized(i, basePrimes)) {
+                primeNumbers.add(i);
             }
         }
 
-        return Arrays.copyOf(primeNumbers, index);
+        return primeNumbers.build();
     }
 
     @Override
-    public long[] getPrimeNumbersUsingSieveOfEratosthenes(long startAt, long limit) {
-        if (startAt >= Integer.MAX_VALUE) {
-            throw new IllegalArgumentException("startAt is larger than Integer max value in Sieve of Eratosthenes");
+    public long countPrimeNumbersUsingNaiveTrialDivisionOptimised(long startAt, long limit) {
+        long count = 0;
+        int[] basePrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        for (long i = Math.max(startAt, 2); i <= limit; i++) {
+            if (isPrimeOptimized(i, basePrimes)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public PrimeSequence getPrimeNumbersUsingSieveOfEratosthenes(long startAt, long limit) {
+        // a range that doesn't start at 2 only needs the window itself
+        if (startAt > 2) {
+            return getPrimeNumbersUsingSieveOfEratosthenesInRange(startAt, limit);
         }
 
         // ensure startAt is at least 2
@@ -117,17 +136,17 @@ public class AlgorithmServiceImpl implements AlgorithmService {
         boolean[] isPrime = new boolean[n + 1];
 
         // assume all numbers are prime until proven otherwise
-        for (int i = 0; i < n; i++) {
+        for (int i = 0; i <= n; i++) {
             isPrime[i] = true;
         }
 
-        // aggregate only through possible composite numbers, composite number must have at least one factor <= n
-        for (int p = 2; p * p < n; p++) {
+        // aggregate only through possible composite numbers, composite number must have at least one factor <= sqrt(n)
+        for (int p = 2; (long) p * p <= n; p++) {
             // if previously already marked as false because it's a multiple of p, we don't need to check
             if (isPrime[p]) {
                 // mark all multiples of p as composite, starting from p^2
                 // because smaller multiples have already been marked by smaller primes to avoid marking the same prime twice
-                for (int i = p * p; i < n; i = i + p) {
+                for (int i = p * p; i <= n && i > 0; i = i + p) {
                     isPrime[i] = false;
                 }
             }
@@ -137,21 +156,21 @@ public class AlgorithmServiceImpl implements AlgorithmService {
         int count = 0;
 
         // we don't need to start at 0 through the array. if merge happened then those numbers are already calculated.
-        for (int i = start; i < n; i++) {
+        for (int i = start; i <= n; i++) {
             if (isPrime[i]) {
                 count++;
             }
         }
 
-        // store primes in result array
-        long[] result = new long[count];
+        // store primes in result array, the limit is below Integer max value so it's always int backed
+        PrimeSequence result = PrimeSequence.allocate(count, limit);
 
         int index = 0;
 
         // add prime numbers
-        for (int i = start; i < n; i++) {
+        for (int i = start; i <= n; i++) {
             if (isPrime[i]) {
-                result[index] = i;
+                result.set(index, i);
                 index++;
             }
         }
@@ -159,6 +178,76 @@ public class AlgorithmServiceImpl implements AlgorithmService {
         return result;
     }
 
+    // sieve of eratosthenes over the window [startAt, limit] only, crossing off with the primes up to sqrt(limit).
+    // the window is what gets allocated, so this works for limits far above Integer max value
+    private PrimeSequence getPrimeNumbersUsingSieveOfEratosthenesInRange(long startAt, long limit) {
+        boolean[] isComposite = sieveRange(startAt, limit);
+
+        int count = 0;
+        for (boolean composite : isComposite) {
+            if (!composite) {
+                count++;
+            }
+        }
+
+        PrimeSequence result = PrimeSequence.allocate(count, limit);
+        int index = 0;
+        for (int i = 0; i < isComposite.length; i++) {
+            if (!isComposite[i]) {
+                result.set(index++, startAt + i);
+            }
+        }
+
+        return result;
+    }
+
+    // isComposite[i] holds startAt + i
+    private boolean[] sieveRange(long startAt, long limit) {
+        if (limit - startAt >= Integer.MAX_VALUE - 1) {
+            throw new IllegalArgumentException("Range is too large for an Integer array capacity");
+        }
+
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+
+        boolean[] isComposite = new boolean[(int) (limit - startAt + 1)];
+
+        for (int p : smallPrimes) {
+            // the small primes are sorted, no larger one has a square in the window
+            if ((long) p * p > limit) {
+                break;
+            }
+            // first multiple of p in the window, smaller multiples of p have been marked by smaller primes
+            long startMultiple = Math.max((long) p * p, ((startAt + p - 1) / p) * p);
+            for (long j = startMultiple; j <= limit; j += p) {
+                isComposite[(int) (j - startAt)] = true;
+            }
+        }
+
+        return isComposite;
+    }
+
+    @Override
+    public long countPrimeNumbersUsingSieveOfEratosthenes(long startAt, long limit) {
+        long count = 0;
+
+        if (startAt > 2) {
+            for (boolean composite : sieveRange(startAt, limit)) {
+                if (!composite) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        boolean[] isPrime = sieve(limit);
+        for (boolean prime : isPrime) {
+            if (prime) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     private boolean[] sieve(long limit) {
         if (limit >= Integer.MAX_VALUE) {
             throw new IllegalArgumentException("Limit is too large for an Integer array capacity");
@@ -184,186 +273,291 @@ public class AlgorithmServiceImpl implements AlgorithmService {
     }
 
     @Override
-    public long[] getPrimeNumbersUsingConcurrentSegmentedSieve(ExecutorService executorService,
+    public PrimeSequence getPrimeNumbersUsingConcurrentSegmentedSieve(ExecutorService executorService,
+                                                                 long startAt,
+                                                                 long limit) {
+        // small primes up to sqrt(limit) cross off the chunks, which the fork/join pool sieves and merges in order
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        return forkJoinSegmentedSieve.getPrimeNumbers(executorService, smallPrimes, startAt, limit);
+    }
+
+    @Override
+    public long countPrimeNumbersUsingConcurrentSegmentedSieve(ExecutorService executorService,
                                                                long startAt,
                                                                long limit) {
+        // every chunk only reports its count, so nothing but the reused chunk segments is allocated
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        return forkJoinSegmentedSieve.countPrimeNumbers(executorService, smallPrimes, startAt, limit);
+    }
+
+    @Override
+    public PrimeSequence getPrimeNumbersUsingSegmentedSieveBitset(long startAt, long limit) {
         // ensure min start is 2
         startAt = Math.max(startAt, 2);
         // set segment size
-        int segmentSize = 100_000_000;
-
-        // find small primes up to sqrt(limit) using a regular sieve
-        int sqrtLimit = (int) Math.sqrt(limit);
-        boolean[] isSmallPrime = sieve(sqrtLimit);
+        int segmentSize = 500_000_000;
 
-        // collect small prime numbers up to sqrt(limit) to be used to mark non-prime numbers in the segments
-        int smallPrimeCount = 0;
-        for (boolean b : isSmallPrime) {
-            if (b) {
-                smallPrimeCount++;
-            }
-        }
-        int[] smallPrimes = new int[smallPrimeCount];
-        int index = 0;
-        for (int i = 2; i <= sqrtLimit; i++) {
-            if (isSmallPrime[i]) {
-                smallPrimes[index++] = i;
-            }
-        }
+        // small primes up to sqrt(limit) mark the non-prime numbers in the segments
+        int sqrtLimit = getSqrtLimit(limit);
+        int[] smallPrimes = BasePrimes.getPrimes(sqrtLimit);
 
-        // estimate total number of primes using prime number theorem
-        int estimatedSize = getArrSizeUsingPrimeNumberTheorem(limit);
-        long[] allPrimes = new long[estimatedSize];
-        int count = 0;
+        // primes are appended page by page, so there's no estimate to over-allocate and no final copy
+        PrimeSequence.Builder allPrimes = new PrimeSequence.Builder(limit);
 
-        // add small primes >= startAt to result
+        // add small primes >= startAt to result, the shared base primes may go past sqrt(limit)
         for (int p : smallPrimes) {
+            if (p > sqrtLimit) {
+                break;
+            }
             if (p >= startAt) {
-                allPrimes[count++] = p;
+                allPrimes.add(p);
             }
         }
 
-        // prepare concurrent segment tasks
-        List<CompletableFuture<long[]>> futures = new ArrayList<>();
-
-        // process segments from max(startAt, sqrt(limit + 1)
         // small primes <= sqrt(limit) already handled, so skip
         long segmentStart = Math.max(startAt, (long) sqrtLimit + 1);
 
-        // divide range [segmentStart, limit] into segments
         while (segmentStart <= limit) {
-            // capture segmentStart value as segStart because segmentStart will chance in the loop, but we need a final value in the futures; race conditions
-            long segStart = segmentStart;
             // define the end of the current segment
-            long segEnd = Math.min(segStart + segmentSize - 1, limit);
-
-            // create CompletableFuture to process segments using multithreading and asynchronously using the ExecutorService's thread pools
-            CompletableFuture<long[]> future = CompletableFuture.supplyAsync(() -> {
-                // create array for the current segment
-                boolean[] segment = new boolean[(int) (segEnd - segStart + 1)];
-                // fill each index in the array with true assuming each number is primitive
-                Arrays.fill(segment, true);
-
-                // loop through small primes to use to mark non-prime numbers
-                for (int p : smallPrimes) {
-                    // find first multiple of p in the segment
-                    long startMultiple = Math.max((long) p * p, ((segStart + p - 1) / p) * p);
-                    // mark all multiples of p in the segment as non-prime numbers
-                    for (long j = startMultiple; j <= segEnd; j += p) {
-                        segment[(int) (j - segStart)] = false;
-                    }
-                }
-                // count prime numbers for a segment
-                int segCount = 0;
-                for (boolean b : segment) {
-                    if (b) {
-                        segCount++;
-                    }
-                }
-                // collect prime numbers from a segment
-                long[] primesInSegment = new long[segCount];
-                int k = 0;
-                for (int i = 0; i < segment.length; i++) {
-                    if (segment[i]) {
-                        primesInSegment[k++] = segStart + i;
-                    }
-                }
-                // return the array of primes from the existing segment
-                return primesInSegment;
-            }, executorService);
-            // add task to list of futures
-            futures.add(future);
-            // loop to next segment
+            long segEnd = Math.min(segmentStart + segmentSize - 1, limit);
+
+            BitSet segment = sieveSegmentBitset(smallPrimes, segmentStart, segEnd);
+
+            // loop through and set primes straight into the result
+            for (int i = segment.nextSetBit(0); i >= 0; i = segment.nextSetBit(i + 1)) {
+                allPrimes.add(segmentStart + i);
+            }
             segmentStart += segmentSize;
         }
+        return allPrimes.build();
+    }
 
-        // merge all prime numbers
-        for (CompletableFuture<long[]> future : futures) {
-            long[] segmentPrimes = future.join();
-            // copy segment primes into all primes where the output of one segment's length is the start input of another
-            System.arraycopy(segmentPrimes, 0, allPrimes, count, segmentPrimes.length);
-            count += segmentPrimes.length;
-        }
+    private BitSet sieveSegmentBitset(int[] smallPrimes, long segmentStart, long segEnd) {
+        // create BitSet for current segment
+        BitSet segment = new BitSet((int) (segEnd - segmentStart + 1));
+        // set all bits to true in the BitSet
+        segment.set(0, (int) (segEnd - segmentStart + 1));
 
-        return Arrays.copyOf(allPrimes, count);
+        // iterate through small prime numbers to mark their multiples as non-prime in a segment
+        for (int p : smallPrimes) {
+            // the small primes are sorted, no larger one has a square in the segment
+            if ((long) p * p > segEnd) {
+                break;
+            }
+            // find first multiple of p in the segment
+            long startMultiple = Math.max((long) p * p, ((segmentStart + p - 1) / p) * p);
+
+            // mark all multiples of p in the segment as non-prime numbers
+            for (long j = startMultiple; j <= segEnd; j += p) {
+                // clear the bit
+                segment.clear((int) (j - segmentStart));
+            }
+        }
+        return segment;
     }
 
     @Override
-    public long[] getPrimeNumbersUsingSegmentedSieveBitset(long startAt, long limit) {
-        // ensure min start is 2
-        startAt = Math.max(startAt, 2);
-        // set segment size
+    public long countPrimeNumbersUsingSegmentedSieveBitset(long startAt, long limit) {
+        long start = Math.max(startAt, 2);
         int segmentSize = 500_000_000;
 
-        // find small primes up to sqrt(limit) using a regular sieve
-        int sqrtLimit = (int) Math.sqrt(limit);
-        boolean[] isSmallPrime = sieve(sqrtLimit);
+        int sqrtLimit = getSqrtLimit(limit);
+        int[] smallPrimes = BasePrimes.getPrimes(sqrtLimit);
 
-        // collect small prime numbers up to sqrt(limit) to be used to mark non-prime numbers in the segments
-        int smallPrimeCount = 0;
-        for (boolean b : isSmallPrime) {
-            if (b) {
-                smallPrimeCount++;
+        long count = 0;
+        for (int p : smallPrimes) {
+            if (p > sqrtLimit) {
+                break;
             }
-        }
-        int[] smallPrimes = new int[smallPrimeCount];
-        int index = 0;
-        for (int i = 2; i <= sqrtLimit; i++) {
-            if (isSmallPrime[i]) {
-                smallPrimes[index++] = i;
+            if (p >= start) {
+                count++;
             }
         }
 
-        // estimate total number of primes using prime number theorem
-        int estimatedSize = getArrSizeUsingPrimeNumberTheorem(limit);
-        long[] allPrimes = new long[estimatedSize];
-        int count = 0;
+        for (long segmentStart = Math.max(start, (long) sqrtLimit + 1); segmentStart <= limit; segmentStart += segmentSize) {
+            long segEnd = Math.min(segmentStart + segmentSize - 1, limit);
+            count += sieveSegmentBitset(smallPrimes, segmentStart, segEnd).cardinality();
+        }
+        return count;
+    }
 
-        // add small primes >= startAt to result
-        for (int p : smallPrimes) {
-            if (p >= startAt) {
-                allPrimes[count++] = p;
-            }
+    // integer square root, Math.sqrt alone can round up for limits close to a perfect square. the base primes are
+    // ints, so limits from 2^62 up, whose square root is past Integer.MAX_VALUE, are rejected rather than sieved
+    // without all of them
+    private int getSqrtLimit(long limit) {
+        if (limit >= 1L << 62) {
+            throw new IllegalArgumentException(Constant.LIMIT_TOO_LARGE_MESSAGE);
+        }
+        long sqrtLimit = (long) Math.sqrt(limit);
+        while (sqrtLimit * sqrtLimit > limit) {
+            sqrtLimit--;
+        }
+        while ((sqrtLimit + 1) * (sqrtLimit + 1) <= limit) {
+            sqrtLimit++;
         }
+        return (int) sqrtLimit;
+    }
 
-        // small primes <= sqrt(limit) already handled, so skip
-        long segmentStart = Math.max(startAt, (long) sqrtLimit + 1);
+    // bit-packed sieve over a mod 30 wheel with cache sized segments, see SegmentedWheelSieve
+    @Override
+    public PrimeSequence getPrimeNumbersUsingConcurrentSegmentedSieveWheel(ExecutorService executorService,
+                                                                      long startAt,
+                                                                      long limit) {
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        return segmentedWheelSieve.getPrimeNumbers(executorService, smallPrimes, startAt, limit);
+    }
 
-        while (segmentStart <= limit) {
-            // define the end of the current segment
-            long segEnd = Math.min(segmentStart + segmentSize - 1, limit);
+    // segmented, bit-packed sieve of atkin on the same wheel layout, see SegmentedSieveOfAtkin
+    @Override
+    public PrimeSequence getPrimeNumbersUsingSieveOfAtkin(ExecutorService executorService, long startAt, long limit) {
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        return segmentedSieveOfAtkin.getPrimeNumbers(executorService, smallPrimes, startAt, limit);
+    }
 
-            // create BitSet for current segment
-            BitSet segment = new BitSet((int) (segEnd - segmentStart + 1));
-            // set all bits to true in the BitSet
-            segment.set(0, (int) (segEnd - segmentStart + 1));
+    // the segments are sieved on the calling thread, each one is handed to the consumer before the next is sieved
+    @Override
+    public long streamPrimeNumbersUsingSegmentedSieveWheel(long startAt,
+                                                           long limit,
+                                                           AbstractSegmentedWheelSieve.SegmentConsumer consumer)
+            throws IOException {
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        return segmentedWheelSieve.streamPrimeNumbers(smallPrimes, startAt, limit, consumer);
+    }
 
-            // iterate through small prime numbers to mark their multiples as non-prime in a segment
-            for (int p : smallPrimes) {
-                // find first multiple of p in the segment
-                long startMultiple = Math.max((long) p * p, ((segmentStart + p - 1) / p) * p);
+    @Override
+    public long streamPrimeNumbersUsingSieveOfAtkin(long startAt,
+                                                    long limit,
+                                                    AbstractSegmentedWheelSieve.SegmentConsumer consumer)
+            throws IOException {
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        return segmentedSieveOfAtkin.streamPrimeNumbers(smallPrimes, startAt, limit, consumer);
+    }
+
+    // the segment words of the wheel sieve as they are, one byte for every 30 numbers
+    @Override
+    public AbstractSegmentedWheelSieve.Bitmap getBitmapUsingSegmentedSieveWheel(ExecutorService executorService,
+                                                                                long startAt,
+                                                                                long limit) {
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        return segmentedWheelSieve.getBitmap(executorService, smallPrimes, startAt, limit);
+    }
+
+    @Override
+    public AbstractSegmentedWheelSieve.Bitmap getBitmapUsingSieveOfAtkin(ExecutorService executorService,
+                                                                         long startAt,
+                                                                         long limit) {
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        return segmentedSieveOfAtkin.getBitmap(executorService, smallPrimes, startAt, limit);
+    }
+
+    @Override
+    public long countPrimeNumbersUsingConcurrentSegmentedSieveWheel(ExecutorService executorService,
+                                                                    long startAt,
+                                                                    long limit) {
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        return segmentedWheelSieve.countPrimeNumbers(executorService, smallPrimes, startAt, limit);
+    }
+
+    @Override
+    public long countPrimeNumbersUsingSieveOfAtkin(ExecutorService executorService, long startAt, long limit) {
+        int[] smallPrimes = BasePrimes.getPrimes(getSqrtLimit(limit));
+        return segmentedSieveOfAtkin.countPrimeNumbers(executorService, smallPrimes, startAt, limit);
+    }
+
+    // counts without materialising the primes, see LagariasMillerOdlyzko
+    @Override
+    public long countPrimeNumbersUsingLagariasMillerOdlyzko(ExecutorService executorService, long limit) {
+        return lagariasMillerOdlyzko.countPrimeNumbers(executorService, limit);
+    }
+
+    // p_n is found by counting pi(x) at an estimate of p_n, then sieving only the windows between the estimate and p_n
+    @Override
+    public long getNthPrimeNumber(ExecutorService executorService, long n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n can't be less than 1");
+        }
+
+        long estimate = getNthPrimeEstimate(n);
+        long count = lagariasMillerOdlyzko.countPrimeNumbers(executorService, estimate);
 
-                // mark all multiples of p in the segment as non-prime numbers
-                for (long j = startMultiple; j <= segEnd; j += p) {
-                    // clear the bit
-                    segment.clear((int) (j - segmentStart));
+        // primes are about ln(x) apart, so the distance to p_n is about |n - count| * ln(x)
+        double gap = (Math.abs(n - count) + 1) * Math.log(estimate) * 1.1;
+        long window = Math.min(Math.max((long) gap, MIN_NTH_PRIME_WINDOW), MAX_NTH_PRIME_WINDOW);
+
+        if (count < n) {
+            // p_n is above the estimate
+            for (long low = estimate + 1; ; low += window) {
+                PrimeSequence primes = getPrimeNumbersInWindow(executorService, low, low + window - 1);
+                if (count + primes.length() >= n) {
+                    return primes.get(n - count - 1);
                 }
+                count += primes.length();
             }
+        }
+
+        // p_n is at or below the estimate, with count - n primes in (p_n, estimate]
+        long above = count - n;
+        for (long high = estimate; ; high -= window) {
+            PrimeSequence primes = getPrimeNumbersInWindow(executorService, Math.max(high - window + 1, 2), high);
+            if (primes.length() > above) {
+                return primes.get(primes.length() - 1 - above);
+            }
+            above -= primes.length();
+        }
+    }
 
-            // count num of primes in segment
-            int segCount = segment.cardinality();
+    // cipolla's asymptotic expansion, p_n = n * (ln n + ln ln n - 1 + (ln ln n - 2) / ln n
+    // - ((ln ln n)^2 - 6 ln ln n + 11) / (2 (ln n)^2) + ...), within a few parts per million for large n
+    private long getNthPrimeEstimate(long n) {
+        // the expansion isn't meaningful for tiny n, 13 is past the 5th prime
+        if (n < 6) {
+            return 13;
+        }
+        double ln = Math.log(n);
+        double lnln = Math.log(ln);
+        double estimate = n * (ln + lnln - 1
+                + (lnln - 2) / ln
+                - (lnln * lnln - 6 * lnln + 11) / (2 * ln * ln));
+        return Math.max((long) estimate, 13);
+    }
 
-            long[] primesInSegment = new long[segCount];
-            int k = 0;
-            // loop through and set primes
-            for (int i = segment.nextSetBit(0); i >= 0; i = segment.nextSetBit(i + 1)) {
-                primesInSegment[k++] = segmentStart + i;
+    private PrimeSequence getPrimeNumbersInWindow(ExecutorService executorService, long low, long high) {
+        return segmentedWheelSieve.getPrimeNumbers(
+                executorService,
+                BasePrimes.getPrimes(getSqrtLimit(high)),
+                low,
+                high);
+    }
+
+    @Override
+    public boolean isPrimeUsingMillerRabin(long number) {
+        return MillerRabin.isPrime(number);
+    }
+
+    @Override
+    public boolean[] isPrimeUsingMillerRabin(ExecutorService executorService, long[] numbers) {
+        boolean[] results = new boolean[numbers.length];
+
+        if (numbers.length <= MILLER_RABIN_BATCH_SIZE) {
+            for (int i = 0; i < numbers.length; i++) {
+                results[i] = MillerRabin.isPrime(numbers[i]);
             }
+            return results;
+        }
 
-            System.arraycopy(primesInSegment, 0, allPrimes, count, primesInSegment.length);
-            count += primesInSegment.length;
-            segmentStart += segmentSize;
+        // every task writes its own slice of results, so no synchronisation is needed beyond joining
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int batchStart = 0; batchStart < numbers.length; batchStart += MILLER_RABIN_BATCH_SIZE) {
+            int from = batchStart;
+            int to = Math.min(batchStart + MILLER_RABIN_BATCH_SIZE, numbers.length);
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    results[i] = MillerRabin.isPrime(numbers[i]);
+                }
+            }, executorService));
         }
-        return Arrays.copyOf(allPrimes, count);
+        futures.forEach(CompletableFuture::join);
+
+        return results;
     }
-}
\ No newline at end of file
+}
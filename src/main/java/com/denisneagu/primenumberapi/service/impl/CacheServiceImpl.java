@@ -1,90 +1,300 @@
 package com.denisneagu.primenumberapi.service.impl;
 
+import com.denisneagu.primenumberapi.dto.CacheStatisticsResponse;
 import com.denisneagu.primenumberapi.exception.MemoryConstraintException;
 import com.denisneagu.primenumberapi.service.CacheService;
+import com.denisneagu.primenumberapi.util.CompressedPrimeSequence;
+import com.denisneagu.primenumberapi.util.HeapPressureMonitor;
 import com.denisneagu.primenumberapi.util.Util;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+// a single prefix of every prime in [2, limit] that only ever grows. any limit it covers is answered by a lower bound
+// on its checkpoints and a head view sharing its bytes, so the cache holds the primes up to the largest limit once
+// however many distinct limits are requested. the old generation is watched, when its live data crosses the high
+// watermark the prefix is shrunk by the overshoot, and a new prefix only grows into the headroom left below it.
+//
+// a second tier holds encoded response bodies, so a hot range is written as it is instead of being encoded again on
+// every request. they share the budget with the prefix, but they're rebuilt from it cheaply, so they're evicted least
+// recently used first whenever the prefix needs the room or the heap is under pressure
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class CacheServiceImpl implements CacheService {
-    private final AtomicLong cacheSize = new AtomicLong(0);
-    private final Map<Long, long[]> cacheLimitToPrimeNumbers = new ConcurrentHashMap<>();
+    private final AtomicReference<Map.Entry<Long, CompressedPrimeSequence>> cachedPrefix = new AtomicReference<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+    // in access order, guarded by itself
+    private final Map<EncodedBodyKey, EncodedBody> encodedBodies = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong encodedBodiesSize = new AtomicLong();
+    // null when heap pressure isn't watched, the cache is then only bound by the safe memory
+    private final HeapPressureMonitor heapPressureMonitor;
 
-    private long getNewCacheTotal(long newCacheToAdd) {
-        return cacheSize.get() + newCacheToAdd;
+    public CacheServiceImpl() {
+        this(0);
+    }
+
+    @Autowired
+    public CacheServiceImpl(@Value("${primenumberapi.cache.heap-high-watermark:0.8}") double heapHighWatermark) {
+        this.heapPressureMonitor = openHeapPressureMonitor(heapHighWatermark);
+    }
+
+    private HeapPressureMonitor openHeapPressureMonitor(double heapHighWatermark) {
+        if (heapHighWatermark <= 0) {
+            log.info("Heap pressure monitoring is disabled");
+            return null;
+        }
+
+        HeapPressureMonitor monitor = new HeapPressureMonitor(heapHighWatermark, this::relieveHeapPressure);
+        if (!monitor.isMonitoring()) {
+            log.info("Heap pressure monitoring is disabled, no heap pool supports collection usage thresholds");
+            monitor.close();
+            return null;
+        }
+        return monitor;
+    }
+
+    private void relieveHeapPressure(long overshootBytes) {
+        long existingCache = getExistingCache();
+        log.warn("Old generation is {} above its high watermark, shrinking the cache of {}",
+                Util.formatSizeInMbAndMiB(overshootBytes),
+                Util.formatSizeInMbAndMiB(existingCache));
+        shrinkCache(existingCache - overshootBytes);
+    }
+
+    // the new prefix replaces the cached one and evicts the encoded bodies, so it may take the size of both plus the
+    // heap headroom
+    private long getMaxCacheSize() {
+        long maxSafeMemory = Util.getMaxSafeMemory();
+        if (heapPressureMonitor == null) {
+            return maxSafeMemory;
+        }
+        long headroom = heapPressureMonitor.getHeadroom();
+        return Math.min(maxSafeMemory, getExistingCache() + Math.min(headroom, maxSafeMemory));
     }
 
     @Override
-    public boolean isCachingSafe(long[] primesToCache) {
-        long newPrimesSize = primesToCache.length * 8L;
+    public boolean isCachingSafe(CompressedPrimeSequence primesToCache) {
+        // the gap encoded size, about a byte per prime instead of the 8 of a long[]. the new prefix replaces the
+        // cached one, so only its own size counts
+        long newPrimesSize = primesToCache.getSizeInBytes();
 
         // fail safely
         // on false indicates to not store to cache, but on calculating the PRT we'll throw an error if the PRT size
         // is larger than the memory we're willing to allocate safely
         try {
-            Util.checkMemorySafety(getNewCacheTotal(newPrimesSize));
-            return true;
+            Util.checkMemorySafety(newPrimesSize);
         } catch (MemoryConstraintException ex) {
             log.error("Caching is not safe: {}", ex.getMessage());
             return false;
         }
-    }
 
-    @Override
-    public Map.Entry<Long, long[]> getHighestCachedPrimeNumbersEntry() {
-        if (cacheLimitToPrimeNumbers.isEmpty()) {
-            return null;
+        long maxCacheSize = getMaxCacheSize();
+        if (newPrimesSize > maxCacheSize) {
+            log.error("Caching is not safe: {} exceeds the {} the heap has room for",
+                    Util.formatSizeInMbAndMiB(newPrimesSize),
+                    Util.formatSizeInMbAndMiB(maxCacheSize));
+            return false;
         }
+        return true;
+    }
 
-        // find the highest key
-        Long highestLimit = Collections.max(cacheLimitToPrimeNumbers.keySet());
-
-        // return the entry
-        return Map.entry(highestLimit, cacheLimitToPrimeNumbers.get(highestLimit));
+    @Override
+    public Map.Entry<Long, CompressedPrimeSequence> getHighestCachedPrimeNumbersEntry() {
+        return cachedPrefix.get();
     }
 
+    // the primes in [2, limit], null when the prefix doesn't reach the limit
     @Override
-    public long[] getCachedPrimeNumbers(long limit) {
-        return cacheLimitToPrimeNumbers.get(limit);
+    public CompressedPrimeSequence getCachedPrimeNumbers(long limit) {
+        Map.Entry<Long, CompressedPrimeSequence> prefix = cachedPrefix.get();
+        if (prefix == null || limit > prefix.getKey()) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        CompressedPrimeSequence primes = prefix.getValue();
+        return primes.head(primes.lowerBound(limit + 1));
     }
 
     @Override
-    public void addPrimeNumbersToCache(long limit, long[] primeNumbers) {
-        long newPrimeNumbersSize = primeNumbers.length * 8L;
+    public void addPrimeNumbersToCache(long limit, CompressedPrimeSequence primeNumbers) {
+        long maxCacheSize = getMaxCacheSize();
+        long newPrimeNumbersSize = primeNumbers.getSizeInBytes();
         log.info("Maximum safe cache size: {}", Util.formatSizeInMbAndMiB(Util.getMaxSafeMemory()));
         log.info("New primes will add {} bytes to our caching. That is: {}",
                 newPrimeNumbersSize,
                 Util.formatSizeInMbAndMiB(newPrimeNumbersSize));
 
-        if (isCachingSafe(primeNumbers)) {
-            cacheLimitToPrimeNumbers.put(limit, primeNumbers);
-            cacheSize.set(getNewCacheTotal(newPrimeNumbersSize));
+        Map.Entry<Long, CompressedPrimeSequence> newPrefix = Map.entry(limit, primeNumbers);
+        boolean trimmed = !isCachingSafe(primeNumbers);
+        if (trimmed) {
+            // every request below the limit reads the low primes, so only the tail that doesn't fit is evicted and
+            // the cache stays warm instead of being cleared
+            newPrefix = getLongestHead(primeNumbers, getMaxCacheSize());
+            if (newPrefix == null) {
+                return;
+            }
+        }
+
+        // the prefix only grows, a concurrent request may already have cached a longer one
+        Map.Entry<Long, CompressedPrimeSequence> cached = cachedPrefix.accumulateAndGet(newPrefix,
+                (current, candidate) -> current != null && current.getKey() >= candidate.getKey()
+                        ? current
+                        : candidate);
+        // a trimmed tail only counts as evicted when the head actually replaced the prefix
+        if (trimmed && cached == newPrefix) {
+            evictions.incrementAndGet();
+            evictedBytes.addAndGet(newPrimeNumbersSize - newPrefix.getValue().getSizeInBytes());
+            log.info("Cache trimmed to limit: {}", newPrefix.getKey());
+        }
+        // the encoded bodies make room for the prefix
+        evictEncodedBodies(maxCacheSize - getPrefixSize());
+    }
+
+    @Override
+    public EncodedBody getEncodedBody(EncodedBodyKey key) {
+        synchronized (encodedBodies) {
+            return encodedBodies.get(key);
+        }
+    }
+
+    // a body may take everything but the prefix, older bodies are evicted for it
+    @Override
+    public boolean isEncodedBodyCachingSafe(long sizeInBytes) {
+        return sizeInBytes <= Integer.MAX_VALUE - 8 && sizeInBytes <= getMaxCacheSize() - getPrefixSize();
+    }
+
+    @Override
+    public void addEncodedBody(EncodedBodyKey key, EncodedBody body) {
+        long maxEncodedBodiesSize = getMaxCacheSize() - getPrefixSize();
+        if (body.bytes().length > maxEncodedBodiesSize) {
+            return;
+        }
+
+        synchronized (encodedBodies) {
+            if (encodedBodies.containsKey(key)) {
+                return;
+            }
+            evictEncodedBodies(maxEncodedBodiesSize - body.bytes().length);
+            encodedBodies.put(key, body);
+            encodedBodiesSize.addAndGet(body.bytes().length);
+        }
+    }
+
+    // least recently used first, until the bodies take at most maxSizeInBytes
+    private void evictEncodedBodies(long maxSizeInBytes) {
+        synchronized (encodedBodies) {
+            Iterator<EncodedBody> iterator = encodedBodies.values().iterator();
+            while (encodedBodiesSize.get() > maxSizeInBytes && iterator.hasNext()) {
+                long size = iterator.next().bytes().length;
+                iterator.remove();
+                encodedBodiesSize.addAndGet(-size);
+                evictions.incrementAndGet();
+                evictedBytes.addAndGet(size);
+            }
+        }
+    }
+
+    // the size of a head grows with its length, so the longest one within maxSizeInBytes is found by bisection. the
+    // head holds every prime up to its last one, which becomes its limit. null when not a single prime fits
+    private Map.Entry<Long, CompressedPrimeSequence> getLongestHead(CompressedPrimeSequence primes,
+                                                                    long maxSizeInBytes) {
+        int low = 0;
+        int high = primes.size();
+        while (low < high) {
+            int mid = (int) (((long) low + high + 1) >>> 1);
+            if (primes.head(mid).getSizeInBytes() <= maxSizeInBytes) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        if (low == 0) {
+            return null;
+        }
+        // a view would keep the whole sequence reachable
+        CompressedPrimeSequence head = primes.head(low).compact();
+        return Map.entry(head.last(), head);
+    }
+
+    // the encoded bodies go first, the prefix is only shrunk once they're all gone. a prefix that changed meanwhile is
+    // left alone, a later notification shrinks it if the pressure remains
+    @Override
+    public void shrinkCache(long maxSizeInBytes) {
+        evictEncodedBodies(maxSizeInBytes - getPrefixSize());
+
+        long maxPrefixSize = maxSizeInBytes - encodedBodiesSize.get();
+        Map.Entry<Long, CompressedPrimeSequence> prefix = cachedPrefix.get();
+        if (prefix == null || prefix.getValue().getSizeInBytes() <= maxPrefixSize) {
+            return;
+        }
+
+        Map.Entry<Long, CompressedPrimeSequence> head = getLongestHead(prefix.getValue(), maxPrefixSize);
+        if (cachedPrefix.compareAndSet(prefix, head)) {
+            evictions.incrementAndGet();
+            evictedBytes.addAndGet(prefix.getValue().getSizeInBytes()
+                    - (head == null ? 0 : head.getValue().getSizeInBytes()));
+            log.info("Cache shrunk to limit: {}", head == null ? 0 : head.getKey());
         }
     }
 
     @Override
     public void clearCache() {
         log.info("Clearing cache ...");
-        cacheSize.set(0);
-        cacheLimitToPrimeNumbers.clear();
+        cachedPrefix.set(null);
+        synchronized (encodedBodies) {
+            encodedBodies.clear();
+            encodedBodiesSize.set(0);
+        }
     }
 
     @Override
     public long getExistingCache() {
-        return cacheSize.get();
+        return getPrefixSize() + encodedBodiesSize.get();
+    }
+
+    private long getPrefixSize() {
+        Map.Entry<Long, CompressedPrimeSequence> prefix = cachedPrefix.get();
+        return prefix == null ? 0 : prefix.getValue().getSizeInBytes();
     }
 
     @Override
-    public Map<Long, long[]> getAllCachedLimitToPrimeNumbers() {
-        return cacheLimitToPrimeNumbers;
+    public CacheStatisticsResponse getCacheStatistics() {
+        Map.Entry<Long, CompressedPrimeSequence> prefix = cachedPrefix.get();
+        return new CacheStatisticsResponse(
+                prefix == null ? 0 : prefix.getKey(),
+                prefix == null ? 0 : prefix.getValue().getSizeInBytes(),
+                hits.get(),
+                misses.get(),
+                evictions.get(),
+                evictedBytes.get(),
+                getEncodedBodiesCount(),
+                encodedBodiesSize.get());
+    }
+
+    private int getEncodedBodiesCount() {
+        synchronized (encodedBodies) {
+            return encodedBodies.size();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (heapPressureMonitor != null) {
+            heapPressureMonitor.close();
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,47 @@
 package com.denisneagu.primenumberapi.service.impl;
 
+import com.denisneagu.primenumberapi.dto.BinaryPrimeNumberResponse;
+import com.denisneagu.primenumberapi.dto.CacheStatisticsResponse;
+import com.denisneagu.primenumberapi.dto.NthPrimeResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityBatchResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityResponse;
+import com.denisneagu.primenumberapi.dto.PrimeBitmapResponse;
+import com.denisneagu.primenumberapi.dto.PrimeCountResponse;
 import com.denisneagu.primenumberapi.dto.PrimeNumberExecutionResponse;
 import com.denisneagu.primenumberapi.dto.PrimeNumberResponse;
 import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
+import com.denisneagu.primenumberapi.enums.PrimeStreamFormat;
 import com.denisneagu.primenumberapi.exception.IllegalLimitStateToAlgorithmException;
 import com.denisneagu.primenumberapi.exception.UnknownAlgorithmException;
+import com.denisneagu.primenumberapi.service.AlgorithmSelectionService;
 import com.denisneagu.primenumberapi.service.AlgorithmService;
 import com.denisneagu.primenumberapi.service.CacheService;
 import com.denisneagu.primenumberapi.service.PrimeNumberService;
+import com.denisneagu.primenumberapi.service.PrimeStoreService;
+import com.denisneagu.primenumberapi.util.AbstractSegmentedWheelSieve;
+import com.denisneagu.primenumberapi.util.CompressedPrimeSequence;
+import com.denisneagu.primenumberapi.util.PrimeBinaryWriter;
 import com.denisneagu.primenumberapi.util.Constant;
 import com.denisneagu.primenumberapi.util.ExecutorServiceProvider;
+import com.denisneagu.primenumberapi.util.PrimeCsvStreamWriter;
+import com.denisneagu.primenumberapi.util.PrimeJsonStreamWriter;
+import com.denisneagu.primenumberapi.util.PrimeNdjsonStreamWriter;
+import com.denisneagu.primenumberapi.util.PrimeStreamWriter;
+import com.denisneagu.primenumberapi.util.PrimeSequence;
 import com.denisneagu.primenumberapi.util.PrimeNumberExecution;
+import com.denisneagu.primenumberapi.util.SingleFlight;
 import com.denisneagu.primenumberapi.util.Util;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -26,9 +52,18 @@ public class PrimeNumberServiceImpl implements PrimeNumberService {
     private final CacheService cacheService;
     private final AlgorithmService algorithmService;
     private final ExecutorServiceProvider executorServiceProvider;
-    private final long[] EMPTY_PRIMES_ARRAY = new long[0];
+    private final AlgorithmSelectionService algorithmSelectionService;
+    private final PrimeStoreService primeStoreService;
+    // identical requests in flight at the same time share a single computation, listings and counts are kept apart
+    // as they run different engine paths
+    private final SingleFlight<Computation, PrimeSequence> primeNumberComputations = new SingleFlight<>();
+    private final SingleFlight<Computation, Long> countComputations = new SingleFlight<>();
+    private final SingleFlight<Computation, CompressedPrimeSequence> prefixComputations = new SingleFlight<>();
 
-    private long[] getPrimeNumbersAtAlgorithm(long startAt, long limit, Algorithm algorithm) {
+    private record Computation(long from, long limit, Algorithm algorithm) {
+    }
+
+    private PrimeSequence getPrimeNumbersAtAlgorithm(long startAt, long limit, Algorithm algorithm) {
         if (algorithm == null) {
             throw new UnknownAlgorithmException(Constant.UNKNOWN_ALGORITHM);
         }
@@ -47,130 +82,581 @@ public class PrimeNumberServiceImpl implements PrimeNumberService {
                         limit);
             case SEGMENTED_SIEVE_BITSET:
                 return algorithmService.getPrimeNumbersUsingSegmentedSieveBitset(startAt, limit);
+            case CONCURRENT_SEGMENTED_SIEVE_WHEEL:
+                return algorithmService.getPrimeNumbersUsingConcurrentSegmentedSieveWheel(
+                        executorServiceProvider.getExecutorService(),
+                        startAt,
+                        limit);
+            case SIEVE_OF_ATKIN:
+                return algorithmService.getPrimeNumbersUsingSieveOfAtkin(
+                        executorServiceProvider.getExecutorService(),
+                        startAt,
+                        limit);
+            default:
+                throw new UnknownAlgorithmException(Constant.UNKNOWN_ALGORITHM);
+        }
+    }
+
+    private long countPrimeNumbersAtAlgorithm(long startAt, long limit, Algorithm algorithm) {
+        if (algorithm == null) {
+            throw new UnknownAlgorithmException(Constant.UNKNOWN_ALGORITHM);
+        }
+
+        switch (algorithm) {
+            case NAIVE_TRIAL_DIVISION:
+                return algorithmService.countPrimeNumbersUsingNaiveTrialDivision(startAt, limit);
+            case NAIVE_TRIAL_DIVISION_OPTIMISED:
+                return algorithmService.countPrimeNumbersUsingNaiveTrialDivisionOptimised(startAt, limit);
+            case SIEVE_OF_ERATOSTHENES:
+                return algorithmService.countPrimeNumbersUsingSieveOfEratosthenes(startAt, limit);
+            case CONCURRENT_SEGMENTED_SIEVE:
+                return algorithmService.countPrimeNumbersUsingConcurrentSegmentedSieve(
+                        executorServiceProvider.getExecutorService(),
+                        startAt,
+                        limit);
+            case SEGMENTED_SIEVE_BITSET:
+                return algorithmService.countPrimeNumbersUsingSegmentedSieveBitset(startAt, limit);
+            case CONCURRENT_SEGMENTED_SIEVE_WHEEL:
+                return algorithmService.countPrimeNumbersUsingConcurrentSegmentedSieveWheel(
+                        executorServiceProvider.getExecutorService(),
+                        startAt,
+                        limit);
+            case SIEVE_OF_ATKIN:
+                return algorithmService.countPrimeNumbersUsingSieveOfAtkin(
+                        executorServiceProvider.getExecutorService(),
+                        startAt,
+                        limit);
             default:
                 throw new UnknownAlgorithmException(Constant.UNKNOWN_ALGORITHM);
         }
     }
 
-    private PrimeNumberExecutionResponse<long[]> computePrimeNumbers(long startAt, long limit, Algorithm algorithm) {
+    // only the wheel engines sieve segment by segment on the calling thread, the others build the whole result
+    private long streamPrimeNumbersAtAlgorithm(long startAt,
+                                               long limit,
+                                               Algorithm algorithm,
+                                               AbstractSegmentedWheelSieve.SegmentConsumer consumer)
+            throws IOException {
+        return switch (algorithm) {
+            case CONCURRENT_SEGMENTED_SIEVE_WHEEL ->
+                    algorithmService.streamPrimeNumbersUsingSegmentedSieveWheel(startAt, limit, consumer);
+            case SIEVE_OF_ATKIN -> algorithmService.streamPrimeNumbersUsingSieveOfAtkin(startAt, limit, consumer);
+            default -> throw new IllegalArgumentException(String.format(Constant.ALGORITHM_CANT_STREAM_MESSAGE, algorithm));
+        };
+    }
+
+    private PrimeStreamWriter createStreamWriter(PrimeStreamFormat format,
+                                                 OutputStream outputStream,
+                                                 Algorithm algorithm) throws IOException {
+        return switch (format) {
+            case JSON -> new PrimeJsonStreamWriter(outputStream, algorithm);
+            case NDJSON -> new PrimeNdjsonStreamWriter(outputStream, algorithm);
+            case CSV -> new PrimeCsvStreamWriter(outputStream, algorithm);
+        };
+    }
+
+    // a sequence is only read once it's filled, so every caller of a shared computation gets the same one
+    private PrimeNumberExecutionResponse<PrimeSequence> computePrimeNumbers(long startAt, long limit, Algorithm algorithm) {
         return PrimeNumberExecution.getPrimeNumberWithExecutionTime(
-                () -> getPrimeNumbersAtAlgorithm(startAt, limit, algorithm));
+                () -> primeNumberComputations.execute(
+                        new Computation(startAt, limit, algorithm),
+                        () -> getPrimeNumbersAtAlgorithm(startAt, limit, algorithm)));
     }
 
-    // we only want to allow sieve of eratosthenes usage up to Integer max limit - 1
-    private void checkInputSize(long limit, Algorithm algorithm) {
-        if ((algorithm == Algorithm.SIEVE_OF_ERATOSTHENES) && (limit >= Integer.MAX_VALUE)) {
+    // we only want to allow sieve of eratosthenes usage up to Integer max limit - 1, a range starting above 2 only
+    // sieves its window so there the window has to fit instead. primes are paged so any count fits, but a listing
+    // or a cached prefix is only computed when an upper bound of its size, together with the sieve the engine still
+    // holds while the result is written, fits in the safe memory
+    private void checkInputSize(long from, long limit, boolean listPrimes, Algorithm algorithm) {
+        if (from > limit) {
+            throw new IllegalArgumentException(Constant.FROM_GREATER_THAN_LIMIT_MESSAGE);
+        }
+
+        long sieveSize = from <= 2 ? limit : limit - from + 1;
+        if ((algorithm == Algorithm.SIEVE_OF_ERATOSTHENES) && (sieveSize >= Integer.MAX_VALUE)) {
             throw new IllegalLimitStateToAlgorithmException(String.format(
                     Constant.ILLEGAL_LIMIT_STATE_TO_ALGORITHM_MESSAGE, algorithm));
         }
+
+        if (listPrimes) {
+            Util.checkMemorySafety(PrimeSequence.getMaxSizeInBytes(from, limit)
+                    + getListingSieveSizeInBytes(from, limit, algorithm));
+        }
+    }
+
+    // the wheel engines keep the sieved words of the whole range, a byte per 30 numbers, and the fork/join sieve keeps
+    // a bit per number, until the popcounts have sized the result
+    private static long getListingSieveSizeInBytes(long from, long limit, Algorithm algorithm) {
+        // an unknown algorithm is rejected once it's run
+        if (algorithm == null) {
+            return 0;
+        }
+
+        long rangeSize = Math.max(limit - Math.max(from, 2) + 1, 0);
+        return switch (algorithm) {
+            case CONCURRENT_SEGMENTED_SIEVE_WHEEL, SIEVE_OF_ATKIN -> rangeSize / AbstractSegmentedWheelSieve.WHEEL + 1;
+            case CONCURRENT_SEGMENTED_SIEVE -> rangeSize / Byte.SIZE + 1;
+            default -> 0;
+        };
     }
 
     @Override
-    public PrimeNumberResponse getPrimeNumbers(long limit, boolean showPrimes, Algorithm algorithm, boolean cache) {
-        checkInputSize(limit, algorithm);
-        if (cache) {
+    public PrimeNumberResponse getPrimeNumbers(long from,
+                                               long limit,
+                                               boolean showPrimes,
+                                               Algorithm requestedAlgorithm,
+                                               boolean cache) {
+        // AUTO is resolved up front, so the response reports the engine that actually ran
+        Algorithm algorithm = requestedAlgorithm == Algorithm.AUTO
+                ? algorithmSelectionService.selectAlgorithm(from, limit, showPrimes)
+                : requestedAlgorithm;
+        checkInputSize(from, limit, showPrimes || cache, algorithm);
+        if (cache && from <= 2) {
             return getPrimeNumbersWithCache(limit, showPrimes, algorithm);
+        } else if (cache) {
+            return getPrimeNumbersInRangeWithCache(from, limit, showPrimes, algorithm);
+        } else if (!showPrimes) {
+            // only the count is returned, so the engines popcount their segments instead of building a prime array
+            PrimeNumberExecutionResponse<Long> executionResponse = PrimeNumberExecution.getPrimeNumberWithExecutionTime(
+                    () -> countComputations.execute(
+                            new Computation(from, limit, algorithm),
+                            () -> countPrimeNumbersAtAlgorithm(from, limit, algorithm)));
+
+            return new PrimeNumberResponse(
+                    algorithm,
+                    false,
+                    executionResponse.execDurationTimeInNs(),
+                    executionResponse.execDurationTimeInMs(),
+                    executionResponse.response(),
+                    PrimeSequence.EMPTY
+            );
         } else {
-            PrimeNumberExecutionResponse<long[]> executionResponse = computePrimeNumbers(2, limit, algorithm);
+            PrimeNumberExecutionResponse<PrimeSequence> executionResponse = computePrimeNumbers(from, limit, algorithm);
 
             return new PrimeNumberResponse(
                     algorithm,
                     false,
                     executionResponse.execDurationTimeInNs(),
                     executionResponse.execDurationTimeInMs(),
-                    executionResponse.response().length,
+                    executionResponse.response().length(),
                     showPrimes
                             ? executionResponse.response()
-                            : EMPTY_PRIMES_ARRAY
+                            : PrimeSequence.EMPTY
             );
         }
     }
 
+    // the cache only holds prefixes [2, key], so a range is sliced out of a prefix that covers it. a range that isn't
+    // covered is only sieved over its window and isn't cached, it would not be a valid prefix
+    private PrimeNumberResponse getPrimeNumbersInRangeWithCache(long from,
+                                                                long limit,
+                                                                boolean showPrimes,
+                                                                Algorithm algorithm) {
+        AtomicBoolean cache = new AtomicBoolean(true);
+
+        PrimeNumberExecutionResponse<PrimeSequence> executionResponse = PrimeNumberExecution
+                .getPrimeNumberWithExecutionTime(() -> {
+                    Map.Entry<Long, CompressedPrimeSequence> highestCacheEntry =
+                            cacheService.getHighestCachedPrimeNumbersEntry();
+
+                    if (highestCacheEntry != null && limit <= highestCacheEntry.getKey()) {
+                        log.info("Caching found covering range: [{}, {}]", from, limit);
+                        return getPrimeNumbersInRange(highestCacheEntry.getValue(), from, limit);
+                    }
+
+                    if (primeStoreService.isCovered(limit)) {
+                        log.info("Prime store found covering range: [{}, {}]", from, limit);
+                        return primeStoreService.getPrimeNumbers(from, limit);
+                    }
+
+                    log.info("Caching not found covering range: [{}, {}]. Computation processed without caching",
+                            from,
+                            limit);
+                    cache.set(false);
+                    return primeNumberComputations.execute(
+                            new Computation(from, limit, algorithm),
+                            () -> getPrimeNumbersAtAlgorithm(from, limit, algorithm));
+                });
+
+        return new PrimeNumberResponse(
+                algorithm,
+                cache.get(),
+                executionResponse.execDurationTimeInNs(),
+                executionResponse.execDurationTimeInMs(),
+                executionResponse.response().length(),
+                showPrimes
+                        ? executionResponse.response()
+                        : PrimeSequence.EMPTY
+        );
+    }
+
+    // primes are sorted, so [from, limit] is a contiguous slice found with two lower bounds on the checkpoints
+    private PrimeSequence getPrimeNumbersInRange(CompressedPrimeSequence primes, long from, long limit) {
+        int fromIndex = primes.lowerBound(from);
+        int toIndex = primes.lowerBound(limit + 1);
+        return primes.toArray(fromIndex, toIndex);
+    }
+
     private PrimeNumberResponse getPrimeNumbersWithCache(long limit, boolean showPrimes, Algorithm algorithm) {
         log.info("Existing Cache: {}", Util.formatSizeInMbAndMiB(cacheService.getExistingCache()));
 
-        AtomicBoolean cache = new AtomicBoolean(true);
-
-        PrimeNumberExecutionResponse<long[]> cachedExecutionResponse = PrimeNumberExecution
+        PrimeNumberExecutionResponse<CompressedPrimeSequence> cachedExecutionResponse = PrimeNumberExecution
                 .getPrimeNumberWithExecutionTime(
                         () -> cacheService.getCachedPrimeNumbers(limit));
 
         if (cachedExecutionResponse.response() != null) {
-            // cache exists and return cache
+            // the cached prefix covers the limit, the primes are only decoded when they're shown
             log.info("Caching found for limit: {}", limit);
             return new PrimeNumberResponse(
                     algorithm,
-                    cache.get(),
+                    true,
                     cachedExecutionResponse.execDurationTimeInNs(),
                     cachedExecutionResponse.execDurationTimeInMs(),
-                    cachedExecutionResponse.response().length,
+                    cachedExecutionResponse.response().size(),
                     showPrimes
-                            ? cachedExecutionResponse.response()
-                            : EMPTY_PRIMES_ARRAY);
+                            ? cachedExecutionResponse.response().toArray()
+                            : PrimeSequence.EMPTY);
         }
 
-        // no cached prime number at the specific limit provided
-        PrimeNumberExecutionResponse<long[]> totalExecutionResponse = PrimeNumberExecution
+        if (primeStoreService.isCovered(limit)) {
+            log.info("Prime store found covering limit: {}", limit);
+            return getPrimeNumbersFromStore(limit, showPrimes, algorithm);
+        }
+
+        // no cached prime number at the specific limit provided. a prefix in flight for a limit at or above this one
+        // holds every prime needed, so the request waits for it instead of sieving the same primes again
+        PrimeNumberExecutionResponse<CompressedPrimeSequence> totalExecutionResponse = PrimeNumberExecution
                 .getPrimeNumberWithExecutionTime(() -> {
-                    Map.Entry<Long, long[]> highestCacheEntry = cacheService.getHighestCachedPrimeNumbersEntry();
-
-                    long[] primesToCache;
-
-                    if (highestCacheEntry == null || limit < highestCacheEntry.getKey()) {
-                        PrimeNumberExecutionResponse<long[]> executionResponse = computePrimeNumbers(
-                                2,
-                                limit,
-                                algorithm);
-
-                        primesToCache = executionResponse.response();
-
-                        // cache for the first time
-                        if (cacheService.isCachingSafe(primesToCache)) {
-                            cacheService.addPrimeNumbersToCache(limit, primesToCache);
-                            cache.set(false);
-                        } else {
-                            cacheService.clearCache();
-                        }
-
-                        log.info("Caching not found for limit: {}. Computation processed without initial caching", limit);
-                    } else {
-                        long[] firstHalf = highestCacheEntry.getValue();
-
-                        // start at the existing highest limit
-                        PrimeNumberExecutionResponse<long[]> executionResponse = computePrimeNumbers(
-                                highestCacheEntry.getKey(),
-                                limit,
-                                algorithm);
-
-                        long[] secondHalf = executionResponse.response();
-
-                        primesToCache = new long[firstHalf.length + secondHalf.length];
-
-                        System.arraycopy(firstHalf, 0, primesToCache, 0, firstHalf.length);
-                        System.arraycopy(secondHalf, 0, primesToCache, firstHalf.length, secondHalf.length);
-
-                        // cache merge results
-                        if (cacheService.isCachingSafe(primesToCache)) {
-                            cacheService.addPrimeNumbersToCache(limit, primesToCache);
-                            cache.set(false);
-                        } else {
-                            cacheService.clearCache();
-                        }
-                        log.info("Merge computation was successful for limit: {}", limit);
+                    CompressedPrimeSequence coveringPrimes = prefixComputations.joinMatching(
+                            computation -> computation.algorithm() == algorithm && computation.limit() >= limit);
+                    if (coveringPrimes != null) {
+                        log.info("Joined computation in flight covering limit: {}", limit);
+                        return coveringPrimes.head(coveringPrimes.lowerBound(limit + 1));
                     }
 
-                    return primesToCache;
+                    return prefixComputations.execute(
+                            new Computation(2, limit, algorithm),
+                            () -> computePrefix(limit, algorithm));
                 });
 
         return new PrimeNumberResponse(
                 algorithm,
-                cache.get(),
+                false,
                 totalExecutionResponse.execDurationTimeInNs(),
                 totalExecutionResponse.execDurationTimeInMs(),
-                totalExecutionResponse.response().length,
+                totalExecutionResponse.response().size(),
                 showPrimes
-                        ? totalExecutionResponse.response()
-                        : EMPTY_PRIMES_ARRAY
+                        ? totalExecutionResponse.response().toArray()
+                        : PrimeSequence.EMPTY
         );
     }
-}
\ No newline at end of file
+
+    // only the primes past the longest prefix known are sieved. that is the cached prefix, or a longer one still in
+    // flight, which this request then extends on the disjoint tail while it runs instead of sieving its primes again
+    private CompressedPrimeSequence computePrefix(long limit, Algorithm algorithm) {
+        Map.Entry<Long, CompressedPrimeSequence> highestCacheEntry = cacheService.getHighestCachedPrimeNumbersEntry();
+        long cachedLimit = highestCacheEntry == null ? 1 : highestCacheEntry.getKey();
+
+        // a prefix covering the limit can only show up here when a concurrent request extended it
+        if (limit <= cachedLimit) {
+            CompressedPrimeSequence primes = highestCacheEntry.getValue();
+            return primes.head(primes.lowerBound(limit + 1));
+        }
+
+        Computation shorterComputation = prefixComputations.getLargestInFlight(
+                computation -> computation.algorithm() == algorithm
+                        && computation.limit() > cachedLimit
+                        && computation.limit() < limit,
+                Comparator.comparingLong(Computation::limit));
+        long baseLimit = shorterComputation == null ? cachedLimit : shorterComputation.limit();
+
+        PrimeNumberExecutionResponse<PrimeSequence> executionResponse = computePrimeNumbers(
+                baseLimit + 1,
+                limit,
+                algorithm);
+
+        CompressedPrimeSequence basePrimes = shorterComputation == null
+                ? highestCacheEntry == null ? CompressedPrimeSequence.EMPTY : highestCacheEntry.getValue()
+                : getPrefixComputedMeanwhile(shorterComputation);
+
+        // the base gaps are appended to in place when nothing was appended to them yet, and copied as they are
+        // otherwise, only the new primes are encoded
+        CompressedPrimeSequence primesToCache = basePrimes.append(executionResponse.response());
+        primeStoreService.storePrimeNumbers(primesToCache, limit);
+
+        // the cache keeps what fits of a prefix that is too large
+        cacheService.addPrimeNumbersToCache(limit, primesToCache);
+        log.info("Computation was successful for limit: {} extending the primes from {}", limit, baseLimit);
+
+        return primesToCache;
+    }
+
+    // a prefix that already ended was cached, unless it didn't fit, in which case it's sieved here after all
+    private CompressedPrimeSequence getPrefixComputedMeanwhile(Computation computation) {
+        CompressedPrimeSequence primes = prefixComputations.joinIfInFlight(computation);
+        if (primes == null) {
+            primes = cacheService.getCachedPrimeNumbers(computation.limit());
+        }
+        if (primes == null) {
+            primes = CompressedPrimeSequence.of(computePrimeNumbers(2, computation.limit(), computation.algorithm())
+                    .response());
+        }
+        return primes;
+    }
+
+    // the store is read through memory mapped segments, so a count never decodes the primes it doesn't show
+    private PrimeNumberResponse getPrimeNumbersFromStore(long limit, boolean showPrimes, Algorithm algorithm) {
+        if (!showPrimes) {
+            PrimeNumberExecutionResponse<Long> executionResponse = PrimeNumberExecution.getPrimeNumberWithExecutionTime(
+                    () -> primeStoreService.countPrimeNumbers(2, limit));
+
+            return new PrimeNumberResponse(
+                    algorithm,
+                    true,
+                    executionResponse.execDurationTimeInNs(),
+                    executionResponse.execDurationTimeInMs(),
+                    executionResponse.response(),
+                    PrimeSequence.EMPTY
+            );
+        }
+
+        PrimeNumberExecutionResponse<PrimeSequence> executionResponse = PrimeNumberExecution.getPrimeNumberWithExecutionTime(
+                () -> primeStoreService.getPrimeNumbers(2, limit));
+
+        return new PrimeNumberResponse(
+                algorithm,
+                true,
+                executionResponse.execDurationTimeInNs(),
+                executionResponse.execDurationTimeInMs(),
+                executionResponse.response().length(),
+                executionResponse.response()
+        );
+    }
+
+    // a cached request is answered from the encoded bodies of the cache, which are written as they are. a miss encodes
+    // the primes once, gzipped when the client takes it, and keeps the body when it fits. without caching, or when the
+    // body doesn't fit, the primes are encoded while they're written and never compressed, deflating on every
+    // request would cost more than it saves
+    @Override
+    public BinaryPrimeNumberResponse getPrimeNumbersInBinary(long from,
+                                                             long limit,
+                                                             Algorithm requestedAlgorithm,
+                                                             boolean cache,
+                                                             PrimeEncoding encoding,
+                                                             boolean acceptsGzip) {
+        if (requestedAlgorithm == null) {
+            throw new UnknownAlgorithmException(Constant.UNKNOWN_ALGORITHM);
+        }
+
+        CacheService.EncodedBodyKey key = new CacheService.EncodedBodyKey(from, limit, encoding, acceptsGzip);
+        if (cache) {
+            PrimeNumberExecutionResponse<CacheService.EncodedBody> cachedExecutionResponse = PrimeNumberExecution
+                    .getPrimeNumberWithExecutionTime(() -> cacheService.getEncodedBody(key));
+            CacheService.EncodedBody encodedBody = cachedExecutionResponse.response();
+
+            if (encodedBody != null) {
+                log.info("Encoded body found for range: [{}, {}] in {}", from, limit, encoding);
+                return new BinaryPrimeNumberResponse(
+                        encodedBody.algorithm(),
+                        true,
+                        cachedExecutionResponse.execDurationTimeInNs(),
+                        cachedExecutionResponse.execDurationTimeInMs(),
+                        encodedBody.numOfPrimes(),
+                        encoding,
+                        acceptsGzip,
+                        encodedBody.bytes().length,
+                        outputStream -> outputStream.write(encodedBody.bytes()));
+            }
+        }
+
+        PrimeNumberResponse primeNumberResponse = getPrimeNumbers(from, limit, true, requestedAlgorithm, cache);
+        PrimeSequence primes = primeNumberResponse.primes();
+
+        if (cache && cacheService.isEncodedBodyCachingSafe(PrimeBinaryWriter.getSizeInBytes(encoding, primes))) {
+            byte[] bytes = encode(encoding, primes, from, limit, acceptsGzip);
+            cacheService.addEncodedBody(key, new CacheService.EncodedBody(
+                    bytes,
+                    primeNumberResponse.numOfPrimes(),
+                    primeNumberResponse.algorithm()));
+            return new BinaryPrimeNumberResponse(
+                    primeNumberResponse.algorithm(),
+                    primeNumberResponse.cache(),
+                    primeNumberResponse.execTimeInNs(),
+                    primeNumberResponse.execTimeInMs(),
+                    primeNumberResponse.numOfPrimes(),
+                    encoding,
+                    acceptsGzip,
+                    bytes.length,
+                    outputStream -> outputStream.write(bytes));
+        }
+
+        return new BinaryPrimeNumberResponse(
+                primeNumberResponse.algorithm(),
+                primeNumberResponse.cache(),
+                primeNumberResponse.execTimeInNs(),
+                primeNumberResponse.execTimeInMs(),
+                primeNumberResponse.numOfPrimes(),
+                encoding,
+                false,
+                encoding == PrimeEncoding.RAW_INT64 ? PrimeBinaryWriter.getRawInt64SizeInBytes(primes) : -1,
+                outputStream -> PrimeBinaryWriter.write(encoding, primes, from, limit, outputStream));
+    }
+
+    private static byte[] encode(PrimeEncoding encoding, PrimeSequence primes, long from, long limit, boolean gzip) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            if (gzip) {
+                PrimeBinaryWriter.writeGzip(encoding, primes, from, limit, outputStream);
+            } else {
+                PrimeBinaryWriter.write(encoding, primes, from, limit, outputStream);
+            }
+        } catch (IOException ex) {
+            // a byte array doesn't fail to be written
+            throw new UncheckedIOException(ex);
+        }
+        return outputStream.toByteArray();
+    }
+
+    // the request is checked before the body is returned, so a bad one still gets an error response. the primes are
+    // written while they're sieved and never held as a whole, which is why there's no memory check, no cache and no
+    // sharing with other requests
+    @Override
+    public StreamingResponseBody streamPrimeNumbers(long from,
+                                                    long limit,
+                                                    Algorithm requestedAlgorithm,
+                                                    PrimeStreamFormat format) {
+        if (requestedAlgorithm == null) {
+            throw new UnknownAlgorithmException(Constant.UNKNOWN_ALGORITHM);
+        }
+        if (from > limit) {
+            throw new IllegalArgumentException(Constant.FROM_GREATER_THAN_LIMIT_MESSAGE);
+        }
+
+        Algorithm algorithm = requestedAlgorithm == Algorithm.AUTO
+                ? Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL
+                : requestedAlgorithm;
+        if (algorithm != Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL && algorithm != Algorithm.SIEVE_OF_ATKIN) {
+            throw new IllegalArgumentException(String.format(Constant.ALGORITHM_CANT_STREAM_MESSAGE, algorithm));
+        }
+
+        return outputStream -> {
+            try (PrimeStreamWriter writer = createStreamWriter(format, outputStream, algorithm)) {
+                long execStartTimeInMs = System.currentTimeMillis();
+                long execStartTimeInNs = System.nanoTime();
+
+                long numOfPrimes = streamPrimeNumbersAtAlgorithm(from, limit, algorithm, writer);
+
+                writer.writeSummary(
+                        numOfPrimes,
+                        System.nanoTime() - execStartTimeInNs,
+                        System.currentTimeMillis() - execStartTimeInMs);
+                log.info("Finished streaming {} primes from: {} with limit: {}", numOfPrimes, from, limit);
+            }
+        };
+    }
+
+    // a dense range is cheaper to ship as the sieve than as its primes, one byte covers 30 numbers where a prime takes
+    // about 7 digits of json around 10^6. the bitmap is never cached, it's as cheap to sieve again as to keep
+    @Override
+    public PrimeBitmapResponse getPrimeBitmap(long from, long limit, Algorithm requestedAlgorithm) {
+        if (requestedAlgorithm == null) {
+            throw new UnknownAlgorithmException(Constant.UNKNOWN_ALGORITHM);
+        }
+        if (from > limit) {
+            throw new IllegalArgumentException(Constant.FROM_GREATER_THAN_LIMIT_MESSAGE);
+        }
+
+        Algorithm algorithm = requestedAlgorithm == Algorithm.AUTO
+                ? Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL
+                : requestedAlgorithm;
+        if (algorithm != Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL && algorithm != Algorithm.SIEVE_OF_ATKIN) {
+            throw new IllegalArgumentException(String.format(Constant.ALGORITHM_CANT_BITMAP_MESSAGE, algorithm));
+        }
+
+        // a range below 2 starts at byte 0 all the same
+        long lowByte = Math.max(from, 2) / 30;
+        Util.checkMemorySafety(limit / 30 + 1 - lowByte);
+
+        PrimeNumberExecutionResponse<AbstractSegmentedWheelSieve.Bitmap> executionResponse =
+                PrimeNumberExecution.getPrimeNumberWithExecutionTime(() -> algorithm == Algorithm.SIEVE_OF_ATKIN
+                        ? algorithmService.getBitmapUsingSieveOfAtkin(
+                                executorServiceProvider.getExecutorService(), from, limit)
+                        : algorithmService.getBitmapUsingSegmentedSieveWheel(
+                                executorServiceProvider.getExecutorService(), from, limit));
+
+        return new PrimeBitmapResponse(
+                algorithm,
+                from,
+                limit,
+                lowByte * 30,
+                executionResponse.response().primeCount(),
+                executionResponse.execDurationTimeInNs(),
+                executionResponse.execDurationTimeInMs(),
+                executionResponse.response().bits());
+    }
+
+    @Override
+    public PrimeCountResponse countPrimeNumbers(long limit) {
+        PrimeNumberExecutionResponse<Long> executionResponse = PrimeNumberExecution.getPrimeNumberWithExecutionTime(
+                () -> algorithmService.countPrimeNumbersUsingLagariasMillerOdlyzko(
+                        executorServiceProvider.getExecutorService(),
+                        limit));
+
+        return new PrimeCountResponse(
+                limit,
+                executionResponse.response(),
+                executionResponse.execDurationTimeInNs(),
+                executionResponse.execDurationTimeInMs());
+    }
+
+    @Override
+    public NthPrimeResponse getNthPrimeNumber(long n) {
+        PrimeNumberExecutionResponse<Long> executionResponse = PrimeNumberExecution.getPrimeNumberWithExecutionTime(
+                () -> algorithmService.getNthPrimeNumber(executorServiceProvider.getExecutorService(), n));
+
+        return new NthPrimeResponse(
+                n,
+                executionResponse.response(),
+                executionResponse.execDurationTimeInNs(),
+                executionResponse.execDurationTimeInMs());
+    }
+
+    @Override
+    public PrimalityResponse isPrime(long number) {
+        PrimeNumberExecutionResponse<Boolean> executionResponse = PrimeNumberExecution.getPrimeNumberWithExecutionTime(
+                () -> algorithmService.isPrimeUsingMillerRabin(number));
+
+        return new PrimalityResponse(
+                number,
+                executionResponse.response(),
+                executionResponse.execDurationTimeInNs(),
+                executionResponse.execDurationTimeInMs());
+    }
+
+    @Override
+    public PrimalityBatchResponse isPrime(long[] numbers) {
+        PrimeNumberExecutionResponse<boolean[]> executionResponse = PrimeNumberExecution
+                .getPrimeNumberWithExecutionTime(() -> algorithmService.isPrimeUsingMillerRabin(
+                        executorServiceProvider.getExecutorService(),
+                        numbers));
+
+        int numOfPrimes = 0;
+        for (boolean prime : executionResponse.response()) {
+            if (prime) {
+                numOfPrimes++;
+            }
+        }
+
+        return new PrimalityBatchResponse(
+                executionResponse.execDurationTimeInNs(),
+                executionResponse.execDurationTimeInMs(),
+                numbers.length,
+                numOfPrimes,
+                executionResponse.response());
+    }
+
+    @Override
+    public CacheStatisticsResponse getCacheStatistics() {
+        return cacheService.getCacheStatistics();
+    }
+}
@@ -0,0 +1,105 @@
+package com.denisneagu.primenumberapi.service.impl;
+
+import com.denisneagu.primenumberapi.service.PrimeStoreService;
+import com.denisneagu.primenumberapi.util.CompressedPrimeSequence;
+import com.denisneagu.primenumberapi.util.PrimeSequence;
+import com.denisneagu.primenumberapi.util.PrimeBitmapStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class PrimeStoreServiceImpl implements PrimeStoreService {
+    // null when no path is configured or the file can't be opened, every range is then reported as not covered
+    private final PrimeBitmapStore primeBitmapStore;
+    // appends write and force whole segments of the file, so they run off the request thread. a single thread keeps
+    // them in order, and an append whose limit a previous one already reached is skipped
+    private final ExecutorService appendExecutor;
+
+    public PrimeStoreServiceImpl(@Value("${primenumberapi.store.path:}") String path) {
+        this.primeBitmapStore = openPrimeBitmapStore(path);
+        this.appendExecutor = primeBitmapStore == null ? null : Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "prime-store-append");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static PrimeBitmapStore openPrimeBitmapStore(String path) {
+        if (path == null || path.isBlank()) {
+            log.info("Prime store is disabled, no primenumberapi.store.path is set");
+            return null;
+        }
+
+        try {
+            PrimeBitmapStore store = new PrimeBitmapStore(Path.of(path));
+            log.info("Prime store opened at {} covering primes up to {}", path, store.getLimit());
+            return store;
+        } catch (IOException | RuntimeException ex) {
+            // the store only saves work, so the api keeps serving without it
+            log.error("Prime store can't be opened at {}: {}", path, ex.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isCovered(long limit) {
+        return primeBitmapStore != null && limit <= primeBitmapStore.getLimit();
+    }
+
+    @Override
+    public long countPrimeNumbers(long from, long limit) {
+        return primeBitmapStore.countPrimeNumbers(from, limit);
+    }
+
+    @Override
+    public PrimeSequence getPrimeNumbers(long from, long limit) {
+        return primeBitmapStore.getPrimeNumbers(from, limit);
+    }
+
+    @Override
+    public void storePrimeNumbers(CompressedPrimeSequence primeNumbers, long limit) {
+        if (primeBitmapStore == null || limit <= primeBitmapStore.getLimit()) {
+            return;
+        }
+
+        appendExecutor.execute(() -> appendPrimeNumbers(primeNumbers, limit));
+    }
+
+    private void appendPrimeNumbers(CompressedPrimeSequence primeNumbers, long limit) {
+        if (limit <= primeBitmapStore.getLimit()) {
+            return;
+        }
+
+        try {
+            primeBitmapStore.append(primeNumbers, limit);
+            log.info("Prime store extended to cover primes up to {}", primeBitmapStore.getLimit());
+        } catch (IOException | RuntimeException ex) {
+            log.error("Prime store can't be extended: {}", ex.getMessage());
+        }
+    }
+
+    // the appends still queued are written before the file is closed
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        if (primeBitmapStore == null) {
+            return;
+        }
+
+        appendExecutor.shutdown();
+        if (!appendExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+            // closing under a running append could cut a segment short, the file is left to the process exit
+            log.error("Prime store appends didn't finish in time, the store is left open");
+            return;
+        }
+        primeBitmapStore.close();
+    }
+}
@@ -0,0 +1,425 @@
+package com.denisneagu.primenumberapi.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+// shared layout of the bit-packed wheel engines. only numbers coprime to 2, 3 and 5 are stored, one bit each,
+// so a byte covers 30 consecutive numbers and a segment is 30x smaller than the equivalent boolean[].
+// subclasses decide how a segment is sieved, splitting the range into tasks and reading the bits back is shared.
+public abstract class AbstractSegmentedWheelSieve {
+    // the 8 residues modulo 30 that are coprime to 2, 3 and 5, bit i of a byte represents RESIDUES[i]
+    public static final int[] RESIDUES = {1, 7, 11, 13, 17, 19, 23, 29};
+    // 256 KiB of sieve bits per segment so a segment stays resident in a typical per-core L2 cache
+    public static final int DEFAULT_SEGMENT_BYTES = 1 << 18;
+
+    public static final int WHEEL = 30;
+    // bit of each residue modulo 30, -1 when the residue shares a factor with 30
+    protected static final int[] BIT_OF_RESIDUE = new int[WHEEL];
+
+    private static final long[] WHEEL_PRIMES = {2L, 3L, 5L};
+    // index of the first wheel residue >= r for every r modulo 30, 8 means the next byte
+    private static final int[] BIT_AT_OR_ABOVE_RESIDUE = new int[WHEEL];
+    // keep a few tasks per core so a slow task at the end doesn't leave the other cores idle
+    private static final int TASKS_PER_CORE = 4;
+
+    static {
+        Arrays.fill(BIT_OF_RESIDUE, -1);
+        for (int i = 0; i < RESIDUES.length; i++) {
+            BIT_OF_RESIDUE[RESIDUES[i]] = i;
+        }
+        int bit = 0;
+        for (int r = 0; r < WHEEL; r++) {
+            BIT_AT_OR_ABOVE_RESIDUE[r] = bit;
+            if (bit < RESIDUES.length && RESIDUES[bit] == r) {
+                bit++;
+            }
+        }
+    }
+
+    protected final int segmentBytes;
+
+    protected AbstractSegmentedWheelSieve(int segmentBytes) {
+        // segments are sieved as whole longs
+        if (segmentBytes <= 0 || segmentBytes % Long.BYTES != 0) {
+            throw new IllegalArgumentException("Segment size must be a positive multiple of 8 bytes");
+        }
+        this.segmentBytes = segmentBytes;
+    }
+
+    // sieves consecutive segments of one task, in order
+    protected interface SegmentSieve {
+        // set the bits of the numbers in [30 * segByteLow, 30 * (segByteLow + segBytes)) that are prime, every word
+        // of the segment has to be written. 1 and the numbers outside the requested range are cleared afterwards.
+        void sieveNextSegment(long[] words, long segByteLow, int segBytes);
+    }
+
+    // receives the primes of consecutive segments in ascending order, primes[0, length) is only valid until it
+    // returns as the buffer is reused by the next segment
+    @FunctionalInterface
+    public interface SegmentConsumer {
+        void accept(long[] primes, int length) throws IOException;
+    }
+
+    // the sieve itself rather than the primes read out of it. bit i of byte k holds the number
+    // 30 * (startAt / 30 + k) + RESIDUES[i] and is set when it's a prime in [startAt, limit]. 2, 3 and 5 aren't on the
+    // wheel so they never show up in the bits, but they're part of the prime count
+    public record Bitmap(byte[] bits, long primeCount) {
+    }
+
+    // smallPrimes holds every prime up to and including sqrt(taskByteHigh * 30)
+    protected abstract SegmentSieve createSegmentSieve(int[] smallPrimes, long taskByteLow, long taskByteHigh);
+
+    // smallPrimes must hold every prime up to and including sqrt(limit), larger ones are skipped
+    public PrimeSequence getPrimeNumbers(ExecutorService executorService, int[] smallPrimes, long startAt, long limit) {
+        // ensure min start is 2
+        long start = Math.max(startAt, 2);
+
+        if (start > limit) {
+            return PrimeSequence.EMPTY;
+        }
+
+        long[] wheelPrimes = getWheelPrimesInRange(start, limit);
+
+        // byte range covering [start, limit], where byte b holds the numbers 30b + RESIDUES[i]
+        long lowByte = start / WHEEL;
+        long highByte = limit / WHEEL + 1;
+
+        List<CompletableFuture<List<long[]>>> futures = new ArrayList<>();
+
+        long taskBytes = getTaskBytes(highByte - lowByte);
+        for (long taskLow = lowByte; taskLow < highByte; taskLow += taskBytes) {
+            // capture the task bounds as final values for the future
+            long taskByteLow = taskLow;
+            long taskByteHigh = Math.min(taskLow + taskBytes, highByte);
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> sieveTask(smallPrimes, taskByteLow, taskByteHigh, start, limit),
+                    executorService));
+        }
+
+        // join in order so the primes stay sorted. every segment keeps its sieved words, a bit per number coprime to
+        // 30, until the popcounts have sized the result exactly
+        List<List<long[]>> taskWords = new ArrayList<>(futures.size());
+        long[] taskCounts = new long[futures.size()];
+        long count = wheelPrimes.length;
+        for (int task = 0; task < futures.size(); task++) {
+            List<long[]> segmentWords = futures.get(task).join();
+            for (long[] words : segmentWords) {
+                taskCounts[task] += countBits(words);
+            }
+            count += taskCounts[task];
+            taskWords.add(segmentWords);
+        }
+
+        // the wheel primes come first, then every task writes its segments straight into the result at its offset
+        PrimeSequence allPrimes = PrimeSequence.allocate(count, limit);
+        long offset = 0;
+        for (long p : wheelPrimes) {
+            allPrimes.set(offset++, p);
+        }
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>(taskWords.size());
+        for (int task = 0; task < taskWords.size(); task++) {
+            List<long[]> segmentWords = taskWords.get(task);
+            long taskByteLow = lowByte + task * taskBytes;
+            long taskOffset = offset;
+            writes.add(CompletableFuture.runAsync(
+                    () -> writeTaskPrimes(segmentWords, taskByteLow, allPrimes, taskOffset),
+                    executorService));
+            offset += taskCounts[task];
+        }
+        writes.forEach(CompletableFuture::join);
+        return allPrimes;
+    }
+
+    // same sieve as getPrimeNumbers, but every segment is only popcounted and no prime is ever stored
+    public long countPrimeNumbers(ExecutorService executorService, int[] smallPrimes, long startAt, long limit) {
+        long start = Math.max(startAt, 2);
+
+        if (start > limit) {
+            return 0;
+        }
+
+        long lowByte = start / WHEEL;
+        long highByte = limit / WHEEL + 1;
+
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+
+        long taskBytes = getTaskBytes(highByte - lowByte);
+        for (long taskLow = lowByte; taskLow < highByte; taskLow += taskBytes) {
+            long taskByteLow = taskLow;
+            long taskByteHigh = Math.min(taskLow + taskBytes, highByte);
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> countTask(smallPrimes, taskByteLow, taskByteHigh, start, limit),
+                    executorService));
+        }
+
+        long count = getWheelPrimesInRange(start, limit).length;
+        for (CompletableFuture<Long> future : futures) {
+            count += future.join();
+        }
+        return count;
+    }
+
+    // same sieve as getPrimeNumbers, but the segments are sieved one after another on the calling thread and the
+    // primes of each are handed to the consumer before the next one is sieved. only a single segment is held however
+    // large the range is, and a consumer that blocks on a slow reader holds the sieve back. returns the number of
+    // primes. smallPrimes must hold every prime up to and including sqrt(limit), larger ones are skipped
+    public long streamPrimeNumbers(int[] smallPrimes, long startAt, long limit, SegmentConsumer consumer)
+            throws IOException {
+        long start = Math.max(startAt, 2);
+
+        if (start > limit) {
+            return 0;
+        }
+
+        long[] wheelPrimes = getWheelPrimesInRange(start, limit);
+        long count = wheelPrimes.length;
+        if (wheelPrimes.length > 0) {
+            consumer.accept(wheelPrimes, wheelPrimes.length);
+        }
+
+        long lowByte = start / WHEEL;
+        long highByte = limit / WHEEL + 1;
+        long[] words = new long[segmentBytes / Long.BYTES];
+        // grown to the largest segment count seen, which the density of the primes keeps far below a bit per prime
+        long[] primes = new long[0];
+
+        // tasks keep the bucket lists of the sieving primes as small as in getPrimeNumbers
+        long taskBytes = getTaskBytes(highByte - lowByte);
+        for (long taskByteLow = lowByte; taskByteLow < highByte; taskByteLow += taskBytes) {
+            long taskByteHigh = Math.min(taskByteLow + taskBytes, highByte);
+            SegmentSieve segmentSieve = createSegmentSieve(smallPrimes, taskByteLow, taskByteHigh);
+
+            for (long segByteLow = taskByteLow; segByteLow < taskByteHigh; segByteLow += segmentBytes) {
+                int segBytes = (int) Math.min(segmentBytes, taskByteHigh - segByteLow);
+                int wordCount = sieveSegment(words, segmentSieve, segByteLow, segBytes, start, limit);
+
+                int segmentCount = 0;
+                for (int i = 0; i < wordCount; i++) {
+                    segmentCount += Long.bitCount(words[i]);
+                }
+                if (segmentCount == 0) {
+                    continue;
+                }
+                if (primes.length < segmentCount) {
+                    primes = new long[segmentCount];
+                }
+
+                collectPrimes(words, wordCount, segByteLow, primes);
+                consumer.accept(primes, segmentCount);
+                count += segmentCount;
+            }
+        }
+        return count;
+    }
+
+    // same sieve as getPrimeNumbers, but every task copies the words of its segments straight into its bytes of the
+    // bitmap, so no prime is ever read out of the bits
+    public Bitmap getBitmap(ExecutorService executorService, int[] smallPrimes, long startAt, long limit) {
+        long start = Math.max(startAt, 2);
+
+        if (start > limit) {
+            return new Bitmap(new byte[0], 0);
+        }
+
+        long lowByte = start / WHEEL;
+        long highByte = limit / WHEEL + 1;
+        if (highByte - lowByte > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Range is too large for a bitmap");
+        }
+        byte[] bits = new byte[(int) (highByte - lowByte)];
+
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+
+        long taskBytes = getTaskBytes(highByte - lowByte);
+        for (long taskLow = lowByte; taskLow < highByte; taskLow += taskBytes) {
+            long taskByteLow = taskLow;
+            long taskByteHigh = Math.min(taskLow + taskBytes, highByte);
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> bitmapTask(smallPrimes, taskByteLow, taskByteHigh, start, limit, bits, lowByte),
+                    executorService));
+        }
+
+        long count = getWheelPrimesInRange(start, limit).length;
+        for (CompletableFuture<Long> future : futures) {
+            count += future.join();
+        }
+        return new Bitmap(bits, count);
+    }
+
+    private long[] getWheelPrimesInRange(long startAt, long limit) {
+        int count = 0;
+        long[] wheelPrimes = new long[WHEEL_PRIMES.length];
+        for (long p : WHEEL_PRIMES) {
+            if (p >= startAt && p <= limit) {
+                wheelPrimes[count++] = p;
+            }
+        }
+        return Arrays.copyOf(wheelPrimes, count);
+    }
+
+    // split the byte range into whole segments, spread over a few tasks per core
+    private long getTaskBytes(long totalBytes) {
+        long segments = (totalBytes + segmentBytes - 1) / segmentBytes;
+        long tasks = Math.min(segments, (long) Runtime.getRuntime().availableProcessors() * TASKS_PER_CORE);
+        long segmentsPerTask = (segments + tasks - 1) / tasks;
+        return segmentsPerTask * segmentBytes;
+    }
+
+    // the sieved words of every segment of the task, in order
+    private List<long[]> sieveTask(int[] smallPrimes, long taskByteLow, long taskByteHigh, long startAt, long limit) {
+        List<long[]> segmentWords = new ArrayList<>();
+        // a single buffer is reused by every segment of the task
+        long[] words = new long[segmentBytes / Long.BYTES];
+        SegmentSieve segmentSieve = createSegmentSieve(smallPrimes, taskByteLow, taskByteHigh);
+
+        for (long segByteLow = taskByteLow; segByteLow < taskByteHigh; segByteLow += segmentBytes) {
+            int segBytes = (int) Math.min(segmentBytes, taskByteHigh - segByteLow);
+            int wordCount = sieveSegment(words, segmentSieve, segByteLow, segBytes, startAt, limit);
+            segmentWords.add(Arrays.copyOf(words, wordCount));
+        }
+        return segmentWords;
+    }
+
+    private void writeTaskPrimes(List<long[]> segmentWords, long taskByteLow, PrimeSequence primes, long offset) {
+        long segByteLow = taskByteLow;
+        for (long[] words : segmentWords) {
+            offset = collectPrimes(words, segByteLow, primes, offset);
+            segByteLow += segmentBytes;
+        }
+    }
+
+    private static long countBits(long[] words) {
+        long count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private long countTask(int[] smallPrimes, long taskByteLow, long taskByteHigh, long startAt, long limit) {
+        long count = 0;
+        long[] words = new long[segmentBytes / Long.BYTES];
+        SegmentSieve segmentSieve = createSegmentSieve(smallPrimes, taskByteLow, taskByteHigh);
+
+        for (long segByteLow = taskByteLow; segByteLow < taskByteHigh; segByteLow += segmentBytes) {
+            int segBytes = (int) Math.min(segmentBytes, taskByteHigh - segByteLow);
+            int wordCount = sieveSegment(words, segmentSieve, segByteLow, segBytes, startAt, limit);
+            for (int i = 0; i < wordCount; i++) {
+                count += Long.bitCount(words[i]);
+            }
+        }
+        return count;
+    }
+
+    // tasks write disjoint byte ranges of the bitmap, the words are little endian so byte j of a word is the byte of
+    // the numbers 30 * (segByteLow + j) + RESIDUES[i]. returns the number of primes of the task
+    private long bitmapTask(int[] smallPrimes,
+                            long taskByteLow,
+                            long taskByteHigh,
+                            long startAt,
+                            long limit,
+                            byte[] bits,
+                            long lowByte) {
+        long count = 0;
+        long[] words = new long[segmentBytes / Long.BYTES];
+        ByteBuffer buffer = ByteBuffer.wrap(bits).order(ByteOrder.LITTLE_ENDIAN);
+        SegmentSieve segmentSieve = createSegmentSieve(smallPrimes, taskByteLow, taskByteHigh);
+
+        for (long segByteLow = taskByteLow; segByteLow < taskByteHigh; segByteLow += segmentBytes) {
+            int segBytes = (int) Math.min(segmentBytes, taskByteHigh - segByteLow);
+            int wordCount = sieveSegment(words, segmentSieve, segByteLow, segBytes, startAt, limit);
+            int offset = (int) (segByteLow - lowByte);
+            int end = offset + segBytes;
+
+            for (int i = 0; i < wordCount; i++) {
+                count += Long.bitCount(words[i]);
+                int byteIndex = offset + i * Long.BYTES;
+                if (byteIndex + Long.BYTES <= end) {
+                    buffer.putLong(byteIndex, words[i]);
+                } else {
+                    // the last word of a segment that isn't a whole number of words
+                    for (int j = 0; byteIndex + j < end; j++) {
+                        bits[byteIndex + j] = (byte) (words[i] >>> (8 * j));
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // sieve the bytes [segByteLow, segByteLow + segBytes) and return the number of words in use
+    private int sieveSegment(long[] words,
+                             SegmentSieve segmentSieve,
+                             long segByteLow,
+                             int segBytes,
+                             long startAt,
+                             long limit) {
+        int wordCount = (segBytes + Long.BYTES - 1) / Long.BYTES;
+        long segBits = (long) segBytes * 8;
+
+        segmentSieve.sieveNextSegment(words, segByteLow, segBytes);
+
+        // 1 is not prime
+        if (segByteLow == 0) {
+            words[0] &= ~1L;
+        }
+        // drop numbers outside [startAt, limit] and the padding bits of a partial last word
+        clearBits(words, 0, getBitAtOrAbove(startAt, segByteLow));
+        clearBits(words, getBitAtOrAbove(limit + 1, segByteLow), (long) wordCount * 64);
+        clearBits(words, segBits, (long) wordCount * 64);
+
+        return wordCount;
+    }
+
+    // index of the first bit of the segment that represents a number >= n, clamped to the segment
+    private long getBitAtOrAbove(long n, long segByteLow) {
+        long bit = (n / WHEEL - segByteLow) * 8 + BIT_AT_OR_ABOVE_RESIDUE[(int) (n % WHEEL)];
+        return Math.max(0, Math.min(bit, (long) Integer.MAX_VALUE));
+    }
+
+    private void clearBits(long[] words, long fromBit, long toBit) {
+        toBit = Math.min(toBit, (long) words.length * 64);
+        for (long bit = fromBit; bit < toBit; ) {
+            int word = (int) (bit >>> 6);
+            int offset = (int) (bit & 63);
+            int length = (int) Math.min(64 - offset, toBit - bit);
+            long mask = length == 64 ? -1L : ((1L << length) - 1) << offset;
+            words[word] &= ~mask;
+            bit += length;
+        }
+    }
+
+    // writes the primes of the first wordCount words of the segment to the start of primes
+    private void collectPrimes(long[] words, int wordCount, long segByteLow, long[] primes) {
+        int index = 0;
+        for (int i = 0; i < wordCount; i++) {
+            long word = words[i];
+            while (word != 0) {
+                long bit = ((long) i << 6) + Long.numberOfTrailingZeros(word);
+                primes[index++] = (segByteLow + (bit >>> 3)) * WHEEL + RESIDUES[(int) (bit & 7)];
+                word &= word - 1;
+            }
+        }
+    }
+
+    // writes the primes of the segment from offset on and returns the offset after them
+    private long collectPrimes(long[] words, long segByteLow, PrimeSequence primes, long offset) {
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            // visit set bits only, lowest first
+            while (word != 0) {
+                long bit = ((long) i << 6) + Long.numberOfTrailingZeros(word);
+                primes.set(offset++, (segByteLow + (bit >>> 3)) * WHEEL + RESIDUES[(int) (bit & 7)]);
+                word &= word - 1;
+            }
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,112 @@
+package com.denisneagu.primenumberapi.util;
+
+import java.util.Arrays;
+
+// the primes that cross off the segments of every engine, shared by all requests instead of being sieved again for
+// each one. the array of a snapshot is never written once it's published, a larger bound sieves only the numbers past
+// the current one into a new array that replaces the snapshot, so readers keep whatever array they got without locking.
+// the shared array stops growing at MAX_SHARED_BOUND, a larger bound gets an array of its own that's dropped with the
+// request and is sieved outside the lock
+public class BasePrimes {
+    // the bound at least doubles while it's small, so a run of slowly growing limits doesn't extend it every time
+    private static final int MAX_DOUBLING_BOUND = 1 << 24;
+    // about 3.9M primes in 16 MB, enough for every limit up to 4.5 * 10^15
+    public static final int MAX_SHARED_BOUND = 1 << 26;
+    // numbers crossed off at once, an extension never holds more flags than this
+    private static final int SEGMENT_SIZE = 1 << 20;
+
+    private static volatile Snapshot snapshot = new Snapshot(new int[0], 1);
+
+    private record Snapshot(int[] primes, int bound) {
+    }
+
+    private BasePrimes() {
+    }
+
+    // sorted primes holding every prime up to and including bound, followed by larger ones when a larger bound has
+    // been asked for before. the array is shared, so it must only be read and scanned up to the bound needed
+    public static int[] getPrimes(int bound) {
+        Snapshot current = snapshot;
+        if (current.bound() >= bound) {
+            return current.primes();
+        }
+        if (bound <= MAX_SHARED_BOUND) {
+            return extend(bound).primes();
+        }
+
+        Snapshot shared = current.bound() >= MAX_SHARED_BOUND ? current : extend(MAX_SHARED_BOUND);
+        return sieve(shared, bound).primes();
+    }
+
+    // largest bound covered so far
+    public static int getBound() {
+        return snapshot.bound();
+    }
+
+    private static synchronized Snapshot extend(int bound) {
+        Snapshot current = snapshot;
+        if (current.bound() >= bound) {
+            // extended by another thread while this one was waiting
+            return current;
+        }
+
+        int newBound = (int) Math.max(bound, Math.min(2L * current.bound(), MAX_DOUBLING_BOUND));
+        // the numbers past the current bound are crossed off by the primes up to sqrt(newBound), which are known
+        // already unless the bound more than squares
+        int sqrtBound = (int) floorSqrt(newBound);
+        if (sqrtBound > current.bound()) {
+            current = extend(sqrtBound);
+        }
+
+        current = sieve(current, newBound);
+        snapshot = current;
+        return current;
+    }
+
+    // the primes of base followed by every prime in (base.bound(), bound], sieved a segment at a time. base holds
+    // every prime up to sqrt(bound) and none past its bound
+    private static Snapshot sieve(Snapshot base, int bound) {
+        long low = base.bound() + 1L;
+        int baseCount = base.primes().length;
+        long maxCount = baseCount + PrimeSequence.getMaxPrimeCount(low, bound);
+        Util.checkMemorySafety(maxCount * Integer.BYTES);
+
+        int[] primes = Arrays.copyOf(base.primes(), (int) maxCount);
+        int count = baseCount;
+        boolean[] isComposite = new boolean[(int) Math.min(SEGMENT_SIZE, bound - low + 1)];
+        for (long segmentLow = low; segmentLow <= bound; segmentLow += SEGMENT_SIZE) {
+            int segmentLength = (int) Math.min(SEGMENT_SIZE, bound - segmentLow + 1);
+            long segmentHigh = segmentLow + segmentLength - 1;
+            Arrays.fill(isComposite, 0, segmentLength, false);
+
+            for (int p : base.primes()) {
+                if ((long) p * p > segmentHigh) {
+                    break;
+                }
+                // first multiple of p in the segment, smaller multiples of p have been marked by smaller primes
+                long startMultiple = Math.max((long) p * p, ((segmentLow + p - 1) / p) * p);
+                for (long j = startMultiple; j <= segmentHigh; j += p) {
+                    isComposite[(int) (j - segmentLow)] = true;
+                }
+            }
+
+            for (int i = 0; i < segmentLength; i++) {
+                if (!isComposite[i]) {
+                    primes[count++] = (int) (segmentLow + i);
+                }
+            }
+        }
+        return new Snapshot(Arrays.copyOf(primes, count), bound);
+    }
+
+    private static long floorSqrt(long n) {
+        long r = (long) Math.sqrt(n);
+        while (r * r > n) {
+            r--;
+        }
+        while ((r + 1) * (r + 1) <= n) {
+            r++;
+        }
+        return r;
+    }
+}
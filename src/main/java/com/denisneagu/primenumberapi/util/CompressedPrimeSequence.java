@@ -0,0 +1,419 @@
+package com.denisneagu.primenumberapi.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// immutable sorted sequence of primes stored as gaps. every gap between odd primes is even, so gap / 2 is written as
+// a varint (7 bits per byte, high bit set while more bytes follow) which takes one byte below a gap of 256 and two
+// bytes for every gap below 2^64. every CHECKPOINT_INTERVAL primes the absolute value and byte offset are kept, so
+// get and lowerBound only decode within a single block. a head view shares the encoded bytes of the sequence it's
+// taken from, only its size and the bytes it covers are its own.
+//
+// the arrays are append only. a sequence never reads past its own size, so the capacity beyond the longest sequence
+// sharing the arrays is free, and the sequence that ends there can claim it with a compare and set on arraysSize and
+// append in place. the appended sequence is published with the new size, every other sequence appends into a copy
+public final class CompressedPrimeSequence {
+    private static final int CHECKPOINT_SHIFT = 6;
+    public static final int CHECKPOINT_INTERVAL = 1 << CHECKPOINT_SHIFT;
+    // object header and fields plus the three array headers
+    private static final long FIXED_OVERHEAD_BYTES = 64;
+    // arraysSize of arrays that are being appended to or were outgrown, nothing is appended to them in place again
+    private static final int CLAIMED = -1;
+    public static final CompressedPrimeSequence EMPTY = new CompressedPrimeSequence(
+            new byte[0], 0, new long[0], new int[0], 0, new AtomicInteger(CLAIMED));
+
+    private final byte[] gaps;
+    private final int gapsLength;
+    private final long[] checkpointPrimes;
+    private final int[] checkpointOffsets;
+    private final int size;
+    // size of the longest sequence written into these arrays
+    private final AtomicInteger arraysSize;
+
+    private CompressedPrimeSequence(byte[] gaps,
+                                    int gapsLength,
+                                    long[] checkpointPrimes,
+                                    int[] checkpointOffsets,
+                                    int size,
+                                    AtomicInteger arraysSize) {
+        this.gaps = gaps;
+        this.gapsLength = gapsLength;
+        this.checkpointPrimes = checkpointPrimes;
+        this.checkpointOffsets = checkpointOffsets;
+        this.size = size;
+        this.arraysSize = arraysSize;
+    }
+
+    // primes must be sorted in ascending order
+    public static CompressedPrimeSequence of(long[] primes) {
+        Builder builder = new Builder(primes.length);
+        for (long prime : primes) {
+            builder.add(prime);
+        }
+        return builder.build();
+    }
+
+    // primes must be sorted in ascending order
+    public static CompressedPrimeSequence of(PrimeSequence primes) {
+        Builder builder = new Builder((int) Math.min(primes.length(), Integer.MAX_VALUE));
+        for (long i = 0; i < primes.length(); i++) {
+            builder.add(primes.get(i));
+        }
+        return builder.build();
+    }
+
+    // a new sequence holding these primes followed by the given ones. the encoded bytes are never decoded, they're
+    // appended to in place when this sequence ends the arrays and copied otherwise
+    public CompressedPrimeSequence append(PrimeSequence primes) {
+        int expectedAdditionalSize = (int) Math.min(primes.length(), Integer.MAX_VALUE - size);
+        Builder builder = new Builder(this, expectedAdditionalSize, arraysSize.compareAndSet(size, CLAIMED));
+        try {
+            for (long i = 0; i < primes.length(); i++) {
+                builder.add(primes.get(i));
+            }
+        } catch (RuntimeException ex) {
+            builder.release();
+            throw ex;
+        }
+        return builder.build();
+    }
+
+    // the first size primes, without copying. the gaps leading up to the last of them are found from its checkpoint
+    public CompressedPrimeSequence head(int size) {
+        if (size < 0 || size > this.size) {
+            throw new IndexOutOfBoundsException("Size " + size + " out of bounds for size " + this.size);
+        }
+        if (size == this.size) {
+            return this;
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+
+        int last = size - 1;
+        int checkpoint = last >>> CHECKPOINT_SHIFT;
+        int offset = checkpointOffsets[checkpoint];
+        for (int i = checkpoint << CHECKPOINT_SHIFT; i < last; i++) {
+            offset += gaps[offset] < 0 ? getVarintLength(readVarint(offset)) : 1;
+        }
+        return new CompressedPrimeSequence(gaps, offset, checkpointPrimes, checkpointOffsets, size, arraysSize);
+    }
+
+    // a copy holding only its own bytes, so the sequence a head view was taken from can be freed
+    public CompressedPrimeSequence compact() {
+        int checkpoints = getCheckpointCount();
+        if (gaps.length == gapsLength && checkpointPrimes.length == checkpoints) {
+            return this;
+        }
+        return new CompressedPrimeSequence(
+                Arrays.copyOf(gaps, gapsLength),
+                gapsLength,
+                Arrays.copyOf(checkpointPrimes, checkpoints),
+                Arrays.copyOf(checkpointOffsets, checkpoints),
+                size,
+                new AtomicInteger(size));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int getCheckpointCount() {
+        return size == 0 ? 0 : ((size - 1) >>> CHECKPOINT_SHIFT) + 1;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // the sequence that ends its arrays keeps their spare capacity for the next append, so the whole arrays count. a
+    // head view only counts the bytes it covers
+    public long getSizeInBytes() {
+        if (arraysSize.get() == size) {
+            return FIXED_OVERHEAD_BYTES + gaps.length + checkpointPrimes.length * 12L;
+        }
+        return FIXED_OVERHEAD_BYTES + gapsLength + getCheckpointCount() * 12L;
+    }
+
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+
+        int checkpoint = index >>> CHECKPOINT_SHIFT;
+        long prime = checkpointPrimes[checkpoint];
+        int offset = checkpointOffsets[checkpoint];
+        for (int i = checkpoint << CHECKPOINT_SHIFT; i < index; i++) {
+            int gap = gaps[offset++];
+            if (gap < 0) {
+                gap = readVarint(offset - 1);
+                offset += getVarintLength(gap) - 1;
+            }
+            prime = nextPrime(prime, gap);
+        }
+        return prime;
+    }
+
+    public long last() {
+        return get(size - 1);
+    }
+
+    // index of the first prime that is at least value, or size when there is none
+    public int lowerBound(long value) {
+        if (size == 0 || checkpointPrimes[0] >= value) {
+            return 0;
+        }
+
+        // last checkpoint below value, the answer lies in its block or is the next checkpoint
+        int low = 0;
+        int high = getCheckpointCount() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (checkpointPrimes[mid] < value) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        int index = low << CHECKPOINT_SHIFT;
+        long prime = checkpointPrimes[low];
+        int offset = checkpointOffsets[low];
+        while (prime < value) {
+            if (++index == size) {
+                return size;
+            }
+            int gap = gaps[offset++];
+            if (gap < 0) {
+                gap = readVarint(offset - 1);
+                offset += getVarintLength(gap) - 1;
+            }
+            prime = nextPrime(prime, gap);
+        }
+        return index;
+    }
+
+    public PrimeSequence toArray() {
+        return toArray(0, size);
+    }
+
+    // decodes [fromIndex, toIndex) sequentially after a single checkpoint seek, into an int[] backed array when the
+    // last prime of the slice fits
+    public PrimeSequence toArray(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "Range [" + fromIndex + ", " + toIndex + ") out of bounds for size " + size);
+        }
+
+        if (fromIndex == toIndex) {
+            return PrimeSequence.EMPTY;
+        }
+        PrimeSequence primes = PrimeSequence.allocate(toIndex - fromIndex, get(toIndex - 1));
+
+        int checkpoint = fromIndex >>> CHECKPOINT_SHIFT;
+        long prime = checkpointPrimes[checkpoint];
+        int offset = checkpointOffsets[checkpoint];
+        for (int i = (checkpoint << CHECKPOINT_SHIFT) + 1; i <= fromIndex; i++) {
+            int gap = gaps[offset++];
+            if (gap < 0) {
+                gap = readVarint(offset - 1);
+                offset += getVarintLength(gap) - 1;
+            }
+            prime = nextPrime(prime, gap);
+        }
+
+        primes.set(0, prime);
+        for (int i = 1; i < primes.length(); i++) {
+            // single byte gaps are by far the most common, the varint path only runs for gaps of 256 and above
+            int gap = gaps[offset++];
+            if (gap < 0) {
+                gap = readVarint(offset - 1);
+                offset += getVarintLength(gap) - 1;
+            }
+            prime = nextPrime(prime, gap);
+            primes.set(i, prime);
+        }
+        return primes;
+    }
+
+    // the first prime and the gaps determine every other prime, the checkpoints follow from them
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompressedPrimeSequence other)) {
+            return false;
+        }
+        return size == other.size
+                && (size == 0 || checkpointPrimes[0] == other.checkpointPrimes[0])
+                && Arrays.equals(gaps, 0, gapsLength, other.gaps, 0, other.gapsLength);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Integer.hashCode(size);
+        for (int i = 0; i < gapsLength; i++) {
+            hash = 31 * hash + gaps[i];
+        }
+        return hash;
+    }
+
+    // a gap from 2 is the only odd one, it's written relative to 3 instead
+    private static long nextPrime(long prime, int halfGap) {
+        return (prime == 2 ? 3 : prime) + 2L * halfGap;
+    }
+
+    private int readVarint(int offset) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = gaps[offset++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static int getVarintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    public static final class Builder {
+        private byte[] gaps;
+        private long[] checkpointPrimes;
+        private int[] checkpointOffsets;
+        private int gapsLength;
+        private int size;
+        private long lastPrime;
+        // the arrays size claimed to append in place and the size it had, null when the arrays are the builder's own
+        private final AtomicInteger claimedArraysSize;
+        private final int claimedSize;
+        private final boolean append;
+        // set once any of the claimed arrays had to be copied into a larger one
+        private boolean outgrown;
+
+        public Builder(int expectedSize) {
+            // nearly every gap takes a single byte
+            this.gaps = new byte[Math.max(expectedSize, 16)];
+            this.checkpointPrimes = new long[(expectedSize >>> CHECKPOINT_SHIFT) + 1];
+            this.checkpointOffsets = new int[checkpointPrimes.length];
+            this.claimedArraysSize = null;
+            this.claimedSize = 0;
+            this.append = false;
+        }
+
+        private Builder(CompressedPrimeSequence sequence, int expectedAdditionalSize, boolean inPlace) {
+            int expectedSize = sequence.size + expectedAdditionalSize;
+            this.gaps = sequence.gaps;
+            this.checkpointPrimes = sequence.checkpointPrimes;
+            this.checkpointOffsets = sequence.checkpointOffsets;
+            this.gapsLength = sequence.gapsLength;
+            this.size = sequence.size;
+            this.lastPrime = sequence.size > 0 ? sequence.last() : 0;
+            this.claimedArraysSize = inPlace ? sequence.arraysSize : null;
+            this.claimedSize = sequence.size;
+            this.append = true;
+
+            // the arrays grow by half at least, so a sequence extended many times copies its bytes a bounded number
+            // of times overall
+            int gapsCapacity = Math.max(gapsLength + expectedAdditionalSize, 16);
+            if (!inPlace || gapsCapacity + 5 > gaps.length) {
+                gaps = Arrays.copyOf(gaps, Math.max(gapsCapacity, inPlace ? gaps.length + (gaps.length >>> 1) : 0));
+                outgrown = true;
+            }
+            int checkpointCapacity = (expectedSize >>> CHECKPOINT_SHIFT) + 1;
+            if (!inPlace || checkpointCapacity > checkpointPrimes.length) {
+                checkpointCapacity = Math.max(checkpointCapacity,
+                        inPlace ? checkpointPrimes.length + (checkpointPrimes.length >>> 1) : 0);
+                checkpointPrimes = Arrays.copyOf(checkpointPrimes, checkpointCapacity);
+                checkpointOffsets = Arrays.copyOf(checkpointOffsets, checkpointCapacity);
+                outgrown = true;
+            }
+        }
+
+        public Builder add(long prime) {
+            if (size > 0 && prime <= lastPrime) {
+                throw new IllegalArgumentException("Primes must be added in ascending order");
+            }
+            if (size == Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(Constant.TOO_MANY_PRIME_NUMBERS_MESSAGE);
+            }
+
+            if (size > 0) {
+                writeVarint((int) ((prime - (lastPrime == 2 ? 3 : lastPrime)) >>> 1));
+            }
+
+            if ((size & (CHECKPOINT_INTERVAL - 1)) == 0) {
+                int checkpoint = size >>> CHECKPOINT_SHIFT;
+                if (checkpoint == checkpointPrimes.length) {
+                    checkpointPrimes = Arrays.copyOf(checkpointPrimes, checkpoint * 2);
+                    checkpointOffsets = Arrays.copyOf(checkpointOffsets, checkpoint * 2);
+                    outgrown = true;
+                }
+                checkpointPrimes[checkpoint] = prime;
+                // the offset of the gap leading to the next prime
+                checkpointOffsets[checkpoint] = gapsLength;
+            }
+
+            lastPrime = prime;
+            size++;
+            return this;
+        }
+
+        private void writeVarint(int value) {
+            if (gapsLength + 5 > gaps.length) {
+                gaps = Arrays.copyOf(gaps, Math.max(gaps.length * 2, gapsLength + 5));
+                outgrown = true;
+            }
+            while ((value & ~0x7F) != 0) {
+                gaps[gapsLength++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            gaps[gapsLength++] = (byte) value;
+        }
+
+        // gives the claimed arrays back when nothing was built, nothing up to the claimed size was changed
+        private void release() {
+            if (claimedArraysSize != null) {
+                claimedArraysSize.set(claimedSize);
+            }
+        }
+
+        public CompressedPrimeSequence build() {
+            if (size == 0) {
+                release();
+                return EMPTY;
+            }
+
+            int checkpoints = ((size - 1) >>> CHECKPOINT_SHIFT) + 1;
+            if (!append) {
+                // built from scratch, the size is known so there's nothing to keep room for
+                return new CompressedPrimeSequence(
+                        Arrays.copyOf(gaps, gapsLength),
+                        gapsLength,
+                        Arrays.copyOf(checkpointPrimes, checkpoints),
+                        Arrays.copyOf(checkpointOffsets, checkpoints),
+                        size,
+                        new AtomicInteger(size));
+            }
+
+            // appended, the free capacity is kept for the next append. while every array is still the claimed one
+            // the new size is published on it, once one was outgrown the claimed arrays stay claimed for good, as
+            // the new sequence may still share the others
+            if (claimedArraysSize != null && !outgrown) {
+                CompressedPrimeSequence sequence = new CompressedPrimeSequence(
+                        gaps, gapsLength, checkpointPrimes, checkpointOffsets, size, claimedArraysSize);
+                claimedArraysSize.set(size);
+                return sequence;
+            }
+            return new CompressedPrimeSequence(
+                    gaps, gapsLength, checkpointPrimes, checkpointOffsets, size, new AtomicInteger(size));
+        }
+    }
+}
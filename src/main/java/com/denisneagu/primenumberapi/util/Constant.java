@@ -3,4 +3,20 @@ package com.denisneagu.primenumberapi.util;
 public class Constant {
     public static final String ILLEGAL_LIMIT_STATE_TO_ALGORITHM_MESSAGE = "Illegal limit state to algorithm: %s";
     public static final String UNKNOWN_ALGORITHM = "Algorithm is unknown";
+    public static final String FROM_GREATER_THAN_LIMIT_MESSAGE = "From can't be greater than limit";
+    public static final String ALGORITHM_CANT_STREAM_MESSAGE =
+            "Algorithm %s can't stream its primes, use CONCURRENT_SEGMENTED_SIEVE_WHEEL or SIEVE_OF_ATKIN";
+    public static final String ALGORITHM_CANT_BITMAP_MESSAGE =
+            "Algorithm %s doesn't sieve on the wheel, use CONCURRENT_SEGMENTED_SIEVE_WHEEL or SIEVE_OF_ATKIN";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String LIMIT_TOO_LARGE_MESSAGE =
+            "Limit is too large, the primes up to its square root don't fit in an int";
+    public static final String TOO_MANY_PRIME_NUMBERS_MESSAGE = "Too many prime numbers to fit within an array";
+    public static final int MAX_PRIMALITY_BATCH_SIZE = 1_000_000;
+    // p_n for this n is about 3 * 10^13, where a pi(x) count still takes seconds
+    public static final long MAX_NTH_PRIME_INDEX = 1_000_000_000_000L;
+    // a pi(x) count up to here takes minutes, and the primes up to sqrt(x) it keeps are about 23 MB
+    public static final long MAX_COUNT_LIMIT = 10_000_000_000_000_000L;
+    // about 3.8 * 10^10 primes, a streamed listing up to here is already hundreds of gigabytes
+    public static final long MAX_STREAM_LIMIT = 1_000_000_000_000L;
 }
\ No newline at end of file
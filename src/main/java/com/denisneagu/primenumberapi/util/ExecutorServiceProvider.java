@@ -4,7 +4,7 @@ import lombok.Getter;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 @Getter
 @Component
@@ -13,6 +13,8 @@ public class ExecutorServiceProvider {
 
     public ExecutorServiceProvider() {
         int availableProcessors = Runtime.getRuntime().availableProcessors();
-        this.executorService = Executors.newFixedThreadPool(availableProcessors);
+        // a fork/join pool, so recursively split work is balanced by work stealing and concurrent requests share the
+        // workers instead of queueing whole segments behind each other
+        this.executorService = new ForkJoinPool(availableProcessors);
     }
 }
@@ -0,0 +1,244 @@
+package com.denisneagu.primenumberapi.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// segmented sieve of eratosthenes that splits [startAt, limit] recursively into cache sized chunks on a fork/join
+// pool, so idle workers steal halves of the remaining range instead of waiting on a few huge fixed segments
+public class ForkJoinSegmentedSieve {
+    // numbers per chunk, a boolean segment of this size stays in the L2 cache while every small prime crosses it off
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 18;
+    // keep a few runs of chunks per core so a slow run at the end doesn't leave the other cores idle
+    private static final int RUNS_PER_CORE = 4;
+
+    private final int chunkSize;
+
+    public ForkJoinSegmentedSieve() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public ForkJoinSegmentedSieve(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    // the engines share one executor, it's a fork/join pool in the application but any other executor falls back to
+    // the common pool
+    public static ForkJoinPool getForkJoinPool(ExecutorService executorService) {
+        return executorService instanceof ForkJoinPool forkJoinPool ? forkJoinPool : ForkJoinPool.commonPool();
+    }
+
+    // smallPrimes must hold every prime up to and including sqrt(limit), larger ones are skipped
+    public PrimeSequence getPrimeNumbers(ExecutorService executorService, int[] smallPrimes, long startAt, long limit) {
+        long start = Math.max(startAt, 2);
+        if (start > limit) {
+            return PrimeSequence.EMPTY;
+        }
+
+        ForkJoinPool forkJoinPool = getForkJoinPool(executorService);
+        int chunks = getChunks(start, limit);
+        int runChunks = getRunChunks(forkJoinPool, chunks);
+
+        // every chunk keeps its sieve packed as bits, an eighth of a byte per number, until the result is allocated
+        long[][] chunkBits = new long[chunks][];
+        long[] chunkCounts = new long[chunks];
+        forkJoinPool.invoke(new ChunkAction(0, chunks, runChunks, (low, high) -> {
+            ChunkSieve chunkSieve = new ChunkSieve(smallPrimes, start, limit, low, high);
+            for (int chunk = low; chunk < high; chunk++) {
+                chunkBits[chunk] = getChunkBits(chunkSieve, start, limit, chunk);
+                chunkCounts[chunk] = countBits(chunkBits[chunk]);
+            }
+        }));
+
+        // prefix sums of the chunk counts give every chunk its offset, so the chunks write their primes straight into
+        // the exactly sized result in parallel
+        long[] offsets = new long[chunks];
+        long count = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            offsets[chunk] = count;
+            count += chunkCounts[chunk];
+        }
+
+        PrimeSequence allPrimes = PrimeSequence.allocate(count, limit);
+        forkJoinPool.invoke(new ChunkAction(0, chunks, runChunks, (low, high) -> {
+            for (int chunk = low; chunk < high; chunk++) {
+                writePrimes(chunkBits[chunk], start + (long) chunk * chunkSize, allPrimes, offsets[chunk]);
+                chunkBits[chunk] = null;
+            }
+        }));
+        return allPrimes;
+    }
+
+    // smallPrimes must hold every prime up to and including sqrt(limit), larger ones are skipped
+    public long countPrimeNumbers(ExecutorService executorService, int[] smallPrimes, long startAt, long limit) {
+        long start = Math.max(startAt, 2);
+        if (start > limit) {
+            return 0;
+        }
+
+        ForkJoinPool forkJoinPool = getForkJoinPool(executorService);
+        int chunks = getChunks(start, limit);
+
+        long[] chunkCounts = new long[chunks];
+        forkJoinPool.invoke(new ChunkAction(0, chunks, getRunChunks(forkJoinPool, chunks), (low, high) -> {
+            ChunkSieve chunkSieve = new ChunkSieve(smallPrimes, start, limit, low, high);
+            for (int chunk = low; chunk < high; chunk++) {
+                chunkCounts[chunk] = countPrimeNumbersInChunk(chunkSieve, start, limit, chunk);
+            }
+        }));
+
+        long count = 0;
+        for (long chunkCount : chunkCounts) {
+            count += chunkCount;
+        }
+        return count;
+    }
+
+    private int getChunks(long start, long limit) {
+        long chunks = (limit - start) / chunkSize + 1;
+        if (chunks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Range is too large for the number of chunks");
+        }
+        return (int) chunks;
+    }
+
+    // chunks sieved in order by one task, the next multiples of the small primes carry over from chunk to chunk so
+    // only the first chunk of a run divides by every one of them
+    private static int getRunChunks(ForkJoinPool forkJoinPool, int chunks) {
+        long runs = (long) forkJoinPool.getParallelism() * RUNS_PER_CORE;
+        return (int) Math.max(1, (chunks + runs - 1) / runs);
+    }
+
+    // bit i of the chunk holds chunkStart + i
+    private long[] getChunkBits(ChunkSieve chunkSieve, long start, long limit, int chunk) {
+        long chunkStart = start + (long) chunk * chunkSize;
+        int length = (int) (Math.min(chunkStart + chunkSize - 1, limit) - chunkStart + 1);
+        boolean[] segment = chunkSieve.sieveNextChunk(chunkStart, length);
+
+        long[] bits = new long[(length + 63) >>> 6];
+        for (int i = 0; i < length; i++) {
+            if (segment[i]) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    private static long countBits(long[] bits) {
+        long count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static void writePrimes(long[] bits, long chunkStart, PrimeSequence primes, long offset) {
+        for (int i = 0; i < bits.length; i++) {
+            long word = bits[i];
+            // visit set bits only, lowest first
+            while (word != 0) {
+                primes.set(offset++, chunkStart + ((long) i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    private long countPrimeNumbersInChunk(ChunkSieve chunkSieve, long start, long limit, int chunk) {
+        long chunkStart = start + (long) chunk * chunkSize;
+        int length = (int) (Math.min(chunkStart + chunkSize - 1, limit) - chunkStart + 1);
+        boolean[] segment = chunkSieve.sieveNextChunk(chunkStart, length);
+
+        long count = 0;
+        for (int i = 0; i < length; i++) {
+            if (segment[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // sieves the chunks [low, high) of one run in order. the first multiple of every small prime is found once per
+    // run, after that each prime continues from where it left the previous chunk instead of dividing again. the run
+    // reuses one segment for its chunks, it's dropped with the run so no thread keeps one, including the request
+    // threads that help the pool while they wait
+    private final class ChunkSieve {
+        private final int[] sievingPrimes;
+        private final long[] nextMultiples;
+        private final boolean[] segment;
+
+        private ChunkSieve(int[] smallPrimes, long start, long limit, int low, int high) {
+            long runStart = start + (long) low * chunkSize;
+            long runEnd = Math.min(start + (long) high * chunkSize - 1, limit);
+
+            // the small primes are sorted, no prime past the last one has a square in the run
+            int last = 0;
+            while (last < smallPrimes.length && (long) smallPrimes[last] * smallPrimes[last] <= runEnd) {
+                last++;
+            }
+            this.segment = new boolean[(int) Math.min(chunkSize, runEnd - runStart + 1)];
+            this.sievingPrimes = Arrays.copyOf(smallPrimes, last);
+            this.nextMultiples = new long[last];
+            for (int i = 0; i < last; i++) {
+                int p = sievingPrimes[i];
+                // first multiple of p in the run, smaller multiples of p have been marked by smaller primes
+                nextMultiples[i] = Math.max((long) p * p, ((runStart + p - 1) / p) * p);
+            }
+        }
+
+        // segment[i] holds chunkStart + i, only the first length entries of the reused segment are valid. chunks
+        // must be asked for in order
+        private boolean[] sieveNextChunk(long chunkStart, int length) {
+            Arrays.fill(segment, 0, length, true);
+
+            long chunkEnd = chunkStart + length - 1;
+            for (int i = 0; i < sievingPrimes.length; i++) {
+                int p = sievingPrimes[i];
+                // no larger prime has a square in the chunk, their next multiples are still ahead
+                if ((long) p * p > chunkEnd) {
+                    break;
+                }
+                long j = nextMultiples[i];
+                for (; j <= chunkEnd; j += p) {
+                    segment[(int) (j - chunkStart)] = false;
+                }
+                nextMultiples[i] = j;
+            }
+            return segment;
+        }
+    }
+
+    // receives a run of consecutive chunk indices [low, high)
+    @FunctionalInterface
+    private interface ChunkRunConsumer {
+        void accept(int low, int high);
+    }
+
+    // splits the chunk indices [low, high) in halves until a run of at most runChunks is left, forked halves are
+    // stolen by idle workers and the pool interleaves the runs of concurrent requests
+    private static final class ChunkAction extends RecursiveAction {
+        private final int low;
+        private final int high;
+        private final int runChunks;
+        private final ChunkRunConsumer runConsumer;
+
+        private ChunkAction(int low, int high, int runChunks, ChunkRunConsumer runConsumer) {
+            this.low = low;
+            this.high = high;
+            this.runChunks = runChunks;
+            this.runConsumer = runConsumer;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low <= runChunks) {
+                runConsumer.accept(low, high);
+                return;
+            }
+
+            int mid = (low + high) >>> 1;
+            invokeAll(new ChunkAction(low, mid, runChunks, runConsumer),
+                    new ChunkAction(mid, high, runChunks, runConsumer));
+        }
+    }
+}
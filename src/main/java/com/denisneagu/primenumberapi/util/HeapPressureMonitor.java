@@ -0,0 +1,99 @@
+package com.denisneagu.primenumberapi.util;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+// watches the old generation, the heap pools that support both a usage and a collection usage threshold. the
+// collection usage is what is still live right after a collection, so a threshold on it fires on live data crossing
+// the watermark and not on garbage waiting to be collected. onPressure is called on the notification thread with the
+// number of bytes the pool is above its threshold
+public class HeapPressureMonitor implements Closeable {
+    private final List<MemoryPoolMXBean> pools;
+    // thresholds are global to the pool, the previous ones are put back on close
+    private final long[] previousThresholds;
+    private final NotificationEmitter emitter;
+    private final NotificationListener listener;
+
+    // highWatermark is the fraction of the maximum size of each pool, in (0, 1]
+    public HeapPressureMonitor(double highWatermark, LongConsumer onPressure) {
+        if (highWatermark <= 0 || highWatermark > 1) {
+            throw new IllegalArgumentException("High watermark must be in (0, 1]");
+        }
+
+        this.pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .filter(MemoryPoolMXBean::isUsageThresholdSupported)
+                .filter(MemoryPoolMXBean::isCollectionUsageThresholdSupported)
+                .toList();
+        this.previousThresholds = new long[pools.size()];
+        for (int i = 0; i < pools.size(); i++) {
+            previousThresholds[i] = pools.get(i).getCollectionUsageThreshold();
+            pools.get(i).setCollectionUsageThreshold(Math.max((long) (getMaxSize(pools.get(i)) * highWatermark), 1));
+        }
+
+        this.emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+        this.listener = (notification, handback) -> handleNotification(notification, onPressure);
+        emitter.addNotificationListener(listener, null, null);
+    }
+
+    private void handleNotification(Notification notification, LongConsumer onPressure) {
+        if (!MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+            return;
+        }
+
+        MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+        for (MemoryPoolMXBean pool : pools) {
+            if (pool.getName().equals(info.getPoolName())) {
+                onPressure.accept(Math.max(info.getUsage().getUsed() - pool.getCollectionUsageThreshold(), 0));
+                return;
+            }
+        }
+    }
+
+    // the pool may not define a maximum, the heap maximum bounds it then
+    private static long getMaxSize(MemoryPoolMXBean pool) {
+        long max = pool.getUsage().getMax();
+        return max > 0 ? max : Runtime.getRuntime().maxMemory();
+    }
+
+    public boolean isMonitoring() {
+        return !pools.isEmpty();
+    }
+
+    // bytes the live data can still grow by before the first pool crosses its watermark, Long.MAX_VALUE when no pool
+    // is watched
+    public long getHeadroom() {
+        long headroom = Long.MAX_VALUE;
+        for (MemoryPoolMXBean pool : pools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage == null) {
+                usage = pool.getUsage();
+            }
+            headroom = Math.min(headroom, Math.max(pool.getCollectionUsageThreshold() - usage.getUsed(), 0));
+        }
+        return headroom;
+    }
+
+    @Override
+    public void close() {
+        try {
+            emitter.removeNotificationListener(listener);
+        } catch (ListenerNotFoundException ex) {
+            // already removed
+        }
+        for (int i = 0; i < pools.size(); i++) {
+            pools.get(i).setCollectionUsageThreshold(previousThresholds[i]);
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package com.denisneagu.primenumberapi.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+// counts the primes up to x without listing them, by the lagarias-miller-odlyzko method in about O(x^(2/3)) time.
+// the tables and the sieve segments take O(x^(1/3)) memory, but P2 walks the primes up to sqrt(x) from the top, so
+// they're held as an int array of O(sqrt(x) / log(x)) entries, about 23 MB at x = 10^16. x stays below 2^62 so that
+// every one of them fits an int. with y >= x^(1/3) and a = pi(y):
+//   pi(x) = phi(x, a) + a - 1 - P2(x, a)
+// where phi(x, a) counts the numbers <= x with no prime factor among the first a primes and P2(x, a) counts the
+// products of two primes > y that are <= x. phi(x, a) is split into ordinary leaves, answered by formula, and
+// special leaves, answered while sieving [1, x / y] in segments.
+public class LagariasMillerOdlyzko {
+    // phi(z, c) for the first c primes repeats with the period of their product, so it's read from one period
+    private static final int[] TINY_PRIMES = {2, 3, 5, 7, 11, 13};
+    // below this a plain sieve is simpler than setting up the leaves
+    private static final long MIN_LIMIT = 1_000;
+    private static final int MIN_SEGMENT_BITS = 1 << 12;
+    private static final int MAX_SEGMENT_BITS = 1 << 21;
+    // the special leaves crowd into the first segments, so more chunks than cores keeps the pool busy
+    private static final int CHUNKS_PER_CORE = 8;
+
+    private final SegmentedWheelSieve segmentedWheelSieve;
+
+    public LagariasMillerOdlyzko() {
+        this(new SegmentedWheelSieve());
+    }
+
+    public LagariasMillerOdlyzko(SegmentedWheelSieve segmentedWheelSieve) {
+        this.segmentedWheelSieve = segmentedWheelSieve;
+    }
+
+    public long countPrimeNumbers(ExecutorService executorService, long x) {
+        if (x < 2) {
+            return 0;
+        }
+        if (x < MIN_LIMIT) {
+            return countPrimeNumbersUsingSieve((int) x);
+        }
+        if (x >= 1L << 62) {
+            throw new IllegalArgumentException(Constant.LIMIT_TOO_LARGE_MESSAGE);
+        }
+
+        long sqrtX = floorSqrt(x);
+        int y = getY(x, sqrtX);
+        // primes[b] is the b-th prime, primes[0] is unused so the indices match the formulas
+        int[] primes = getPrimes(executorService, sqrtX);
+        Tables tables = new Tables(y, primes);
+        int a = tables.pi[y];
+        int c = Math.min(a, TINY_PRIMES.length);
+        TinyPhi tinyPhi = new TinyPhi(c);
+
+        long phi = getOrdinaryLeaves(x, y, c, primes, tables, tinyPhi)
+                + getSpecialLeaves(executorService, x, y, a, c, primes, tables);
+
+        return phi + a - 1 - getP2(executorService, x, y, a, sqrtX, primes);
+    }
+
+    // y = alpha * x^(1/3), a larger alpha moves work from sieving [1, x / y] to the special leaves
+    private int getY(long x, long sqrtX) {
+        long cbrtX = floorCbrt(x);
+        double alpha = Math.max(1.0, Math.log(x) / 10);
+        return (int) Math.min(Math.max((long) (alpha * cbrtX), cbrtX), sqrtX);
+    }
+
+    // lpf, moebius and pi up to y, lpf(1) is taken as infinite so 1 passes every lpf(n) > p test
+    private static final class Tables {
+        private final int[] lpf;
+        private final byte[] mu;
+        private final int[] pi;
+
+        private Tables(int y, int[] primes) {
+            lpf = new int[y + 1];
+            mu = new byte[y + 1];
+            pi = new int[y + 1];
+            Arrays.fill(mu, (byte) 1);
+            lpf[1] = Integer.MAX_VALUE;
+
+            for (int b = 1; b < primes.length && primes[b] <= y; b++) {
+                int p = primes[b];
+                for (int j = p; j <= y; j += p) {
+                    if (lpf[j] == 0) {
+                        lpf[j] = p;
+                    }
+                    mu[j] = (byte) -mu[j];
+                }
+                for (long j = (long) p * p; j <= y; j += (long) p * p) {
+                    mu[(int) j] = 0;
+                }
+            }
+
+            for (int n = 2, b = 1; n <= y; n++) {
+                pi[n] = pi[n - 1];
+                if (b < primes.length && primes[b] == n) {
+                    pi[n]++;
+                    b++;
+                }
+            }
+        }
+    }
+
+    private static final class TinyPhi {
+        private final long primorial;
+        private final int[] counts;
+
+        private TinyPhi(int c) {
+            int product = 1;
+            for (int i = 0; i < c; i++) {
+                product *= TINY_PRIMES[i];
+            }
+            primorial = product;
+            // counts[r] = numbers in [1, r] coprime to the first c primes
+            counts = new int[product + 1];
+            for (int r = 1; r <= product; r++) {
+                boolean coprime = true;
+                for (int i = 0; i < c && coprime; i++) {
+                    coprime = r % TINY_PRIMES[i] != 0;
+                }
+                counts[r] = counts[r - 1] + (coprime ? 1 : 0);
+            }
+        }
+
+        private long phi(long z) {
+            return (z / primorial) * counts[(int) primorial] + counts[(int) (z % primorial)];
+        }
+    }
+
+    // sum of mu(n) * phi(x / n, c) over n <= y with no prime factor among the first c primes
+    private long getOrdinaryLeaves(long x, int y, int c, int[] primes, Tables tables, TinyPhi tinyPhi) {
+        int pc = c == 0 ? 1 : primes[c];
+        long sum = 0;
+        for (int n = 1; n <= y; n++) {
+            if (tables.mu[n] != 0 && tables.lpf[n] > pc) {
+                sum += tables.mu[n] * tinyPhi.phi(x / n);
+            }
+        }
+        return sum;
+    }
+
+    // sum of -mu(m) * phi(x / (p_b * m), b - 1) over c < b < a and y / p_b < m <= y with lpf(m) > p_b.
+    // x / (p_b * m) is below x / y, so [1, x / y] is sieved in order, crossing off the b-th prime after the leaves
+    // of b have been read. every chunk of segments is sieved by its own task, counting phi from the start of the
+    // chunk, and the chunks are stitched together in order.
+    private long getSpecialLeaves(ExecutorService executorService,
+                                  long x,
+                                  int y,
+                                  int a,
+                                  int c,
+                                  int[] primes,
+                                  Tables tables) {
+        if (c + 1 >= a) {
+            return 0;
+        }
+
+        long limit = x / y + 1;
+        int segmentBits = getSegmentBits(limit);
+        long segments = (limit - 1 + segmentBits - 1) / segmentBits;
+        long chunks = Math.min(segments, (long) Runtime.getRuntime().availableProcessors() * CHUNKS_PER_CORE);
+        long chunkBits = (segments + chunks - 1) / chunks * segmentBits;
+
+        List<CompletableFuture<SpecialLeaves>> futures = new ArrayList<>();
+        for (long chunkLow = 1; chunkLow < limit; chunkLow += chunkBits) {
+            long low = chunkLow;
+            long high = Math.min(chunkLow + chunkBits, limit);
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> new SpecialLeaves(x, y, a, c, primes, tables, segmentBits).sieve(low, high),
+                    executorService));
+        }
+
+        long sum = 0;
+        long[] phi = new long[a];
+        for (CompletableFuture<SpecialLeaves> future : futures) {
+            SpecialLeaves leaves = future.join();
+            sum += leaves.sum;
+            for (int b = c + 1; b < a; b++) {
+                sum += leaves.muSum[b] * phi[b];
+                phi[b] += leaves.phi[b];
+            }
+        }
+        return sum;
+    }
+
+    // a power of 2 close to sqrt(x / y), within a cache friendly range
+    private int getSegmentBits(long limit) {
+        long sqrtLimit = floorSqrt(limit);
+        int bits = Integer.highestOneBit((int) Math.min(sqrtLimit, MAX_SEGMENT_BITS));
+        return Math.max(bits, MIN_SEGMENT_BITS);
+    }
+
+    private static final class SpecialLeaves {
+        private final long x;
+        private final int y;
+        private final int a;
+        private final int c;
+        private final int[] primes;
+        private final Tables tables;
+        private final long[] words;
+
+        // leaf sum using the counts of the chunk only, muSum[b] is the sum of -mu over the leaves of b and phi[b]
+        // the numbers of the chunk left after sieving the first b - 1 primes, so earlier chunks add muSum * phi
+        private long sum = 0;
+        private final long[] muSum;
+        private final long[] phi;
+        // next multiple of every prime, odd multiples only for odd primes since 2 removes the even ones
+        private final long[] next;
+
+        // bits [0, countedBits) of the segment hold countedSum unsieved numbers
+        private int countedBits;
+        private long countedSum;
+
+        private SpecialLeaves(long x, int y, int a, int c, int[] primes, Tables tables, int segmentBits) {
+            this.x = x;
+            this.y = y;
+            this.a = a;
+            this.c = c;
+            this.primes = primes;
+            this.tables = tables;
+            this.words = new long[segmentBits / Long.SIZE];
+            this.muSum = new long[a];
+            this.phi = new long[a];
+            this.next = new long[a];
+        }
+
+        private SpecialLeaves sieve(long chunkLow, long chunkHigh) {
+            for (int b = 1; b < a; b++) {
+                long p = primes[b];
+                long multiple = (chunkLow + p - 1) / p * p;
+                if (p != 2 && (multiple & 1) == 0) {
+                    multiple += p;
+                }
+                next[b] = multiple;
+            }
+
+            int segmentBits = words.length * Long.SIZE;
+            for (long low = chunkLow; low < chunkHigh; low += segmentBits) {
+                long high = Math.min(low + segmentBits, chunkHigh);
+                sieveSegment(low, high);
+            }
+            return this;
+        }
+
+        // bit i of the segment represents low + i, set while it has no prime factor among the primes crossed off
+        private void sieveSegment(long low, long high) {
+            int bits = (int) (high - low);
+            Arrays.fill(words, -1L);
+            if ((bits & 63) != 0) {
+                words[bits >>> 6] = (1L << bits) - 1;
+                Arrays.fill(words, (bits >>> 6) + 1, words.length, 0L);
+            }
+            long count = bits;
+
+            for (int b = 1; b <= c; b++) {
+                count -= crossOff(b, low, high);
+            }
+
+            for (int b = c + 1; b < a; b++) {
+                long p = primes[b];
+                long minM = Math.max(x / (p * high), y / p);
+                long maxM = Math.min(x / (p * low), y);
+                // maxM only shrinks as b and low grow, so neither this prime nor any later one has leaves left
+                if (p >= maxM) {
+                    return;
+                }
+
+                countedBits = 0;
+                countedSum = 0;
+                if (p * p > y) {
+                    // every m with lpf(m) > p is then a prime above p, as a composite one would be > p^2 > y
+                    for (int i = tables.pi[(int) maxM]; i > tables.pi[(int) Math.min(Math.max(minM, p), maxM)]; i--) {
+                        addLeaf(b, primes[i], -1, low);
+                    }
+                } else {
+                    for (long m = maxM; m > minM; m--) {
+                        if (tables.mu[(int) m] != 0 && tables.lpf[(int) m] > p) {
+                            addLeaf(b, m, tables.mu[(int) m], low);
+                        }
+                    }
+                }
+
+                phi[b] += count;
+                count -= crossOff(b, low, high);
+            }
+        }
+
+        // m is descending, so x / (p * m) ascends and the count of the segment is carried over from the last leaf
+        private void addLeaf(int b, long m, int mu, long low) {
+            long z = x / (primes[b] * m);
+            int toBit = (int) (z - low) + 1;
+            while (countedBits + Long.SIZE <= toBit) {
+                countedSum += Long.bitCount(words[countedBits >>> 6]);
+                countedBits += Long.SIZE;
+            }
+            long partial = toBit > countedBits
+                    ? Long.bitCount(words[countedBits >>> 6] & ((1L << (toBit - countedBits)) - 1))
+                    : 0;
+            sum -= mu * (phi[b] + countedSum + partial);
+            muSum[b] -= mu;
+        }
+
+        // returns how many numbers were still set
+        private int crossOff(int b, long low, long high) {
+            long p = primes[b];
+            long step = p == 2 ? 2 : 2 * p;
+            int removed = 0;
+            long multiple = next[b];
+            for (; multiple < high; multiple += step) {
+                int bit = (int) (multiple - low);
+                long word = words[bit >>> 6];
+                removed += (int) ((word >>> bit) & 1);
+                words[bit >>> 6] = word & ~(1L << bit);
+            }
+            next[b] = multiple;
+            return removed;
+        }
+    }
+
+    // P2(x, a) = sum over y < p_b <= sqrt(x) of pi(x / p_b) - b + 1. x / p_b ascends as p_b descends, so
+    // (sqrt(x), x / y] is sieved in chunks with the wheel engine and every pi(x / p_b) read off as it's passed
+    private long getP2(ExecutorService executorService, long x, int y, int a, long sqrtX, int[] primes) {
+        long sum = 0;
+        int b = primes.length - 1;
+        long count = b;
+
+        while (b > a && x / primes[b] <= sqrtX) {
+            sum += count - b + 1;
+            b--;
+        }
+
+        long high = x / y;
+        long chunkSize = 30L * AbstractSegmentedWheelSieve.DEFAULT_SEGMENT_BYTES
+                * Runtime.getRuntime().availableProcessors();
+        int[] sievingPrimes = Arrays.copyOfRange(primes, 1, primes.length);
+
+        for (long chunkLow = sqrtX + 1; b > a && chunkLow <= high; chunkLow += chunkSize) {
+            long chunkHigh = Math.min(chunkLow + chunkSize - 1, high);
+            PrimeSequence chunkPrimes = segmentedWheelSieve.getPrimeNumbers(
+                    executorService, sievingPrimes, chunkLow, chunkHigh);
+
+            int index = 0;
+            while (b > a && x / primes[b] <= chunkHigh) {
+                long z = x / primes[b];
+                while (index < chunkPrimes.length() && chunkPrimes.get(index) <= z) {
+                    index++;
+                }
+                sum += count + index - b + 1;
+                b--;
+            }
+            count += chunkPrimes.length();
+        }
+        return sum;
+    }
+
+    // every prime up to sqrt(x), 1-indexed
+    private int[] getPrimes(ExecutorService executorService, long sqrtX) {
+        int[] sievingPrimes = BasePrimes.getPrimes((int) floorSqrt(sqrtX));
+        PrimeSequence found = segmentedWheelSieve.getPrimeNumbers(executorService, sievingPrimes, 2, sqrtX);
+        // x is below 2^62, so sqrt(x) and with it every prime and the count fit an int
+        int[] primes = new int[(int) found.length() + 1];
+        for (int i = 0; i < found.length(); i++) {
+            primes[i + 1] = (int) found.get(i);
+        }
+        return primes;
+    }
+
+    private static boolean[] getCompositeFlags(int n) {
+        boolean[] composite = new boolean[n + 1];
+        for (int p = 2; (long) p * p <= n; p++) {
+            if (!composite[p]) {
+                for (int j = p * p; j <= n; j += p) {
+                    composite[j] = true;
+                }
+            }
+        }
+        return composite;
+    }
+
+    private static int countPrimeNumbersUsingSieve(int n) {
+        boolean[] composite = getCompositeFlags(n);
+        int count = 0;
+        for (int i = 2; i <= n; i++) {
+            if (!composite[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long floorSqrt(long n) {
+        long r = (long) Math.sqrt(n);
+        while (r * r > n) {
+            r--;
+        }
+        while ((r + 1) * (r + 1) <= n) {
+            r++;
+        }
+        return r;
+    }
+
+    private static long floorCbrt(long n) {
+        long r = (long) Math.cbrt(n);
+        while (r * r * r > n) {
+            r--;
+        }
+        while ((r + 1) * (r + 1) * (r + 1) <= n) {
+            r++;
+        }
+        return r;
+    }
+}
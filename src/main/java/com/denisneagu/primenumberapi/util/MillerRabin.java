@@ -0,0 +1,139 @@
+package com.denisneagu.primenumberapi.util;
+
+// deterministic miller-rabin for every non-negative long. the 7 bases below (Jim Sinclair) have no strong
+// pseudoprime in common below 2^64, so a number passing all of them is prime.
+public class MillerRabin {
+    private static final long[] BASES = {2L, 325L, 9_375L, 28_178L, 450_775L, 9_780_504L, 1_795_265_022L};
+    private static final int[] SMALL_PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+    // below this a * b of two residues still fits in a signed long, so a plain % is overflow safe
+    private static final long MAX_PLAIN_MODULUS = 3_037_000_499L;
+
+    public static boolean isPrime(long n) {
+        if (n < 2) {
+            return false;
+        }
+
+        // trial division by a few small primes rejects most composites before any exponentiation
+        for (int p : SMALL_PRIMES) {
+            if (n == p) {
+                return true;
+            }
+            if (n % p == 0) {
+                return false;
+            }
+        }
+        if (n < 41L * 41L) {
+            return true;
+        }
+
+        // n - 1 = d * 2^s with d odd
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>= s;
+
+        return n < MAX_PLAIN_MODULUS
+                ? isStrongProbablePrimePlain(n, d, s)
+                : isStrongProbablePrimeMontgomery(n, d, s);
+    }
+
+    private static boolean isStrongProbablePrimePlain(long n, long d, int s) {
+        for (long base : BASES) {
+            long a = base % n;
+            if (a == 0) {
+                continue;
+            }
+
+            long x = 1;
+            for (long e = d; e > 0; e >>= 1) {
+                if ((e & 1) == 1) {
+                    x = x * a % n;
+                }
+                a = a * a % n;
+            }
+
+            if (x == 1 || x == n - 1) {
+                continue;
+            }
+            boolean composite = true;
+            for (int r = 1; r < s && composite; r++) {
+                x = x * x % n;
+                composite = x != n - 1;
+            }
+            if (composite) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // products above 2^63 are reduced with montgomery multiplication, a 128-bit product and a 64-bit reduction
+    // without any division, in place of BigInteger
+    private static boolean isStrongProbablePrimeMontgomery(long n, long d, int s) {
+        long nInverse = getInverseModuloTwoTo64(n);
+        // R = 2^64 mod n, the montgomery form of 1
+        long one = Long.remainderUnsigned(-1L, n) + 1;
+        if (one == n) {
+            one = 0;
+        }
+        long minusOne = n - one;
+        // R^2 mod n, multiplying by it moves a residue into montgomery form
+        long rSquared = one;
+        for (int i = 0; i < 64; i++) {
+            rSquared = addModulo(rSquared, rSquared, n);
+        }
+
+        for (long base : BASES) {
+            long a = base % n;
+            if (a == 0) {
+                continue;
+            }
+
+            long aMont = multiplyMontgomery(a, rSquared, n, nInverse);
+            long x = one;
+            for (long e = d; e > 0; e >>= 1) {
+                if ((e & 1) == 1) {
+                    x = multiplyMontgomery(x, aMont, n, nInverse);
+                }
+                aMont = multiplyMontgomery(aMont, aMont, n, nInverse);
+            }
+
+            if (x == one || x == minusOne) {
+                continue;
+            }
+            boolean composite = true;
+            for (int r = 1; r < s && composite; r++) {
+                x = multiplyMontgomery(x, x, n, nInverse);
+                composite = x != minusOne;
+            }
+            if (composite) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // (a + b) mod n for a, b < n < 2^63, a + b never overflows an unsigned long
+    private static long addModulo(long a, long b, long n) {
+        long sum = a + b;
+        return Long.compareUnsigned(sum, n) >= 0 ? sum - n : sum;
+    }
+
+    // n^-1 mod 2^64 for odd n by newton iteration, every step doubles the number of correct low bits
+    private static long getInverseModuloTwoTo64(long n) {
+        long inverse = n;
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - n * inverse;
+        }
+        return inverse;
+    }
+
+    // a * b / 2^64 mod n for a, b < n. with m = low(a * b) * n^-1 the low halves of a * b and m * n are equal, so
+    // the difference of the high halves is (a * b - m * n) / 2^64, which is congruent to a * b / 2^64 and in (-n, n)
+    private static long multiplyMontgomery(long a, long b, long n, long nInverse) {
+        long high = Math.multiplyHigh(a, b);
+        long m = a * b * nInverse;
+        long mnHigh = Math.multiplyHigh(m, n) + ((m >> 63) & n);
+        long result = high - mnHigh;
+        return result < 0 ? result + n : result;
+    }
+}
@@ -0,0 +1,114 @@
+package com.denisneagu.primenumberapi.util;
+
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.GZIPOutputStream;
+
+// binary representations of a prime listing for clients that don't need text, both little endian.
+//
+// RAW_INT64: every prime as a 64-bit integer and nothing else, so the body is 8 * count bytes.
+//
+// DELTA_VARINT: a header, then the gap of every prime to the one before it, the gap of the first prime is to 0.
+// gaps are unsigned varints, 7 bits per byte from the lowest up with the high bit set while more bytes follow, so
+// gaps below 128, which are most of them far beyond 10^12, take a single byte
+//   [0, 1)      encoding, 1
+//   [1, 9)      from
+//   [9, 17)     limit
+//   [17, 25)    count
+public class PrimeBinaryWriter {
+    public static final byte DELTA_VARINT_ENCODING = 1;
+    public static final int DELTA_VARINT_HEADER_BYTES = 25;
+    // primes are gathered into a buffer of this size and written in blocks
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    public static long getRawInt64SizeInBytes(PrimeSequence primes) {
+        return primes.length() * Long.BYTES;
+    }
+
+    // a pass over the gaps without writing them, the exact size of the body
+    public static long getDeltaVarintSizeInBytes(PrimeSequence primes) {
+        long size = DELTA_VARINT_HEADER_BYTES;
+        long previous = 0;
+        for (long i = 0; i < primes.length(); i++) {
+            long prime = primes.get(i);
+            // 7 bits per byte, a gap of 0 can't happen
+            size += (64 - Long.numberOfLeadingZeros(prime - previous) + 6) / 7;
+            previous = prime;
+        }
+        return size;
+    }
+
+    public static long getSizeInBytes(PrimeEncoding encoding, PrimeSequence primes) {
+        return switch (encoding) {
+            case RAW_INT64 -> getRawInt64SizeInBytes(primes);
+            case DELTA_VARINT -> getDeltaVarintSizeInBytes(primes);
+        };
+    }
+
+    public static void write(PrimeEncoding encoding,
+                             PrimeSequence primes,
+                             long from,
+                             long limit,
+                             OutputStream outputStream) throws IOException {
+        switch (encoding) {
+            case RAW_INT64 -> writeRawInt64(primes, outputStream);
+            case DELTA_VARINT -> writeDeltaVarint(primes, from, limit, outputStream);
+        }
+    }
+
+    // the gzip stream is finished rather than closed, the target belongs to the caller
+    public static void writeGzip(PrimeEncoding encoding,
+                                 PrimeSequence primes,
+                                 long from,
+                                 long limit,
+                                 OutputStream outputStream) throws IOException {
+        GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, BUFFER_BYTES);
+        write(encoding, primes, from, limit, gzipOutputStream);
+        gzipOutputStream.finish();
+    }
+
+    public static void writeRawInt64(PrimeSequence primes, OutputStream outputStream) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (long i = 0; i < primes.length(); i++) {
+            if (buffer.remaining() < Long.BYTES) {
+                flush(buffer, outputStream);
+            }
+            buffer.putLong(primes.get(i));
+        }
+        flush(buffer, outputStream);
+    }
+
+    public static void writeDeltaVarint(PrimeSequence primes,
+                                        long from,
+                                        long limit,
+                                        OutputStream outputStream) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(DELTA_VARINT_ENCODING).putLong(from).putLong(limit).putLong(primes.length());
+
+        long previous = 0;
+        for (long i = 0; i < primes.length(); i++) {
+            // a long varint takes at most 10 bytes
+            if (buffer.remaining() < 10) {
+                flush(buffer, outputStream);
+            }
+            long prime = primes.get(i);
+            long gap = prime - previous;
+            while ((gap & ~0x7FL) != 0) {
+                buffer.put((byte) ((gap & 0x7F) | 0x80));
+                gap >>>= 7;
+            }
+            buffer.put((byte) gap);
+            previous = prime;
+        }
+        flush(buffer, outputStream);
+    }
+
+    private static void flush(ByteBuffer buffer, OutputStream outputStream) throws IOException {
+        outputStream.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
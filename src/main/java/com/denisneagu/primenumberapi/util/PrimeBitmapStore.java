@@ -0,0 +1,276 @@
+package com.denisneagu.primenumberapi.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// file of fixed size, bit packed, odd only segments holding every prime up to getLimit(). bit i of the file is the
+// odd number 2i + 1, 2 is implied. the file starts with a header and an index of the number of primes per segment,
+// followed by the segments. segments are only ever appended, and they're read through memory mapped buffers so a
+// stored range costs page cache instead of heap.
+//
+// layout (little endian):
+//   [0, 8)      magic
+//   [8, 12)     version
+//   [12, 16)    bits per segment
+//   [16, 20)    number of committed segments
+//   [64, 64 + 8 * MAX_SEGMENTS)    primes per segment
+//   [DATA_OFFSET, ...)             segments
+public class PrimeBitmapStore implements Closeable {
+    public static final int DEFAULT_SEGMENT_BITS = 1 << 23;
+    public static final int MAX_SEGMENTS = 4096;
+    private static final long MAGIC = 0x45524f5453524d50L;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final long DATA_OFFSET = HEADER_BYTES + 8L * MAX_SEGMENTS;
+    private static final int SEGMENT_COUNT_POSITION = 16;
+
+    private final FileChannel channel;
+    private final int segmentBits;
+    private final int segmentBytes;
+    private final long[] segmentPrimeCounts = new long[MAX_SEGMENTS];
+    // segments are mapped on first read and never change once committed
+    private final AtomicReferenceArray<MappedByteBuffer> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+    private volatile int segmentCount;
+
+    public PrimeBitmapStore(Path path) throws IOException {
+        this(path, DEFAULT_SEGMENT_BITS);
+    }
+
+    // segmentBits must be a positive multiple of 64
+    public PrimeBitmapStore(Path path, int segmentBits) throws IOException {
+        if (segmentBits <= 0 || segmentBits % 64 != 0) {
+            throw new IllegalArgumentException("Segment bits must be a positive multiple of 64");
+        }
+
+        this.segmentBits = segmentBits;
+        this.segmentBytes = segmentBits / 8;
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        if (!readHeader()) {
+            // new file or written with another layout, start over
+            channel.truncate(0);
+            writeHeader(0);
+            channel.force(true);
+        }
+    }
+
+    private boolean readHeader() throws IOException {
+        if (channel.size() < DATA_OFFSET) {
+            return false;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate((int) DATA_OFFSET).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, 0);
+        header.flip();
+
+        if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION || header.getInt(12) != segmentBits) {
+            return false;
+        }
+
+        int committedSegments = header.getInt(SEGMENT_COUNT_POSITION);
+        // segments past the end of the file were never fully written
+        long writtenSegments = (channel.size() - DATA_OFFSET) / segmentBytes;
+        int count = (int) Math.min(Math.min(committedSegments, writtenSegments), MAX_SEGMENTS);
+        for (int segment = 0; segment < count; segment++) {
+            segmentPrimeCounts[segment] = header.getLong(HEADER_BYTES + segment * 8);
+        }
+        segmentCount = count;
+        return true;
+    }
+
+    private void writeHeader(int committedSegments) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(MAGIC).putInt(VERSION).putInt(segmentBits).putInt(committedSegments);
+        header.rewind();
+        writeFully(header, 0);
+
+        ByteBuffer index = ByteBuffer.allocate(8 * MAX_SEGMENTS).order(ByteOrder.LITTLE_ENDIAN);
+        writeFully(index, HEADER_BYTES);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    // every number up to and including the limit is stored, 0 when nothing is
+    public long getLimit() {
+        return getLimit(segmentCount);
+    }
+
+    private long getLimit(int segments) {
+        return segments == 0 ? 0 : 2L * segments * segmentBits - 1;
+    }
+
+    public long countPrimeNumbers(long from, long limit) {
+        checkRange(from, limit);
+        long count = from <= 2 && limit >= 2 ? 1 : 0;
+
+        // bit i holds 2i + 1, so [from, limit] covers bits [max(from, 3) / 2, (limit - 1) / 2]
+        long lowBit = Math.max(from, 3) / 2;
+        long highBit = (limit - 1) / 2;
+        for (long bit = lowBit; bit <= highBit; ) {
+            int segment = (int) (bit / segmentBits);
+            long segmentLowBit = (long) segment * segmentBits;
+            long segmentHighBit = Math.min(highBit, segmentLowBit + segmentBits - 1);
+
+            if (bit == segmentLowBit && segmentHighBit == segmentLowBit + segmentBits - 1) {
+                // whole segments are answered by the index
+                count += segmentPrimeCounts[segment];
+            } else {
+                count += countBits(getSegment(segment), bit - segmentLowBit, segmentHighBit - segmentLowBit);
+            }
+            bit = segmentHighBit + 1;
+        }
+        return count;
+    }
+
+    public PrimeSequence getPrimeNumbers(long from, long limit) {
+        // the index counts whole segments, so the result is sized exactly before a single bit is decoded
+        PrimeSequence primes = PrimeSequence.allocate(countPrimeNumbers(from, limit), limit);
+        long index = 0;
+        if (from <= 2 && limit >= 2) {
+            primes.set(index++, 2);
+        }
+
+        long lowBit = Math.max(from, 3) / 2;
+        long highBit = (limit - 1) / 2;
+        for (long bit = lowBit; bit <= highBit; ) {
+            int segment = (int) (bit / segmentBits);
+            long segmentLowBit = (long) segment * segmentBits;
+            long segmentHighBit = Math.min(highBit, segmentLowBit + segmentBits - 1);
+            ByteBuffer buffer = getSegment(segment);
+
+            long fromBit = bit - segmentLowBit;
+            long toBit = segmentHighBit - segmentLowBit;
+            for (long word = fromBit >>> 6; word <= toBit >>> 6; word++) {
+                long bits = buffer.getLong((int) (word * 8)) & getWordMask(word, fromBit, toBit);
+                while (bits != 0) {
+                    long numberBit = segmentLowBit + word * 64 + Long.numberOfTrailingZeros(bits);
+                    primes.set(index++, 2 * numberBit + 1);
+                    bits &= bits - 1;
+                }
+            }
+            bit = segmentHighBit + 1;
+        }
+        return primes;
+    }
+
+    // primes must hold every prime in [2, limit], only whole segments beyond the stored limit are appended
+    public synchronized void append(CompressedPrimeSequence primes, long limit) throws IOException {
+        int segment = segmentCount;
+        ByteBuffer buffer = ByteBuffer.allocate(segmentBytes).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer index = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (segment < MAX_SEGMENTS && getLimit(segment + 1) <= limit) {
+            long segmentLow = 2L * segment * segmentBits + 1;
+            long segmentHigh = getLimit(segment + 1);
+            long segmentLowBit = (long) segment * segmentBits;
+
+            Arrays.fill(buffer.array(), (byte) 0);
+            long count = 0;
+            int fromIndex = primes.lowerBound(Math.max(segmentLow, 3));
+            int toIndex = primes.lowerBound(segmentHigh + 1);
+            PrimeSequence segmentPrimes = primes.toArray(fromIndex, toIndex);
+            for (int i = 0; i < segmentPrimes.length(); i++) {
+                long bit = segmentPrimes.get(i) / 2 - segmentLowBit;
+                int byteIndex = (int) (bit >>> 3);
+                buffer.put(byteIndex, (byte) (buffer.get(byteIndex) | (1 << (bit & 7))));
+                count++;
+            }
+
+            buffer.rewind();
+            writeFully(buffer, DATA_OFFSET + (long) segment * segmentBytes);
+            index.clear();
+            index.putLong(count).rewind();
+            writeFully(index, HEADER_BYTES + segment * 8L);
+            segmentPrimeCounts[segment] = count;
+            segment++;
+        }
+
+        if (segment == segmentCount) {
+            return;
+        }
+
+        // the segments and their index entries are flushed before the header commits them
+        channel.force(false);
+        ByteBuffer committed = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, segment);
+        writeFully(committed, SEGMENT_COUNT_POSITION);
+        channel.force(false);
+        segmentCount = segment;
+    }
+
+    private ByteBuffer getSegment(int segment) {
+        MappedByteBuffer buffer = segments.get(segment);
+        if (buffer == null) {
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, DATA_OFFSET + (long) segment * segmentBytes, segmentBytes);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Prime store segment " + segment + " can't be mapped", ex);
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            segments.compareAndSet(segment, null, buffer);
+            buffer = segments.get(segment);
+        }
+        return buffer;
+    }
+
+    private static long countBits(ByteBuffer buffer, long fromBit, long toBit) {
+        long count = 0;
+        for (long word = fromBit >>> 6; word <= toBit >>> 6; word++) {
+            count += Long.bitCount(buffer.getLong((int) (word * 8)) & getWordMask(word, fromBit, toBit));
+        }
+        return count;
+    }
+
+    // bits of the word that fall in [fromBit, toBit]
+    private static long getWordMask(long word, long fromBit, long toBit) {
+        long mask = -1L;
+        if (word == fromBit >>> 6) {
+            mask &= -1L << (fromBit & 63);
+        }
+        if (word == toBit >>> 6) {
+            mask &= -1L >>> (63 - (toBit & 63));
+        }
+        return mask;
+    }
+
+    private void checkRange(long from, long limit) {
+        if (from > limit) {
+            throw new IllegalArgumentException(Constant.FROM_GREATER_THAN_LIMIT_MESSAGE);
+        }
+        if (limit > getLimit()) {
+            throw new IllegalArgumentException("Range isn't covered by the prime store, it ends at " + getLimit());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,86 @@
+package com.denisneagu.primenumberapi.util;
+
+import com.denisneagu.primenumberapi.enums.Algorithm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+// a "prime" header line and one prime per line. the trailer is a comment line starting with #, which csv readers
+// can be told to skip, holding the fields of a PrimeNumberResponse besides the primes as name=value pairs. digits
+// are written straight into a byte buffer that goes out whenever it fills and at the end of every segment
+public class PrimeCsvStreamWriter implements PrimeStreamWriter {
+    private static final int BUFFER_BYTES = 1 << 16;
+    // 19 digits of a long and the line break
+    private static final int MAX_LINE_BYTES = 20;
+
+    private final OutputStream outputStream;
+    private final Algorithm algorithm;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private int position;
+
+    public PrimeCsvStreamWriter(OutputStream outputStream, Algorithm algorithm) throws IOException {
+        this.outputStream = outputStream;
+        this.algorithm = algorithm;
+        writeLine("prime");
+    }
+
+    @Override
+    public void accept(long[] primes, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            if (BUFFER_BYTES - position < MAX_LINE_BYTES) {
+                writeBuffer();
+            }
+            writeDigits(primes[i]);
+            buffer[position++] = '\n';
+        }
+        writeBuffer();
+        outputStream.flush();
+    }
+
+    @Override
+    public void writeSummary(long numOfPrimes, long execTimeInNs, long execTimeInMs) throws IOException {
+        writeLine("# algorithm=" + algorithm.name()
+                + ",cache=false"
+                + ",numOfPrimes=" + numOfPrimes
+                + ",execTimeInNs=" + execTimeInNs
+                + ",execTimeInMs=" + execTimeInMs
+                + ",timestamp=" + LocalDateTime.now());
+        writeBuffer();
+        outputStream.flush();
+    }
+
+    // the stream belongs to the caller, only what's still buffered is written
+    @Override
+    public void close() throws IOException {
+        writeBuffer();
+    }
+
+    // primes are positive, the digits go in from the lowest and are turned around
+    private void writeDigits(long value) {
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+
+    private void writeLine(String line) throws IOException {
+        writeBuffer();
+        outputStream.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void writeBuffer() throws IOException {
+        if (position > 0) {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.denisneagu.primenumberapi.util;
+
+import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+// writes the fields of a PrimeNumberResponse while the primes are still being sieved. the primes go out segment by
+// segment and are flushed after each one, the count and the execution time are only known at the end so they follow
+// the primes. the body reads back as a PrimeNumberResponse, json doesn't care about the order of the fields
+public class PrimeJsonStreamWriter implements PrimeStreamWriter {
+    // the target belongs to the caller, and a stream cut short by an error must not be closed into valid json
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .disable(StreamWriteFeature.AUTO_CLOSE_CONTENT)
+            .build();
+
+    private final JsonGenerator generator;
+
+    public PrimeJsonStreamWriter(OutputStream outputStream, Algorithm algorithm) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(outputStream);
+        generator.writeStartObject();
+        generator.writeStringField("algorithm", algorithm.name());
+        generator.writeBooleanField("cache", false);
+        generator.writeArrayFieldStart("primes");
+    }
+
+    @Override
+    public void accept(long[] primes, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            generator.writeNumber(primes[i]);
+        }
+        // hands the segment to the connection, a slow reader blocks the write and with it the sieve
+        generator.flush();
+    }
+
+    @Override
+    public void writeSummary(long numOfPrimes, long execTimeInNs, long execTimeInMs) throws IOException {
+        generator.writeEndArray();
+        generator.writeNumberField("numOfPrimes", numOfPrimes);
+        generator.writeNumberField("execTimeInNs", execTimeInNs);
+        generator.writeNumberField("execTimeInMs", execTimeInMs);
+        generator.writeStringField("timestamp", LocalDateTime.now().toString());
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,61 @@
+package com.denisneagu.primenumberapi.util;
+
+import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+// one json object per line, {"prime":2}, and a trailer object with the fields of a PrimeNumberResponse besides the
+// primes as the last line. the generator writes its buffer out whenever it fills, so lines leave in fixed-size
+// batches, and the rest of a segment is flushed once it's written
+public class PrimeNdjsonStreamWriter implements PrimeStreamWriter {
+    // the target belongs to the caller
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .disable(StreamWriteFeature.AUTO_CLOSE_CONTENT)
+            .build();
+
+    private final JsonGenerator generator;
+    private final Algorithm algorithm;
+
+    public PrimeNdjsonStreamWriter(OutputStream outputStream, Algorithm algorithm) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(outputStream);
+        // lines are ended by hand, the default separator between root values is a space
+        this.generator.setRootValueSeparator(null);
+        this.algorithm = algorithm;
+    }
+
+    @Override
+    public void accept(long[] primes, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            generator.writeStartObject();
+            generator.writeNumberField("prime", primes[i]);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    @Override
+    public void writeSummary(long numOfPrimes, long execTimeInNs, long execTimeInMs) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("algorithm", algorithm.name());
+        generator.writeBooleanField("cache", false);
+        generator.writeNumberField("numOfPrimes", numOfPrimes);
+        generator.writeNumberField("execTimeInNs", execTimeInNs);
+        generator.writeNumberField("execTimeInMs", execTimeInMs);
+        generator.writeStringField("timestamp", LocalDateTime.now().toString());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
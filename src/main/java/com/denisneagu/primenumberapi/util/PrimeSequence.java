@@ -0,0 +1,327 @@
+package com.denisneagu.primenumberapi.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.util.Arrays;
+
+// sorted primes kept in fixed size pages of PAGE_SIZE entries, only the last page may be shorter. pages are int[] when
+// every prime fits in an int and long[] otherwise, most requests stay below 2^31 where the int pages halve the memory
+// and the bandwidth of building and serializing the primes. paging lifts the Integer max value ceiling of a single
+// array and lets engines allocate the exact result up front and write into it in place, without a final copy.
+// a sequence is filled once by the engine that allocates it and is only read afterwards
+@JsonSerialize(using = PrimeSequence.Serializer.class)
+@JsonDeserialize(using = PrimeSequence.Deserializer.class)
+public final class PrimeSequence {
+    public static final int PAGE_SHIFT = 20;
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    public static final PrimeSequence EMPTY = new PrimeSequence(new int[0][], null, 0);
+
+    private final int[][] intPages;
+    private final long[][] longPages;
+    private final long length;
+
+    private PrimeSequence(int[][] intPages, long[][] longPages, long length) {
+        this.intPages = intPages;
+        this.longPages = longPages;
+        this.length = length;
+    }
+
+    // room for exactly length primes that are all at most limit
+    public static PrimeSequence allocate(long length, long limit) {
+        int pages = getPageCount(length);
+        if (isIntRange(limit)) {
+            int[][] intPages = new int[pages][];
+            for (int page = 0; page < pages; page++) {
+                intPages[page] = new int[getPageLength(length, page)];
+            }
+            return new PrimeSequence(intPages, null, length);
+        }
+
+        long[][] longPages = new long[pages][];
+        for (int page = 0; page < pages; page++) {
+            longPages[page] = new long[getPageLength(length, page)];
+        }
+        return new PrimeSequence(null, longPages, length);
+    }
+
+    public static boolean isIntRange(long limit) {
+        return limit <= Integer.MAX_VALUE;
+    }
+
+    public static PrimeSequence of(int[] primes) {
+        PrimeSequence sequence = allocate(primes.length, 0);
+        for (int page = 0; page < sequence.intPages.length; page++) {
+            System.arraycopy(primes, page << PAGE_SHIFT, sequence.intPages[page], 0, sequence.intPages[page].length);
+        }
+        return sequence;
+    }
+
+    // int pages when the last prime allows it, primes must be sorted in ascending order
+    public static PrimeSequence of(long[] primes) {
+        PrimeSequence sequence = allocate(primes.length, primes.length == 0 ? 0 : primes[primes.length - 1]);
+        for (int i = 0; i < primes.length; i++) {
+            sequence.set(i, primes[i]);
+        }
+        return sequence;
+    }
+
+    // pi(x) < x / ln x * (1 + 1.2762 / ln x) (Dusart), and a window of length y holds at most 2y / ln y primes
+    // (Brun-Titchmarsh, Montgomery-Vaughan), which is far tighter than pi(limit) for a narrow window high up
+    public static long getMaxPrimeCount(long from, long limit) {
+        long rangeSize = Math.max(limit - Math.max(from, 2) + 1, 0);
+        double logLimit = Math.log(Math.max(limit, 3));
+        double maxPrimeCount = limit / logLimit * (1 + 1.2762 / logLimit);
+        if (rangeSize < 16) {
+            maxPrimeCount = Math.min(maxPrimeCount, rangeSize);
+        } else {
+            maxPrimeCount = Math.min(maxPrimeCount, 2 * rangeSize / Math.log(rangeSize) + 1);
+        }
+        return (long) Math.ceil(maxPrimeCount);
+    }
+
+    // upper bound of the size of the primes in [from, limit], before a single one is sieved
+    public static long getMaxSizeInBytes(long from, long limit) {
+        return getMaxPrimeCount(from, limit) * (isIntRange(limit) ? Integer.BYTES : Long.BYTES);
+    }
+
+    private static int getPageCount(long length) {
+        return (int) ((length + PAGE_SIZE - 1) >>> PAGE_SHIFT);
+    }
+
+    private static int getPageLength(long length, int page) {
+        return (int) Math.min(PAGE_SIZE, length - ((long) page << PAGE_SHIFT));
+    }
+
+    public boolean isIntBacked() {
+        return intPages != null;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public long get(long index) {
+        int page = (int) (index >>> PAGE_SHIFT);
+        int offset = (int) (index & PAGE_MASK);
+        return intPages != null ? intPages[page][offset] : longPages[page][offset];
+    }
+
+    public void set(long index, long prime) {
+        int page = (int) (index >>> PAGE_SHIFT);
+        int offset = (int) (index & PAGE_MASK);
+        if (intPages != null) {
+            intPages[page][offset] = (int) prime;
+        } else {
+            longPages[page][offset] = prime;
+        }
+    }
+
+    // only meant for sequences that fit in a single array
+    public long[] toLongArray() {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Prime sequence of " + length + " primes doesn't fit in an array");
+        }
+
+        long[] primes = new long[(int) length];
+        for (int i = 0; i < primes.length; i++) {
+            primes[i] = get(i);
+        }
+        return primes;
+    }
+
+    public long getSizeInBytes() {
+        return length * (intPages != null ? Integer.BYTES : Long.BYTES);
+    }
+
+    // equal primes are equal whatever the backing is
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PrimeSequence other) || length != other.length) {
+            return false;
+        }
+        if (intPages != null && other.intPages != null) {
+            return Arrays.deepEquals(intPages, other.intPages);
+        }
+        for (long i = 0; i < length; i++) {
+            if (get(i) != other.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (long i = 0; i < length; i++) {
+            hash = 31 * hash + Long.hashCode(get(i));
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "PrimeSequence[length=" + length + ", intBacked=" + isIntBacked() + "]";
+    }
+
+    // appends primes of unknown count page by page, so nothing is over-allocated beyond the last page and only that
+    // page is trimmed at the end
+    public static final class Builder {
+        private final boolean intBacked;
+        private int[][] intPages;
+        private long[][] longPages;
+        private long length;
+
+        // every prime added is at most limit
+        public Builder(long limit) {
+            this.intBacked = isIntRange(limit);
+            if (intBacked) {
+                this.intPages = new int[0][];
+            } else {
+                this.longPages = new long[0][];
+            }
+        }
+
+        public Builder add(long prime) {
+            int page = (int) (length >>> PAGE_SHIFT);
+            int offset = (int) (length & PAGE_MASK);
+            if (offset == 0) {
+                addPage(page);
+            } else if (page == 0 && offset == getFirstPageCapacity()) {
+                growFirstPage();
+            }
+            if (intBacked) {
+                intPages[page][offset] = (int) prime;
+            } else {
+                longPages[page][offset] = prime;
+            }
+            length++;
+            return this;
+        }
+
+        // the first page starts small and doubles up to a whole page, so small results don't pay for a whole page
+        private void addPage(int page) {
+            int capacity = page == 0 ? 1024 : PAGE_SIZE;
+            if (intBacked) {
+                intPages = Arrays.copyOf(intPages, page + 1);
+                intPages[page] = new int[capacity];
+            } else {
+                longPages = Arrays.copyOf(longPages, page + 1);
+                longPages[page] = new long[capacity];
+            }
+        }
+
+        private int getFirstPageCapacity() {
+            return intBacked ? intPages[0].length : longPages[0].length;
+        }
+
+        private void growFirstPage() {
+            int capacity = Math.min(getFirstPageCapacity() * 2, PAGE_SIZE);
+            if (intBacked) {
+                intPages[0] = Arrays.copyOf(intPages[0], capacity);
+            } else {
+                longPages[0] = Arrays.copyOf(longPages[0], capacity);
+            }
+        }
+
+        public PrimeSequence build() {
+            if (length == 0) {
+                return EMPTY;
+            }
+
+            int lastPage = getPageCount(length) - 1;
+            int lastPageLength = getPageLength(length, lastPage);
+            if (intBacked) {
+                intPages[lastPage] = Arrays.copyOf(intPages[lastPage], lastPageLength);
+                return new PrimeSequence(intPages, null, length);
+            }
+            longPages[lastPage] = Arrays.copyOf(longPages[lastPage], lastPageLength);
+            return new PrimeSequence(null, longPages, length);
+        }
+    }
+
+    // written as a plain array of numbers, page by page. xml only wraps container types, so the wrapper element of
+    // the property is written here
+    public static class Serializer extends StdSerializer<PrimeSequence> implements ContextualSerializer {
+        private final PropertyName wrapperName;
+        private final PropertyName elementName;
+
+        public Serializer() {
+            this(null, null);
+        }
+
+        private Serializer(PropertyName wrapperName, PropertyName elementName) {
+            super(PrimeSequence.class);
+            this.wrapperName = wrapperName;
+            this.elementName = elementName;
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) {
+            if (property == null || property.getWrapperName() == null) {
+                return this;
+            }
+            return new Serializer(property.getWrapperName(), property.getFullName());
+        }
+
+        @Override
+        public void serialize(PrimeSequence primes, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            boolean wrapped = wrapperName != null && gen instanceof ToXmlGenerator;
+            if (wrapped) {
+                ToXmlGenerator xmlGenerator = (ToXmlGenerator) gen;
+                xmlGenerator.setNextName(new QName(wrapperName.getNamespace(), wrapperName.getSimpleName()));
+                xmlGenerator.writeStartObject();
+                xmlGenerator.writeFieldName(elementName.getSimpleName());
+            }
+
+            gen.writeStartArray();
+            if (primes.intPages != null) {
+                for (int[] page : primes.intPages) {
+                    for (int prime : page) {
+                        gen.writeNumber(prime);
+                    }
+                }
+            } else {
+                for (long[] page : primes.longPages) {
+                    for (long prime : page) {
+                        gen.writeNumber(prime);
+                    }
+                }
+            }
+            gen.writeEndArray();
+
+            if (wrapped) {
+                gen.writeEndObject();
+            }
+        }
+    }
+
+    public static class Deserializer extends StdDeserializer<PrimeSequence> {
+        public Deserializer() {
+            super(PrimeSequence.class);
+        }
+
+        @Override
+        public PrimeSequence deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return PrimeSequence.of(context.readValue(parser, long[].class));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.denisneagu.primenumberapi.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// takes the primes of a stream segment by segment, the count and the execution time are only known once the sieve is
+// done so every format writes them after the primes
+public interface PrimeStreamWriter extends AbstractSegmentedWheelSieve.SegmentConsumer, Closeable {
+    void writeSummary(long numOfPrimes, long execTimeInNs, long execTimeInMs) throws IOException;
+}
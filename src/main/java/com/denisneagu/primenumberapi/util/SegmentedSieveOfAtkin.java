@@ -0,0 +1,144 @@
+package com.denisneagu.primenumberapi.util;
+
+import java.util.Arrays;
+
+// segmented sieve of atkin over the mod 30 wheel. every candidate atkin toggles is coprime to 60, so it lands on a
+// wheel bit and the segments share the bit layout of the eratosthenes wheel engine
+public class SegmentedSieveOfAtkin extends AbstractSegmentedWheelSieve {
+    // which quadratic form decides each residue modulo 60, 0 when the residue shares a factor with 60
+    private static final int[] FORM_OF_RESIDUE = new int[60];
+
+    static {
+        // n = 4x^2 + y^2
+        for (int r : new int[]{1, 13, 17, 29, 37, 41, 49, 53}) {
+            FORM_OF_RESIDUE[r] = 1;
+        }
+        // n = 3x^2 + y^2
+        for (int r : new int[]{7, 19, 31, 43}) {
+            FORM_OF_RESIDUE[r] = 2;
+        }
+        // n = 3x^2 - y^2 with x > y
+        for (int r : new int[]{11, 23, 47, 59}) {
+            FORM_OF_RESIDUE[r] = 3;
+        }
+    }
+
+    public SegmentedSieveOfAtkin() {
+        this(DEFAULT_SEGMENT_BYTES);
+    }
+
+    public SegmentedSieveOfAtkin(int segmentBytes) {
+        super(segmentBytes);
+    }
+
+    @Override
+    protected SegmentSieve createSegmentSieve(int[] smallPrimes, long taskByteLow, long taskByteHigh) {
+        return (words, segByteLow, segBytes) -> sieveSegment(words, smallPrimes, segByteLow, segBytes);
+    }
+
+    private void sieveSegment(long[] words, int[] smallPrimes, long segByteLow, int segBytes) {
+        // every number starts as composite and flips once per solution of its quadratic form
+        Arrays.fill(words, 0, (segBytes + Long.BYTES - 1) / Long.BYTES, 0L);
+
+        long low = segByteLow * WHEEL;
+        long high = (segByteLow + segBytes) * WHEEL - 1;
+
+        // 4x^2 + y^2 is odd only for odd y
+        for (long x = 1; 4 * x * x + 1 <= high; x++) {
+            long base = 4 * x * x;
+            long y = ceilSqrt(Math.max(1, low - base));
+            if ((y & 1) == 0) {
+                y++;
+            }
+            long yHigh = floorSqrt(high - base);
+            for (; y <= yHigh; y += 2) {
+                long n = base + y * y;
+                if (FORM_OF_RESIDUE[(int) (n % 60)] == 1) {
+                    toggle(words, n, segByteLow);
+                }
+            }
+        }
+
+        // 3x^2 + y^2 = 7 modulo 12 only for odd x and even y
+        for (long x = 1; 3 * x * x + 4 <= high; x += 2) {
+            long base = 3 * x * x;
+            long y = ceilSqrt(Math.max(4, low - base));
+            if ((y & 1) == 1) {
+                y++;
+            }
+            long yHigh = floorSqrt(high - base);
+            for (; y <= yHigh; y += 2) {
+                long n = base + y * y;
+                if (FORM_OF_RESIDUE[(int) (n % 60)] == 2) {
+                    toggle(words, n, segByteLow);
+                }
+            }
+        }
+
+        // 3x^2 - y^2 is odd only when x and y have opposite parity, its smallest value for a given x is at y = x - 1.
+        // smaller x can't reach the segment since 3x^2 - y^2 < 3x^2
+        for (long x = Math.max(2, floorSqrt(low / 3)); 2 * x * x + 2 * x - 1 <= high; x++) {
+            long base = 3 * x * x;
+            if (base <= low) {
+                continue;
+            }
+            long y = ceilSqrt(Math.max(1, base - high));
+            if (((x + y) & 1) == 0) {
+                y++;
+            }
+            long yHigh = Math.min(x - 1, floorSqrt(base - low));
+            for (; y <= yHigh; y += 2) {
+                long n = base - y * y;
+                if (FORM_OF_RESIDUE[(int) (n % 60)] == 3) {
+                    toggle(words, n, segByteLow);
+                }
+            }
+        }
+
+        // what is left are primes and numbers divisible by the square of a prime, clear the multiples k * p^2 that
+        // lie on the wheel, i.e. k coprime to 30, which for each residue class of k are p^2 bytes apart
+        for (int p : smallPrimes) {
+            // 2, 3 and 5 are already excluded by the wheel
+            if (p < 7) {
+                continue;
+            }
+            long square = (long) p * p;
+            if (square > high) {
+                break;
+            }
+            long kMin = (low + square - 1) / square;
+            for (int residue : RESIDUES) {
+                long k = kMin + Math.floorMod(residue - kMin, WHEEL);
+                long multiple = square * k;
+                if (multiple > high) {
+                    continue;
+                }
+                long bit = (multiple / WHEEL - segByteLow) * 8 + BIT_OF_RESIDUE[(int) (multiple % WHEEL)];
+                for (long segBits = (long) segBytes * 8; bit < segBits; bit += 8 * square) {
+                    words[(int) (bit >>> 6)] &= ~(1L << bit);
+                }
+            }
+        }
+    }
+
+    private void toggle(long[] words, long n, long segByteLow) {
+        long bit = (n / WHEEL - segByteLow) * 8 + BIT_OF_RESIDUE[(int) (n % WHEEL)];
+        words[(int) (bit >>> 6)] ^= 1L << bit;
+    }
+
+    private static long floorSqrt(long n) {
+        long r = (long) Math.sqrt(n);
+        while (r * r > n) {
+            r--;
+        }
+        while ((r + 1) * (r + 1) <= n) {
+            r++;
+        }
+        return r;
+    }
+
+    private static long ceilSqrt(long n) {
+        long r = floorSqrt(n);
+        return r * r == n ? r : r + 1;
+    }
+}
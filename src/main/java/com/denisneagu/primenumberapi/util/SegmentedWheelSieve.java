@@ -0,0 +1,144 @@
+package com.denisneagu.primenumberapi.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+// segmented sieve of eratosthenes over the mod 30 wheel
+public class SegmentedWheelSieve extends AbstractSegmentedWheelSieve {
+    // initial number of entries of a bucket, buckets double when they fill up and are recycled once sieved
+    private static final int BUCKET_CAPACITY = 1024;
+
+    public SegmentedWheelSieve() {
+        this(DEFAULT_SEGMENT_BYTES);
+    }
+
+    public SegmentedWheelSieve(int segmentBytes) {
+        super(segmentBytes);
+    }
+
+    @Override
+    protected SegmentSieve createSegmentSieve(int[] smallPrimes, long taskByteLow, long taskByteHigh) {
+        return new SievingPrimes(smallPrimes, taskByteLow, taskByteHigh);
+    }
+
+    // every multiple p * q with q coprime to 30 lies on the wheel, and for each of the 8 residue classes of q the
+    // multiples share a single bit position and are exactly p bytes (8p bits) apart. the next multiple of each of
+    // these 8 progressions is computed once per task and then carried from segment to segment.
+    private final class SievingPrimes implements SegmentSieve {
+        private final long segBits = (long) segmentBytes * 8;
+        private final long taskSegments;
+
+        // primes below the segment size hit every segment, their next multiples are kept as bit offsets relative
+        // to the start of the segment being sieved
+        private final int[] mediumPrimes;
+        private final long[] mediumNextBits;
+
+        // primes of at least the segment size hit a segment at most once per progression, so they're only visited
+        // when they hit (Oliveira e Silva's bucket sieve). buckets[s] holds the progressions whose next multiple
+        // falls in segment s of the task, each entry packs the prime and the bit offset within that segment.
+        private final long[][] buckets;
+        private final int[] bucketSizes;
+        private final ArrayDeque<long[]> freeBuckets = new ArrayDeque<>();
+        private long segment = 0;
+
+        private SievingPrimes(int[] smallPrimes, long taskByteLow, long taskByteHigh) {
+            long taskLow = taskByteLow * WHEEL;
+            long taskHigh = taskByteHigh * WHEEL - 1;
+            this.taskSegments = (taskByteHigh - taskByteLow + segmentBytes - 1) / segmentBytes;
+
+            // 2, 3 and 5 are already excluded by the wheel, and primes whose square is past the task never cross
+            // anything off in it
+            int first = 0;
+            while (first < smallPrimes.length && smallPrimes[first] < 7) {
+                first++;
+            }
+            int last = first;
+            while (last < smallPrimes.length && (long) smallPrimes[last] * smallPrimes[last] <= taskHigh) {
+                last++;
+            }
+            int firstLarge = first;
+            while (firstLarge < last && smallPrimes[firstLarge] < segmentBytes) {
+                firstLarge++;
+            }
+
+            this.mediumPrimes = Arrays.copyOfRange(smallPrimes, first, firstLarge);
+            this.mediumNextBits = new long[mediumPrimes.length * RESIDUES.length];
+            for (int i = 0; i < mediumPrimes.length; i++) {
+                for (int j = 0; j < RESIDUES.length; j++) {
+                    mediumNextBits[i * RESIDUES.length + j] = getFirstMultipleBit(
+                            mediumPrimes[i], RESIDUES[j], taskLow, taskByteLow);
+                }
+            }
+
+            this.buckets = firstLarge < last ? new long[(int) taskSegments][] : new long[0][];
+            this.bucketSizes = new int[buckets.length];
+            for (int i = firstLarge; i < last; i++) {
+                int p = smallPrimes[i];
+                for (int residue : RESIDUES) {
+                    addToBucket(p, getFirstMultipleBit(p, residue, taskLow, taskByteLow));
+                }
+            }
+        }
+
+        // bit offset from the start of the task of the first multiple p * q >= max(p^2, taskLow) with q = residue
+        // modulo 30, multiples p * q with q < p have been crossed off by a smaller prime
+        private long getFirstMultipleBit(int p, int residue, long taskLow, long taskByteLow) {
+            long qMin = Math.max(p, (taskLow + p - 1) / p);
+            long q = qMin + Math.floorMod(residue - qMin, WHEEL);
+            long multiple = (long) p * q;
+            return (multiple / WHEEL - taskByteLow) * 8 + BIT_OF_RESIDUE[(int) (multiple % WHEEL)];
+        }
+
+        private void addToBucket(int p, long bit) {
+            long target = bit / segBits;
+            if (target >= taskSegments) {
+                // the next multiple is past the task
+                return;
+            }
+            int s = (int) target;
+            long[] bucket = buckets[s];
+            if (bucket == null) {
+                bucket = freeBuckets.isEmpty() ? new long[BUCKET_CAPACITY] : freeBuckets.pop();
+                buckets[s] = bucket;
+            } else if (bucketSizes[s] == bucket.length) {
+                bucket = Arrays.copyOf(bucket, bucket.length * 2);
+                buckets[s] = bucket;
+            }
+            bucket[bucketSizes[s]++] = ((long) p << 32) | (bit % segBits);
+        }
+
+        @Override
+        public void sieveNextSegment(long[] words, long segByteLow, int segBytes) {
+            // assume every number coprime to 30 is prime until proven otherwise
+            Arrays.fill(words, 0, (segBytes + Long.BYTES - 1) / Long.BYTES, -1L);
+
+            for (int i = 0; i < mediumPrimes.length; i++) {
+                long stride = 8L * mediumPrimes[i];
+                for (int k = i * RESIDUES.length; k < (i + 1) * RESIDUES.length; k++) {
+                    long bit = mediumNextBits[k];
+                    for (; bit < segBits; bit += stride) {
+                        words[(int) (bit >>> 6)] &= ~(1L << bit);
+                    }
+                    mediumNextBits[k] = bit - segBits;
+                }
+            }
+
+            if (segment < buckets.length && buckets[(int) segment] != null) {
+                int s = (int) segment;
+                long[] bucket = buckets[s];
+                int size = bucketSizes[s];
+                for (int i = 0; i < size; i++) {
+                    int p = (int) (bucket[i] >>> 32);
+                    long bit = bucket[i] & 0xFFFFFFFFL;
+                    words[(int) (bit >>> 6)] &= ~(1L << bit);
+                    // move the progression to the bucket of the segment its next multiple falls in
+                    addToBucket(p, segment * segBits + bit + 8L * p);
+                }
+                buckets[s] = null;
+                bucketSizes[s] = 0;
+                freeBuckets.push(bucket);
+            }
+            segment++;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.denisneagu.primenumberapi.util;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// runs one computation per key at a time. the first caller of a key computes on its own thread, callers arriving
+// while it runs wait for its result instead of computing the same thing again. a key is forgotten as soon as its
+// computation ends, so nothing is cached here
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Supplier<V> supplier) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return join(existing);
+        }
+
+        try {
+            V value = supplier.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    // the result of any computation in flight whose key matches, null when there is none. lets a caller attach to a
+    // computation that covers its key instead of only to an equal one
+    public V joinMatching(Predicate<K> predicate) {
+        for (Map.Entry<K, CompletableFuture<V>> entry : inFlight.entrySet()) {
+            if (predicate.test(entry.getKey())) {
+                return join(entry.getValue());
+            }
+        }
+        return null;
+    }
+
+    // the largest key in flight that matches, null when there is none
+    public K getLargestInFlight(Predicate<K> predicate, Comparator<K> comparator) {
+        K largest = null;
+        for (K key : inFlight.keySet()) {
+            if (predicate.test(key) && (largest == null || comparator.compare(key, largest) > 0)) {
+                largest = key;
+            }
+        }
+        return largest;
+    }
+
+    // the result of the computation in flight for key, null when it already ended or failed. the caller has its own
+    // way to get the value then, it's only saved work
+    public V joinIfInFlight(K key) {
+        CompletableFuture<V> future = inFlight.get(key);
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            return null;
+        }
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    // the exception of the computing caller is thrown as it is, so it's handled the same for every caller
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -1,18 +1,29 @@
 package com.denisneagu.primenumberapi.controller;
 
+import com.denisneagu.primenumberapi.dto.BinaryPrimeNumberResponse;
+import com.denisneagu.primenumberapi.dto.CacheStatisticsResponse;
+import com.denisneagu.primenumberapi.dto.NthPrimeResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityBatchResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityResponse;
+import com.denisneagu.primenumberapi.dto.PrimeCountResponse;
 import com.denisneagu.primenumberapi.dto.PrimeNumberResponse;
 import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
+import com.denisneagu.primenumberapi.enums.PrimeStreamFormat;
 import com.denisneagu.primenumberapi.service.PrimeNumberService;
+import com.denisneagu.primenumberapi.util.PrimeSequence;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -32,6 +43,11 @@ public class PrimeNumberControllerTest {
     private MockMvc mockMvc;
 
     private final String PRIMES_URL_ENDPOINT = "/api/v1/primes";
+    private final String IS_PRIME_URL_ENDPOINT = "/api/v1/primes/is-prime";
+    private final String COUNT_URL_ENDPOINT = "/api/v1/primes/count";
+    private final String NTH_URL_ENDPOINT = "/api/v1/primes/nth";
+    private final String CACHE_URL_ENDPOINT = "/api/v1/primes/cache";
+    private final String STREAM_URL_ENDPOINT = "/api/v1/primes/stream";
 
     private static Stream<Arguments> whenGetPrimeNumbersTestCases() {
         return Stream.of(
@@ -39,7 +55,9 @@ public class PrimeNumberControllerTest {
                 Arguments.of(20L, Algorithm.NAIVE_TRIAL_DIVISION_OPTIMISED, true),
                 Arguments.of(30L, Algorithm.SIEVE_OF_ERATOSTHENES, false),
                 Arguments.of(40L, Algorithm.CONCURRENT_SEGMENTED_SIEVE, true),
-                Arguments.of(40L, Algorithm.SEGMENTED_SIEVE_BITSET, false)
+                Arguments.of(40L, Algorithm.SEGMENTED_SIEVE_BITSET, false),
+                Arguments.of(40L, Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL, true),
+                Arguments.of(40L, Algorithm.SIEVE_OF_ATKIN, false)
         );
     }
 
@@ -61,10 +79,10 @@ public class PrimeNumberControllerTest {
                 0L,
                 0L,
                 expectedPrimes.length,
-                expectedPrimes);
+                PrimeSequence.of(expectedPrimes));
 
         Mockito
-                .when(primeNumberService.getPrimeNumbers(limit, true, algorithm, cache))
+                .when(primeNumberService.getPrimeNumbers(2L, limit, true, algorithm, cache))
                 .thenReturn(mockResponse);
 
         MvcResult result = mockMvc.perform(
@@ -90,10 +108,38 @@ public class PrimeNumberControllerTest {
         PrimeNumberResponse response = objectMapper.readValue(jsonResult, PrimeNumberResponse.class);
 
         Assertions.assertEquals(mockResponse.cache(), response.cache());
-        Assertions.assertArrayEquals(mockResponse.primes(), response.primes());
+        Assertions.assertEquals(mockResponse.primes(), response.primes());
         Assertions.assertEquals(algorithm, response.algorithm());
     }
 
+    @Test
+    void givenNoAlgorithm_whenGetPrimeNumbers_thenUseAutoAndReturnSelectedAlgorithm() throws Exception {
+        PrimeNumberResponse mockResponse = new PrimeNumberResponse(
+                Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL,
+                false,
+                0L,
+                0L,
+                4L,
+                PrimeSequence.of(new long[0]));
+
+        Mockito
+                .when(primeNumberService.getPrimeNumbers(2L, 10L, false, Algorithm.AUTO, false))
+                .thenReturn(mockResponse);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(PRIMES_URL_ENDPOINT)
+                                .param("limit", "10")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isOk(),
+                        MockMvcResultMatchers.jsonPath("$.algorithm")
+                                .value(Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL.name()),
+                        MockMvcResultMatchers.jsonPath("$.numOfPrimes").value(4)
+                );
+    }
+
     @Test
     void givenInvalidLimit_whenGetPrimeNumbers_thenReturnBadRequest() throws Exception {
         mockMvc.perform(
@@ -161,4 +207,287 @@ public class PrimeNumberControllerTest {
                         MockMvcResultMatchers.jsonPath("$.description").value(errorMessage)
                 );
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenFromAndLimit_whenGetPrimeNumbers_thenPassRangeToService() throws Exception {
+        long[] expectedPrimes = new long[]{101L, 103L, 107L, 109L};
+        Mockito
+                .when(primeNumberService.getPrimeNumbers(100L, 110L, true, Algorithm.NAIVE_TRIAL_DIVISION, false))
+                .thenReturn(new PrimeNumberResponse(
+                        Algorithm.NAIVE_TRIAL_DIVISION,
+                        false,
+                        0L,
+                        0L,
+                        expectedPrimes.length,
+                        PrimeSequence.of(expectedPrimes)));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(PRIMES_URL_ENDPOINT)
+                                .param("from", "100")
+                                .param("limit", "110")
+                                .param("showPrimes", "true")
+                                .param("algorithm", Algorithm.NAIVE_TRIAL_DIVISION.name())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isOk(),
+                        MockMvcResultMatchers.jsonPath("$.numOfPrimes").value(4),
+                        MockMvcResultMatchers.jsonPath("$.primes[0]").value(101)
+                );
+    }
+
+    @Test
+    void givenNegativeFrom_whenGetPrimeNumbers_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(PRIMES_URL_ENDPOINT)
+                                .param("from", "-1")
+                                .param("limit", "10")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isBadRequest(),
+                        MockMvcResultMatchers.jsonPath("$.description")
+                                .value("from must be greater than or equal to 0")
+                );
+    }
+
+    @Test
+    void givenLimit_whenCountPrimeNumbers_thenReturnPrimeCountResponse() throws Exception {
+        long limit = 100_000_000_000_000L;
+        Mockito.when(primeNumberService.countPrimeNumbers(limit))
+                .thenReturn(new PrimeCountResponse(limit, 3_204_941_750_802L, 0L, 0L));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(COUNT_URL_ENDPOINT)
+                                .param("limit", String.valueOf(limit))
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isOk(),
+                        MockMvcResultMatchers.jsonPath("$.limit").value(limit),
+                        MockMvcResultMatchers.jsonPath("$.numOfPrimes").value(3_204_941_750_802L)
+                );
+    }
+
+    @Test
+    void givenInvalidLimit_whenCountPrimeNumbers_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(COUNT_URL_ENDPOINT)
+                                .param("limit", "1")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isBadRequest(),
+                        MockMvcResultMatchers.jsonPath("$.description")
+                                .value("limit must be greater than or equal to 2")
+                );
+    }
+
+    @Test
+    void givenLimitAboveMaxCountLimit_whenCountPrimeNumbers_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(COUNT_URL_ENDPOINT)
+                                .param("limit", "10000000000000001")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isBadRequest(),
+                        MockMvcResultMatchers.jsonPath("$.description")
+                                .value("limit must be less than or equal to 10000000000000000")
+                );
+    }
+
+    @Test
+    void givenN_whenGetNthPrimeNumber_thenReturnNthPrimeResponse() throws Exception {
+        Mockito.when(primeNumberService.getNthPrimeNumber(1_000_000L))
+                .thenReturn(new NthPrimeResponse(1_000_000L, 15_485_863L, 0L, 0L));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(NTH_URL_ENDPOINT)
+                                .param("n", "1000000")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isOk(),
+                        MockMvcResultMatchers.jsonPath("$.n").value(1_000_000L),
+                        MockMvcResultMatchers.jsonPath("$.prime").value(15_485_863L)
+                );
+    }
+
+    @Test
+    void givenZeroN_whenGetNthPrimeNumber_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(NTH_URL_ENDPOINT)
+                                .param("n", "0")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isBadRequest(),
+                        MockMvcResultMatchers.jsonPath("$.description").value("n must be greater than or equal to 1")
+                );
+    }
+
+    @Test
+    void givenNumber_whenIsPrime_thenReturnPrimalityResponse() throws Exception {
+        long number = 1_000_000_000_000_037L;
+        Mockito.when(primeNumberService.isPrime(number)).thenReturn(new PrimalityResponse(number, true, 0L, 0L));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(IS_PRIME_URL_ENDPOINT)
+                                .param("number", String.valueOf(number))
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isOk(),
+                        MockMvcResultMatchers.jsonPath("$.number").value(number),
+                        MockMvcResultMatchers.jsonPath("$.prime").value(true)
+                );
+    }
+
+    @Test
+    void givenNumbers_whenIsPrimeBatch_thenReturnPrimalityBatchResponse() throws Exception {
+        long[] numbers = new long[]{7L, 8L, 11L};
+        Mockito.when(primeNumberService.isPrime(numbers))
+                .thenReturn(new PrimalityBatchResponse(0L, 0L, 3, 2, new boolean[]{true, false, true}));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post(IS_PRIME_URL_ENDPOINT)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[7, 8, 11]")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isOk(),
+                        MockMvcResultMatchers.jsonPath("$.numOfPrimes").value(2),
+                        MockMvcResultMatchers.jsonPath("$.results[1]").value(false)
+                );
+    }
+
+    @Test
+    void givenEmptyBatch_whenIsPrimeBatch_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post(IS_PRIME_URL_ENDPOINT)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[]")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isBadRequest(),
+                        MockMvcResultMatchers.jsonPath("$.httpStatus").value(400),
+                        MockMvcResultMatchers.jsonPath("$.description").value("numbers must not be empty")
+                );
+    }
+
+    @Test
+    void givenMalformedBatch_whenIsPrimeBatch_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post(IS_PRIME_URL_ENDPOINT)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[7, \"eight\"]")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isBadRequest(),
+                        MockMvcResultMatchers.jsonPath("$.description").value("Request body is missing or malformed")
+                );
+    }
+
+    @Test
+    void givenCachedPrimes_whenGetCacheStatistics_thenReturnCacheStatisticsResponse() throws Exception {
+        Mockito.when(primeNumberService.getCacheStatistics())
+                .thenReturn(new CacheStatisticsResponse(1_000_000L, 80_000L, 5L, 2L, 1L, 4_096L, 3L, 24_000L));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(CACHE_URL_ENDPOINT)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isOk(),
+                        MockMvcResultMatchers.jsonPath("$.cachedLimit").value(1_000_000L),
+                        MockMvcResultMatchers.jsonPath("$.hits").value(5L),
+                        MockMvcResultMatchers.jsonPath("$.misses").value(2L),
+                        MockMvcResultMatchers.jsonPath("$.evictions").value(1L),
+                        MockMvcResultMatchers.jsonPath("$.encodedBodies").value(3L)
+                );
+    }
+
+    @Test
+    void givenStream_whenStreamPrimeNumbers_thenStartAsyncRequestWithStreamTimeout() throws Exception {
+        Mockito.when(primeNumberService.streamPrimeNumbers(2L, 100L, Algorithm.AUTO, PrimeStreamFormat.JSON))
+                .thenReturn(outputStream -> {
+                });
+
+        MvcResult mvcResult = mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(STREAM_URL_ENDPOINT)
+                                .param("limit", "100")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        Assertions.assertEquals(1_800_000L, mvcResult.getRequest().getAsyncContext().getTimeout());
+    }
+
+    @Test
+    void givenLimitAboveMaxStreamLimit_whenGetPrimeNumbersInNdjson_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(PRIMES_URL_ENDPOINT)
+                                .param("limit", "1000000000001")
+                                .accept(MediaType.APPLICATION_NDJSON)
+                )
+                .andExpectAll(
+                        MockMvcResultMatchers.status().isBadRequest(),
+                        MockMvcResultMatchers.jsonPath("$.description")
+                                .value("limit must be less than or equal to 1000000000000")
+                );
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "gzip | true",
+            "deflate, gzip;q=0.5 | true",
+            "GZIP ; Q=1 | true",
+            "x-gzip | true",
+            "gzip;q=0 | false",
+            "gzip;q=0.000, deflate | false",
+            "gzip;q=abc | false",
+            "deflate, *;q=0.1 | true",
+            "*;q=0.5, gzip;q=0 | false",
+            "identity | false",
+            "notgzip | false"
+    })
+    void givenAcceptEncoding_whenGetPrimeNumbersInBinary_thenGzipOnlyWhenQualityAboveZero(String acceptEncoding,
+                                                                                            boolean acceptsGzip)
+            throws Exception {
+        Mockito.when(primeNumberService.getPrimeNumbersInBinary(
+                        2L, 10L, Algorithm.AUTO, false, PrimeEncoding.RAW_INT64, acceptsGzip))
+                .thenReturn(new BinaryPrimeNumberResponse(Algorithm.SIEVE_OF_ERATOSTHENES, false, 0L, 0L, 4L,
+                        PrimeEncoding.RAW_INT64, false, 32L, outputStream -> outputStream.write(new byte[32])));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(PRIMES_URL_ENDPOINT)
+                                .param("limit", "10")
+                                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding)
+                                .accept(MediaType.APPLICATION_OCTET_STREAM)
+                )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted());
+
+        Mockito.verify(primeNumberService).getPrimeNumbersInBinary(
+                2L, 10L, Algorithm.AUTO, false, PrimeEncoding.RAW_INT64, acceptsGzip);
+    }
+}
@@ -10,6 +10,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
@@ -45,6 +47,19 @@ public class GlobalExceptionHandlerTest {
         Assertions.assertNotNull(response.errorThrownAt());
     }
 
+    @Test
+    void givenHttpMessageNotReadableException_whenHandleHttpMessageNotReadableException_thenReturnBadRequest() {
+        HttpMessageNotReadableException ex = new HttpMessageNotReadableException(
+                "JSON parse error",
+                Mockito.mock(HttpInputMessage.class));
+
+        ErrorResponse response = globalExceptionHandler.handleHttpMessageNotReadableException(ex);
+
+        Assertions.assertEquals(400, response.httpStatus());
+        Assertions.assertEquals("Request body is missing or malformed", response.description());
+        Assertions.assertNotNull(response.errorThrownAt());
+    }
+
     @Test
     void givenMissingServletRequestParameterException_whenHandleMissingServletRequestParameterException_thenReturnBadRequest() {
         MissingServletRequestParameterException ex = new MissingServletRequestParameterException("limit", "long");
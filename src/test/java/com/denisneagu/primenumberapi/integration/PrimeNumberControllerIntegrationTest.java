@@ -1,10 +1,20 @@
 package com.denisneagu.primenumberapi.integration;
 
+import com.denisneagu.primenumberapi.dto.NthPrimeResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityBatchResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityResponse;
+import com.denisneagu.primenumberapi.dto.PrimeBitmapResponse;
+import com.denisneagu.primenumberapi.dto.PrimeCountResponse;
 import com.denisneagu.primenumberapi.dto.PrimeNumberResponse;
 import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
 import com.denisneagu.primenumberapi.exception.dto.ErrorResponse;
 import com.denisneagu.primenumberapi.service.CacheService;
+import com.denisneagu.primenumberapi.util.CompressedPrimeSequence;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
 import io.restassured.path.xml.XmlPath;
 import io.restassured.response.Response;
 import org.junit.jupiter.api.Assertions;
@@ -12,6 +22,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -19,8 +30,14 @@ import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class PrimeNumberControllerIntegrationTest {
@@ -50,7 +67,9 @@ public class PrimeNumberControllerIntegrationTest {
                 Arguments.of(Algorithm.NAIVE_TRIAL_DIVISION_OPTIMISED),
                 Arguments.of(Algorithm.SIEVE_OF_ERATOSTHENES),
                 Arguments.of(Algorithm.CONCURRENT_SEGMENTED_SIEVE),
-                Arguments.of(Algorithm.SEGMENTED_SIEVE_BITSET)
+                Arguments.of(Algorithm.SEGMENTED_SIEVE_BITSET),
+                Arguments.of(Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL),
+                Arguments.of(Algorithm.SIEVE_OF_ATKIN)
         );
     }
 
@@ -70,7 +89,7 @@ public class PrimeNumberControllerIntegrationTest {
                 .extract()
                 .as(PrimeNumberResponse.class);
 
-        Assertions.assertArrayEquals(PRIME_NUMBERS_UP_TO_150, primeNumberFirstResponse.primes());
+        Assertions.assertArrayEquals(PRIME_NUMBERS_UP_TO_150, primeNumberFirstResponse.primes().toLongArray());
         Assertions.assertFalse(primeNumberFirstResponse.cache());
         Assertions.assertEquals(algorithm, primeNumberFirstResponse.algorithm());
 
@@ -87,13 +106,13 @@ public class PrimeNumberControllerIntegrationTest {
                 .extract()
                 .as(PrimeNumberResponse.class);
 
-        Assertions.assertArrayEquals(PRIME_NUMBERS_UP_TO_150, primeNumberSecondResponse.primes());
+        Assertions.assertArrayEquals(PRIME_NUMBERS_UP_TO_150, primeNumberSecondResponse.primes().toLongArray());
         Assertions.assertTrue(primeNumberSecondResponse.cache());
         Assertions.assertEquals(algorithm, primeNumberSecondResponse.algorithm());
 
         Mockito.verify(cacheService, Mockito.times(2)).getCachedPrimeNumbers(Mockito.anyLong());
         Mockito.verify(cacheService, Mockito.times(1))
-                .addPrimeNumbersToCache(Mockito.anyLong(), Mockito.any(long[].class));
+                .addPrimeNumbersToCache(Mockito.anyLong(), Mockito.any(CompressedPrimeSequence.class));
     }
 
     @Test
@@ -111,12 +130,12 @@ public class PrimeNumberControllerIntegrationTest {
                 .extract()
                 .as(PrimeNumberResponse.class);
 
-        Assertions.assertArrayEquals(PRIME_NUMBERS_UP_TO_150, primeNumberResponse.primes());
+        Assertions.assertArrayEquals(PRIME_NUMBERS_UP_TO_150, primeNumberResponse.primes().toLongArray());
         Assertions.assertFalse(primeNumberResponse.cache());
         Assertions.assertEquals(Algorithm.NAIVE_TRIAL_DIVISION, primeNumberResponse.algorithm());
 
         Mockito.verify(cacheService, Mockito.never()).getCachedPrimeNumbers(Mockito.anyLong());
-        Mockito.verify(cacheService, Mockito.never()).addPrimeNumbersToCache(Mockito.anyLong(), Mockito.any(long[].class));
+        Mockito.verify(cacheService, Mockito.never()).addPrimeNumbersToCache(Mockito.anyLong(), Mockito.any(CompressedPrimeSequence.class));
     }
 
     @Test
@@ -174,15 +193,482 @@ public class PrimeNumberControllerIntegrationTest {
     void givenLimitTooBig_whenGetPrimeNumbers_thenReturnErrorResponse() {
         ErrorResponse errorResponse = RestAssured
                 .given()
+                .queryParam("showPrimes", true)
                 .queryParam("limit", 70_000_000_000L)
                 .when()
                 .get("/api/v1/primes")
                 .then()
+                .statusCode(507)
+                .extract()
+                .as(ErrorResponse.class);
+
+        Assertions.assertEquals(HttpStatus.INSUFFICIENT_STORAGE.value(), errorResponse.httpStatus());
+        Assertions.assertTrue(errorResponse.description().startsWith("Requested memory for"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getPrimeNumbersTestcases")
+    void givenRangeAboveIntegerMax_whenGetPrimeNumbers_thenReturnPrimeNumbersInRange(Algorithm algorithm) {
+        PrimeNumberResponse primeNumberResponse = RestAssured
+                .given()
+                .queryParam("showPrimes", true)
+                .queryParam("from", 10_000_000_000L)
+                .queryParam("limit", 10_000_000_100L)
+                .queryParam("algorithm", algorithm)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(PrimeNumberResponse.class);
+
+        Assertions.assertArrayEquals(
+                new long[]{10_000_000_019L, 10_000_000_033L, 10_000_000_061L, 10_000_000_069L, 10_000_000_097L},
+                primeNumberResponse.primes().toLongArray());
+    }
+
+    @Test
+    void givenRangeWithinCachedLimit_whenGetPrimeNumbers_thenReturnCachedSlice() {
+        RestAssured
+                .given()
+                .queryParam("cache", true)
+                .queryParam("limit", 150)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200);
+
+        PrimeNumberResponse primeNumberResponse = RestAssured
+                .given()
+                .queryParam("cache", true)
+                .queryParam("showPrimes", true)
+                .queryParam("from", 100)
+                .queryParam("limit", 113)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(PrimeNumberResponse.class);
+
+        Assertions.assertTrue(primeNumberResponse.cache());
+        Assertions.assertArrayEquals(new long[]{101L, 103L, 107L, 109L, 113L}, primeNumberResponse.primes().toLongArray());
+    }
+
+    @Test
+    void givenFromGreaterThanLimit_whenGetPrimeNumbers_thenReturnErrorResponse() {
+        ErrorResponse errorResponse = RestAssured
+                .given()
+                .queryParam("from", 20)
+                .queryParam("limit", 10)
+                .when()
+                .get("/api/v1/primes")
+                .then()
                 .statusCode(400)
                 .extract()
                 .as(ErrorResponse.class);
 
-        Assertions.assertEquals(HttpStatus.BAD_REQUEST.value(), errorResponse.httpStatus());
-        Assertions.assertEquals("Too many prime numbers to fit within an array", errorResponse.description());
+        Assertions.assertEquals("From can't be greater than limit", errorResponse.description());
+    }
+
+    @Test
+    void givenHiddenPrimes_whenGetPrimeNumbers_thenReturnCountOnly() {
+        PrimeNumberResponse primeNumberResponse = RestAssured
+                .given()
+                .queryParam("showPrimes", false)
+                .queryParam("limit", 1_000_000_000L)
+                .queryParam("algorithm", Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(PrimeNumberResponse.class);
+
+        Assertions.assertEquals(50_847_534L, primeNumberResponse.numOfPrimes());
+        Assertions.assertEquals(0, primeNumberResponse.primes().length());
+    }
+
+    @Test
+    void givenOctetStreamAcceptHeader_whenGetPrimeNumbers_thenReturnRawLittleEndianPrimes() {
+        Response response = RestAssured
+                .given()
+                .accept("application/octet-stream")
+                .queryParam("limit", 150)
+                .queryParam("algorithm", Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200)
+                .contentType("application/octet-stream")
+                .header("X-Prime-Encoding", "RAW_INT64")
+                .header("X-Algorithm", "CONCURRENT_SEGMENTED_SIEVE_WHEEL")
+                .header("X-Num-Of-Primes", String.valueOf(PRIME_NUMBERS_UP_TO_150.length))
+                .extract()
+                .response();
+
+        ByteBuffer buffer = ByteBuffer.wrap(response.asByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        long[] primes = new long[buffer.remaining() / Long.BYTES];
+        buffer.asLongBuffer().get(primes);
+        Assertions.assertArrayEquals(PRIME_NUMBERS_UP_TO_150, primes);
+    }
+
+    @Test
+    void givenOctetStreamAcceptHeaderAndDeltaVarint_whenGetPrimeNumbers_thenReturnHeaderAndGaps() {
+        byte[] body = RestAssured
+                .given()
+                .accept("application/octet-stream")
+                .queryParam("from", 100)
+                .queryParam("limit", 150)
+                .queryParam("encoding", PrimeEncoding.DELTA_VARINT)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200)
+                .header("X-Prime-Encoding", "DELTA_VARINT")
+                .extract()
+                .asByteArray();
+
+        ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        Assertions.assertEquals(1, buffer.get());
+        Assertions.assertEquals(100, buffer.getLong());
+        Assertions.assertEquals(150, buffer.getLong());
+        Assertions.assertEquals(10, buffer.getLong());
+        // the first gap is to 0, every gap is below 128 and takes a single byte
+        Assertions.assertEquals(101, buffer.get());
+        Assertions.assertEquals(103 - 101, buffer.get());
+        Assertions.assertEquals(25 + 10, body.length);
+    }
+
+    @Test
+    void givenOctetStreamAcceptHeaderWithCache_whenGetPrimeNumbersTwice_thenWriteCachedEncodedBody() {
+        Response firstResponse = RestAssured
+                .given()
+                .accept("application/octet-stream")
+                .queryParam("from", 100)
+                .queryParam("limit", 150)
+                .queryParam("cache", true)
+                .queryParam("encoding", PrimeEncoding.DELTA_VARINT)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200)
+                .header("X-Cache", "false")
+                .extract()
+                .response();
+        byte[] firstBody = firstResponse.asByteArray();
+
+        byte[] secondBody = RestAssured
+                .given()
+                .accept("application/octet-stream")
+                .queryParam("from", 100)
+                .queryParam("limit", 150)
+                .queryParam("cache", true)
+                .queryParam("encoding", PrimeEncoding.DELTA_VARINT)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200)
+                .header("X-Cache", "true")
+                .header("X-Num-Of-Primes", "10")
+                // the engine that sieved the cached body, not one picked again for the hit
+                .header("X-Algorithm", firstResponse.header("X-Algorithm"))
+                .extract()
+                .asByteArray();
+
+        Assertions.assertArrayEquals(firstBody, secondBody);
+        Assertions.assertEquals(25 + 10, secondBody.length);
+        Mockito.verify(cacheService, Mockito.times(1))
+                .addEncodedBody(Mockito.any(CacheService.EncodedBodyKey.class), Mockito.any(CacheService.EncodedBody.class));
+    }
+
+    @Test
+    void givenGzipAcceptEncodingWithCache_whenGetPrimeNumbersInBinary_thenReturnGzippedBody() throws IOException {
+        Response response = RestAssured
+                .given()
+                .config(RestAssured.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders()))
+                .accept("application/octet-stream")
+                .header("Accept-Encoding", "gzip")
+                .queryParam("limit", 150)
+                .queryParam("cache", true)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200)
+                .header("Content-Encoding", "gzip")
+                .header("Vary", "Accept-Encoding")
+                .extract()
+                .response();
+
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(response.asByteArray())).readAllBytes();
+        long[] primes = new long[body.length / Long.BYTES];
+        ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(primes);
+        Assertions.assertArrayEquals(PRIME_NUMBERS_UP_TO_150, primes);
+    }
+
+    @Test
+    void givenOctetStreamAcceptHeaderAndFromGreaterThanLimit_whenGetPrimeNumbers_thenReturnJsonErrorResponse() {
+        ErrorResponse errorResponse = RestAssured
+                .given()
+                .accept("application/octet-stream")
+                .queryParam("from", 20)
+                .queryParam("limit", 10)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(400)
+                .contentType("application/json")
+                .extract()
+                .as(ErrorResponse.class);
+
+        Assertions.assertEquals("From can't be greater than limit", errorResponse.description());
+    }
+
+    @Test
+    void givenNdjsonAcceptHeader_whenGetPrimeNumbers_thenReturnPrimeLinesAndTrailer() throws IOException {
+        String body = RestAssured
+                .given()
+                .accept("application/x-ndjson")
+                .queryParam("limit", 150)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .extract()
+                .asString();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        String[] lines = body.split("\n");
+        Assertions.assertEquals(PRIME_NUMBERS_UP_TO_150.length + 1, lines.length);
+        for (int i = 0; i < PRIME_NUMBERS_UP_TO_150.length; i++) {
+            Assertions.assertEquals(PRIME_NUMBERS_UP_TO_150[i], objectMapper.readTree(lines[i]).get("prime").asLong());
+        }
+        JsonNode trailer = objectMapper.readTree(lines[lines.length - 1]);
+        Assertions.assertEquals(PRIME_NUMBERS_UP_TO_150.length, trailer.get("numOfPrimes").asLong());
+        Assertions.assertEquals("CONCURRENT_SEGMENTED_SIEVE_WHEEL", trailer.get("algorithm").asText());
+    }
+
+    @Test
+    void givenCsvAcceptHeader_whenGetPrimeNumbers_thenReturnPrimeRowsAndTrailer() {
+        String body = RestAssured
+                .given()
+                .accept("text/csv")
+                .queryParam("from", 100)
+                .queryParam("limit", 150)
+                .queryParam("algorithm", Algorithm.SIEVE_OF_ATKIN)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(200)
+                .contentType("text/csv")
+                .extract()
+                .asString();
+
+        String[] lines = body.split("\n");
+        Assertions.assertArrayEquals(
+                new String[]{"prime", "101", "103", "107", "109", "113", "127", "131", "137", "139", "149"},
+                Arrays.copyOf(lines, 11));
+        Assertions.assertTrue(lines[11].startsWith("# algorithm=SIEVE_OF_ATKIN,cache=false,numOfPrimes=10,"));
+        Assertions.assertEquals(12, lines.length);
+    }
+
+    @Test
+    void givenCsvAcceptHeaderAndAlgorithmThatCantStream_whenGetPrimeNumbers_thenReturnJsonErrorResponse() {
+        ErrorResponse errorResponse = RestAssured
+                .given()
+                .accept("text/csv")
+                .queryParam("limit", 150)
+                .queryParam("algorithm", Algorithm.SIEVE_OF_ERATOSTHENES)
+                .when()
+                .get("/api/v1/primes")
+                .then()
+                .statusCode(400)
+                .contentType("application/json")
+                .extract()
+                .as(ErrorResponse.class);
+
+        Assertions.assertTrue(errorResponse.description().startsWith("Algorithm SIEVE_OF_ERATOSTHENES can't stream"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = Algorithm.class, names = {"AUTO", "CONCURRENT_SEGMENTED_SIEVE_WHEEL", "SIEVE_OF_ATKIN"})
+    void givenStreamableAlgorithm_whenStreamPrimeNumbers_thenReturnPrimeNumberResponse(Algorithm algorithm) {
+        PrimeNumberResponse primeNumberResponse = RestAssured
+                .given()
+                .queryParam("limit", 150)
+                .queryParam("algorithm", algorithm)
+                .when()
+                .get("/api/v1/primes/stream")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(PrimeNumberResponse.class);
+
+        Assertions.assertArrayEquals(PRIME_NUMBERS_UP_TO_150, primeNumberResponse.primes().toLongArray());
+        Assertions.assertEquals(PRIME_NUMBERS_UP_TO_150.length, primeNumberResponse.numOfPrimes());
+        Assertions.assertEquals(
+                algorithm == Algorithm.AUTO ? Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL : algorithm,
+                primeNumberResponse.algorithm());
+    }
+
+    @Test
+    void givenRangeAboveIntegerMax_whenStreamPrimeNumbers_thenReturnPrimeNumbersInRange() {
+        PrimeNumberResponse primeNumberResponse = RestAssured
+                .given()
+                .queryParam("from", 10_000_000_000L)
+                .queryParam("limit", 10_000_000_100L)
+                .when()
+                .get("/api/v1/primes/stream")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(PrimeNumberResponse.class);
+
+        Assertions.assertArrayEquals(
+                new long[]{10_000_000_019L, 10_000_000_033L, 10_000_000_061L, 10_000_000_069L, 10_000_000_097L},
+                primeNumberResponse.primes().toLongArray());
+    }
+
+    @Test
+    void givenAlgorithmThatCantStream_whenStreamPrimeNumbers_thenReturnErrorResponse() {
+        ErrorResponse errorResponse = RestAssured
+                .given()
+                .queryParam("limit", 150)
+                .queryParam("algorithm", Algorithm.SIEVE_OF_ERATOSTHENES)
+                .when()
+                .get("/api/v1/primes/stream")
+                .then()
+                .statusCode(400)
+                .extract()
+                .as(ErrorResponse.class);
+
+        Assertions.assertTrue(errorResponse.description().startsWith("Algorithm SIEVE_OF_ERATOSTHENES can't stream"));
+    }
+
+    @Test
+    void givenRange_whenGetPrimeBitmap_thenReturnBase64WheelBitmap() {
+        PrimeBitmapResponse primeBitmapResponse = RestAssured
+                .given()
+                .queryParam("from", 100)
+                .queryParam("limit", 150)
+                .when()
+                .get("/api/v1/primes/bitmap")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(PrimeBitmapResponse.class);
+
+        Assertions.assertEquals(Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL, primeBitmapResponse.algorithm());
+        Assertions.assertEquals(90, primeBitmapResponse.offset());
+        Assertions.assertEquals(10, primeBitmapResponse.numOfPrimes());
+        // 90 + r: 101, 103, 107, 109, 113, since 97 is below from. 120 + r: 127, 131, 137, 139, 149. 150 + r: none
+        Assertions.assertArrayEquals(
+                new byte[]{0b01111100, (byte) 0b10110110, 0},
+                primeBitmapResponse.bitmap());
+    }
+
+    @Test
+    void givenOctetStreamAcceptHeader_whenGetPrimeBitmap_thenReturnRawBitmap() {
+        byte[] body = RestAssured
+                .given()
+                .accept("application/octet-stream")
+                .queryParam("limit", 150)
+                .queryParam("algorithm", Algorithm.SIEVE_OF_ATKIN)
+                .when()
+                .get("/api/v1/primes/bitmap")
+                .then()
+                .statusCode(200)
+                .contentType("application/octet-stream")
+                .header("X-Algorithm", "SIEVE_OF_ATKIN")
+                .header("X-Bitmap-Offset", "0")
+                .header("X-Num-Of-Primes", String.valueOf(PRIME_NUMBERS_UP_TO_150.length))
+                .extract()
+                .asByteArray();
+
+        Assertions.assertEquals(6, body.length);
+        // 1 is not a prime, 7 to 29 are
+        Assertions.assertEquals((byte) 0b11111110, body[0]);
+    }
+
+    @Test
+    void givenAlgorithmWithoutWheel_whenGetPrimeBitmap_thenReturnErrorResponse() {
+        ErrorResponse errorResponse = RestAssured
+                .given()
+                .queryParam("limit", 150)
+                .queryParam("algorithm", Algorithm.SEGMENTED_SIEVE_BITSET)
+                .when()
+                .get("/api/v1/primes/bitmap")
+                .then()
+                .statusCode(400)
+                .extract()
+                .as(ErrorResponse.class);
+
+        Assertions.assertTrue(errorResponse.description().startsWith("Algorithm SEGMENTED_SIEVE_BITSET doesn't sieve"));
+    }
+
+    @Test
+    void givenLimit_whenCountPrimeNumbers_thenReturnPrimeCount() {
+        PrimeCountResponse primeCountResponse = RestAssured
+                .given()
+                .queryParam("limit", 10_000_000_000L)
+                .when()
+                .get("/api/v1/primes/count")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(PrimeCountResponse.class);
+
+        Assertions.assertEquals(10_000_000_000L, primeCountResponse.limit());
+        Assertions.assertEquals(455_052_511L, primeCountResponse.numOfPrimes());
+    }
+
+    @Test
+    void givenN_whenGetNthPrimeNumber_thenReturnNthPrime() {
+        NthPrimeResponse nthPrimeResponse = RestAssured
+                .given()
+                .queryParam("n", 100_000_000L)
+                .when()
+                .get("/api/v1/primes/nth")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(NthPrimeResponse.class);
+
+        Assertions.assertEquals(100_000_000L, nthPrimeResponse.n());
+        Assertions.assertEquals(2_038_074_743L, nthPrimeResponse.prime());
+    }
+
+    @Test
+    void givenPrimeNumber_whenIsPrime_thenReturnPrime() {
+        PrimalityResponse primalityResponse = RestAssured
+                .given()
+                .queryParam("number", 1_000_000_000_000_037L)
+                .when()
+                .get("/api/v1/primes/is-prime")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(PrimalityResponse.class);
+
+        Assertions.assertEquals(1_000_000_000_000_037L, primalityResponse.number());
+        Assertions.assertTrue(primalityResponse.prime());
+    }
+
+    @Test
+    void givenNumbers_whenIsPrimeBatch_thenReturnResultsInRequestOrder() {
+        PrimalityBatchResponse primalityBatchResponse = RestAssured
+                .given()
+                .contentType("application/json")
+                .body(new long[]{149L, 150L, 1_000_000_000_000_037L, 1_000_000_000_000_039L})
+                .when()
+                .post("/api/v1/primes/is-prime")
+                .then()
+                .statusCode(200)
+                .extract()
+                .as(PrimalityBatchResponse.class);
+
+        Assertions.assertArrayEquals(new boolean[]{true, false, true, false}, primalityBatchResponse.results());
+        Assertions.assertEquals(2, primalityBatchResponse.numOfPrimes());
     }
 }
@@ -0,0 +1,77 @@
+package com.denisneagu.primenumberapi.service.impl;
+
+import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.util.Constant;
+import com.denisneagu.primenumberapi.util.ExecutorServiceProvider;
+import com.denisneagu.primenumberapi.util.Util;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AlgorithmSelectionServiceImplTest {
+    private static final ExecutorServiceProvider executorServiceProvider = new ExecutorServiceProvider();
+
+    private AlgorithmSelectionServiceImpl getAlgorithmSelectionService() {
+        return new AlgorithmSelectionServiceImpl(new AlgorithmServiceImpl(), executorServiceProvider, false);
+    }
+
+    @Test
+    void givenLargePrefix_whenSelectAlgorithm_thenReturnWheelSieve() {
+        AlgorithmSelectionServiceImpl selectionService = getAlgorithmSelectionService();
+
+        assertThat(selectionService.selectAlgorithm(2L, 1_000_000_000L, false))
+                .isEqualTo(Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL);
+    }
+
+    @Test
+    void givenNarrowWindowHighUp_whenSelectAlgorithm_thenReturnTrialDivision() {
+        AlgorithmSelectionServiceImpl selectionService = getAlgorithmSelectionService();
+
+        // sieving would need every base prime up to sqrt(limit), eleven trial divisions are far cheaper
+        assertThat(selectionService.selectAlgorithm(1_000_000_000_000_000L, 1_000_000_000_000_010L, true))
+                .isEqualTo(Algorithm.NAIVE_TRIAL_DIVISION_OPTIMISED);
+    }
+
+    @Test
+    void givenNoSafeMemoryForSieves_whenSelectAlgorithm_thenReturnTrialDivision() {
+        try (MockedStatic<Util> utilMock = Mockito.mockStatic(Util.class)) {
+            utilMock.when(Util::getMaxSafeMemory).thenReturn(1_000L);
+
+            AlgorithmSelectionServiceImpl selectionService = getAlgorithmSelectionService();
+
+            assertThat(selectionService.selectAlgorithm(2L, 1_000_000L, false))
+                    .isEqualTo(Algorithm.NAIVE_TRIAL_DIVISION_OPTIMISED);
+        }
+    }
+
+    @Test
+    void givenMorePrimesToShowThanAnArrayHolds_whenSelectAlgorithm_thenSelectEngine() {
+        AlgorithmSelectionServiceImpl selectionService = getAlgorithmSelectionService();
+
+        // primes are paged, so the count alone no longer rules out a listing
+        assertThat(selectionService.selectAlgorithm(2L, 100_000_000_000L, true)).isNotNull();
+        assertThat(selectionService.selectAlgorithm(2L, 100_000_000_000L, false)).isNotNull();
+    }
+
+    @Test
+    void givenFromGreaterThanLimit_whenSelectAlgorithm_thenThrowIllegalArgumentException() {
+        AlgorithmSelectionServiceImpl selectionService = getAlgorithmSelectionService();
+
+        assertThatThrownBy(() -> selectionService.selectAlgorithm(100L, 10L, false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(Constant.FROM_GREATER_THAN_LIMIT_MESSAGE);
+    }
+
+    @Test
+    void givenCalibration_whenSelectAlgorithm_thenReturnSieveForLargePrefix() {
+        AlgorithmSelectionServiceImpl selectionService = getAlgorithmSelectionService();
+
+        selectionService.calibrate();
+
+        assertThat(selectionService.selectAlgorithm(2L, 100_000_000L, false))
+                .isNotIn(Algorithm.NAIVE_TRIAL_DIVISION, Algorithm.NAIVE_TRIAL_DIVISION_OPTIMISED);
+    }
+}
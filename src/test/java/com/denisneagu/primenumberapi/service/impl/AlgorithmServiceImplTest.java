@@ -1,12 +1,16 @@
 package com.denisneagu.primenumberapi.service.impl;
 
 import com.denisneagu.primenumberapi.util.ExecutorServiceProvider;
+import com.denisneagu.primenumberapi.util.MillerRabin;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 
 import java.util.concurrent.ExecutorService;
+import java.util.stream.LongStream;
 
 public class AlgorithmServiceImplTest {
     AlgorithmServiceImpl service = new AlgorithmServiceImpl();
@@ -16,19 +20,19 @@ public class AlgorithmServiceImplTest {
 
         @Test
         void givenStartAndLimit_whenGetPrimeNumbersUsingNaive_thenReturnPrimeNumbers() {
-            long[] primes = service.getPrimeNumbersUsingNaiveTrialDivision(2L, 20L);
+            long[] primes = service.getPrimeNumbersUsingNaiveTrialDivision(2L, 20L).toLongArray();
             Assertions.assertArrayEquals(new long[]{2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L}, primes);
         }
 
         @Test
         void givenSinglePrimeRange_whenGetPrimeNumbersUsingNaive_thenReturnSinglePrime() {
-            long[] primes = service.getPrimeNumbersUsingNaiveTrialDivision(13L, 13L);
+            long[] primes = service.getPrimeNumbersUsingNaiveTrialDivision(13L, 13L).toLongArray();
             Assertions.assertArrayEquals(new long[]{13L}, primes);
         }
 
         @Test
         void givenSingleNonPrimeRange_whenGetPrimeNumbersUsingNaive_thenReturnEmptyArray() {
-            long[] primes = service.getPrimeNumbersUsingNaiveTrialDivision(14L, 14L);
+            long[] primes = service.getPrimeNumbersUsingNaiveTrialDivision(14L, 14L).toLongArray();
             Assertions.assertArrayEquals(new long[]{}, primes);
         }
     }
@@ -38,13 +42,13 @@ public class AlgorithmServiceImplTest {
 
         @Test
         void givenValidHigherStartAtRange_whenGetPrimeNumbersUsingOptimisedNaive_thenReturnPrimes() {
-            long[] primes = service.getPrimeNumbersUsingNaiveTrialDivisionOptimised(100L, 105L);
+            long[] primes = service.getPrimeNumbersUsingNaiveTrialDivisionOptimised(100L, 105L).toLongArray();
             Assertions.assertArrayEquals(new long[]{101, 103}, primes);
         }
 
         @Test
         void givenRangeStartingAtEvenNumber_whenGetPrimeNumbersUsingOptimisedNaive_thenSkipEvensCorrectly() {
-            long[] primes = service.getPrimeNumbersUsingNaiveTrialDivisionOptimised(6L, 10L);
+            long[] primes = service.getPrimeNumbersUsingNaiveTrialDivisionOptimised(6L, 10L).toLongArray();
             Assertions.assertArrayEquals(new long[]{7L}, primes);
         }
     }
@@ -54,21 +58,41 @@ public class AlgorithmServiceImplTest {
 
         @Test
         void givenValidRange_whenGetPrimeNumbersUsingSieveOfEratosthenes_thenReturnPrimes() {
-            long[] primes = service.getPrimeNumbersUsingSieveOfEratosthenes(2L, 10L);
+            long[] primes = service.getPrimeNumbersUsingSieveOfEratosthenes(2L, 10L).toLongArray();
             Assertions.assertArrayEquals(new long[]{2L, 3L, 5L, 7L}, primes);
         }
 
         @Test
         void givenValidRangeFromSevenToEight_whenGetPrimeNumbersUsingSieveOfEratosthenes_thenReturnSinglePrime() {
-            long[] primes = service.getPrimeNumbersUsingSieveOfEratosthenes(7L, 8L);
+            long[] primes = service.getPrimeNumbersUsingSieveOfEratosthenes(7L, 8L).toLongArray();
             Assertions.assertArrayEquals(new long[]{7L}, primes);
         }
 
         @Test
         void givenValidRangeFromNineToTen_whenGetPrimeNumbersUsingSieveOfEratosthenes_thenReturnEmptyArray() {
-            long[] primes = service.getPrimeNumbersUsingSieveOfEratosthenes(9L, 10L);
+            long[] primes = service.getPrimeNumbersUsingSieveOfEratosthenes(9L, 10L).toLongArray();
             Assertions.assertArrayEquals(new long[]{}, primes);
         }
+
+        @Test
+        void givenPrimeLimit_whenGetPrimeNumbersUsingSieveOfEratosthenes_thenIncludeLimit() {
+            long[] primes = service.getPrimeNumbersUsingSieveOfEratosthenes(2L, 11L).toLongArray();
+            Assertions.assertArrayEquals(new long[]{2L, 3L, 5L, 7L, 11L}, primes);
+        }
+
+        @Test
+        void givenRangeAboveIntegerMax_whenGetPrimeNumbersUsingSieveOfEratosthenes_thenSieveWindowOnly() {
+            long startAt = Integer.MAX_VALUE - 1_000L;
+            long limit = Integer.MAX_VALUE + 1_000L;
+            long[] primes = service.getPrimeNumbersUsingSieveOfEratosthenes(startAt, limit).toLongArray();
+            Assertions.assertArrayEquals(service.getPrimeNumbersUsingNaiveTrialDivisionOptimised(startAt, limit).toLongArray(), primes);
+        }
+
+        @Test
+        void givenLimitWithSqrtAboveIntegerMax_whenGetPrimeNumbersUsingSieveOfEratosthenes_thenThrowIllegalArgumentException() {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> service.getPrimeNumbersUsingSieveOfEratosthenes(Long.MAX_VALUE - 10L, Long.MAX_VALUE));
+        }
     }
 
     @Nested
@@ -78,19 +102,19 @@ public class AlgorithmServiceImplTest {
 
         @Test
         void givenValidRangeFromSevenToEight_GetPrimeNumbersUsingConcurrentSegmentedSieve_thenReturnSinglePrime() {
-            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieve(executorService, 7L, 8L);
+            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieve(executorService, 7L, 8L).toLongArray();
             Assertions.assertArrayEquals(new long[]{7L}, primes);
         }
 
         @Test
         void givenValidRangeFromNineToTen_GetPrimeNumbersUsingConcurrentSegmentedSieve_thenReturnEmptyArray() {
-            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieve(executorService, 9L, 10L);
+            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieve(executorService, 9L, 10L).toLongArray();
             Assertions.assertArrayEquals(new long[]{}, primes);
         }
 
         @Test
         void givenValidRange_GetPrimeNumbersUsingConcurrentSegmentedSieve_thenReturnPrimeNumbers() {
-            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieve(executorService, 2L, 20L);
+            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieve(executorService, 2L, 20L).toLongArray();
             Assertions.assertArrayEquals(new long[]{2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L}, primes);
         }
 
@@ -105,7 +129,7 @@ public class AlgorithmServiceImplTest {
 
         @Test
         void givenValidRangeFromSevenToTwenty_whenGetPrimeNumbersUsingSegmentedSieveBitset_thenReturnPrimeNumbers() {
-            long[] primes = service.getPrimeNumbersUsingSegmentedSieveBitset(2L, 20L);
+            long[] primes = service.getPrimeNumbersUsingSegmentedSieveBitset(2L, 20L).toLongArray();
             Assertions.assertArrayEquals(
                     new long[]{2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L},
                     primes
@@ -114,7 +138,7 @@ public class AlgorithmServiceImplTest {
 
         @Test
         void givenValidRangeFromSevenToEight_whenGetPrimeNumbersUsingSegmentedSieveBitset_thenReturnSinglePrime() {
-            long[] primes = service.getPrimeNumbersUsingSegmentedSieveBitset(7L, 8L);
+            long[] primes = service.getPrimeNumbersUsingSegmentedSieveBitset(7L, 8L).toLongArray();
             Assertions.assertArrayEquals(
                     new long[]{7L},
                     primes
@@ -123,7 +147,7 @@ public class AlgorithmServiceImplTest {
 
         @Test
         void givenValidRangeFromNineToTen_whenGetPrimeNumbersUsingSegmentedSieveBitset_thenReturnEmptyArray() {
-            long[] primes = service.getPrimeNumbersUsingSegmentedSieveBitset(9L, 10L);
+            long[] primes = service.getPrimeNumbersUsingSegmentedSieveBitset(9L, 10L).toLongArray();
             Assertions.assertArrayEquals(
                     new long[]{},
                     primes
@@ -132,7 +156,7 @@ public class AlgorithmServiceImplTest {
 
         @Test
         void givenRangeStartingBelowTwo_whenGetPrimeNumbersUsingSegmentedSieveBitset_thenStartAtTwo() {
-            long[] primes = service.getPrimeNumbersUsingSegmentedSieveBitset(0L, 10L);
+            long[] primes = service.getPrimeNumbersUsingSegmentedSieveBitset(0L, 10L).toLongArray();
             Assertions.assertArrayEquals(
                     new long[]{2L, 3L, 5L, 7L},
                     primes
@@ -141,11 +165,213 @@ public class AlgorithmServiceImplTest {
 
         @Test
         void givenLargeRangeWithNoPrimes_whenGetPrimeNumbersUsingSegmentedSieveBitset_thenReturnEmptyArray() {
-            long[] primes = service.getPrimeNumbersUsingSegmentedSieveBitset(14L, 15L);
+            long[] primes = service.getPrimeNumbersUsingSegmentedSieveBitset(14L, 15L).toLongArray();
             Assertions.assertArrayEquals(
                     new long[]{},
                     primes
             );
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    class GetPrimeNumbersUsingConcurrentSegmentedSieveWheel {
+        private static final ExecutorService executorService = new ExecutorServiceProvider()
+                .getExecutorService();
+
+        @Test
+        void givenValidRange_whenGetPrimeNumbersUsingConcurrentSegmentedSieveWheel_thenReturnPrimeNumbers() {
+            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieveWheel(executorService, 2L, 20L).toLongArray();
+            Assertions.assertArrayEquals(new long[]{2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L}, primes);
+        }
+
+        @Test
+        void givenValidRangeFromSevenToEight_whenGetPrimeNumbersUsingConcurrentSegmentedSieveWheel_thenReturnSinglePrime() {
+            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieveWheel(executorService, 7L, 8L).toLongArray();
+            Assertions.assertArrayEquals(new long[]{7L}, primes);
+        }
+
+        @Test
+        void givenValidRangeFromNineToTen_whenGetPrimeNumbersUsingConcurrentSegmentedSieveWheel_thenReturnEmptyArray() {
+            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieveWheel(executorService, 9L, 10L).toLongArray();
+            Assertions.assertArrayEquals(new long[]{}, primes);
+        }
+
+        @Test
+        void givenLargeRange_whenGetPrimeNumbersUsingConcurrentSegmentedSieveWheel_thenMatchSegmentedSieveBitset() {
+            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieveWheel(
+                    executorService, 1_000L, 10_000_000L).toLongArray();
+            Assertions.assertArrayEquals(service.getPrimeNumbersUsingSegmentedSieveBitset(1_000L, 10_000_000L).toLongArray(), primes);
+        }
+
+        @Test
+        void givenNarrowRangeNearTenToTheFifteen_whenGetPrimeNumbersUsingConcurrentSegmentedSieveWheel_thenMatchMillerRabin() {
+            long startAt = 1_000_000_000_000_000L;
+            long limit = startAt + 10_000L;
+            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieveWheel(executorService, startAt, limit).toLongArray();
+            long[] expected = LongStream.rangeClosed(startAt, limit).filter(MillerRabin::isPrime).toArray();
+            Assertions.assertArrayEquals(expected, primes);
+        }
+
+        @AfterAll
+        static void shutDown() {
+            executorService.shutdown();
+        }
+    }
+
+    @Nested
+    class GetPrimeNumbersUsingSieveOfAtkin {
+        private static final ExecutorService executorService = new ExecutorServiceProvider()
+                .getExecutorService();
+
+        @Test
+        void givenValidRange_whenGetPrimeNumbersUsingSieveOfAtkin_thenReturnPrimeNumbers() {
+            long[] primes = service.getPrimeNumbersUsingSieveOfAtkin(executorService, 2L, 20L).toLongArray();
+            Assertions.assertArrayEquals(new long[]{2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L}, primes);
+        }
+
+        @Test
+        void givenValidRangeFromNineToTen_whenGetPrimeNumbersUsingSieveOfAtkin_thenReturnEmptyArray() {
+            long[] primes = service.getPrimeNumbersUsingSieveOfAtkin(executorService, 9L, 10L).toLongArray();
+            Assertions.assertArrayEquals(new long[]{}, primes);
+        }
+
+        @Test
+        void givenLargeRange_whenGetPrimeNumbersUsingSieveOfAtkin_thenMatchSegmentedSieveBitset() {
+            long[] primes = service.getPrimeNumbersUsingSieveOfAtkin(executorService, 1_000L, 10_000_000L).toLongArray();
+            Assertions.assertArrayEquals(service.getPrimeNumbersUsingSegmentedSieveBitset(1_000L, 10_000_000L).toLongArray(), primes);
+        }
+
+        @AfterAll
+        static void shutDown() {
+            executorService.shutdown();
+        }
+    }
+
+    @Nested
+    class CountPrimeNumbers {
+        private static final ExecutorService executorService = new ExecutorServiceProvider()
+                .getExecutorService();
+
+        @ParameterizedTest
+        @CsvSource({"2, 2", "2, 10", "9, 10", "2, 100000", "99991, 100003", "1000, 1000000"})
+        void givenRange_whenCountPrimeNumbers_thenEveryEngineMatchesNumberOfPrimes(long startAt, long limit) {
+            long expected = service.getPrimeNumbersUsingSegmentedSieveBitset(startAt, limit).length();
+
+            Assertions.assertEquals(expected, service.countPrimeNumbersUsingNaiveTrialDivision(startAt, limit));
+            Assertions.assertEquals(expected, service.countPrimeNumbersUsingNaiveTrialDivisionOptimised(startAt, limit));
+            Assertions.assertEquals(expected, service.countPrimeNumbersUsingSieveOfEratosthenes(startAt, limit));
+            Assertions.assertEquals(expected,
+                    service.countPrimeNumbersUsingConcurrentSegmentedSieve(executorService, startAt, limit));
+            Assertions.assertEquals(expected, service.countPrimeNumbersUsingSegmentedSieveBitset(startAt, limit));
+            Assertions.assertEquals(expected,
+                    service.countPrimeNumbersUsingConcurrentSegmentedSieveWheel(executorService, startAt, limit));
+            Assertions.assertEquals(expected,
+                    service.countPrimeNumbersUsingSieveOfAtkin(executorService, startAt, limit));
+        }
+
+        @Test
+        void givenTenToTheNine_whenCountPrimeNumbersUsingConcurrentSegmentedSieveWheel_thenReturnKnownPrimeCount() {
+            long count = service.countPrimeNumbersUsingConcurrentSegmentedSieveWheel(
+                    executorService, 2L, 1_000_000_000L);
+            Assertions.assertEquals(50_847_534L, count);
+        }
+
+        @AfterAll
+        static void shutDown() {
+            executorService.shutdown();
+        }
+    }
+
+    @Nested
+    class CountPrimeNumbersUsingLagariasMillerOdlyzko {
+        private static final ExecutorService executorService = new ExecutorServiceProvider()
+                .getExecutorService();
+
+        @Test
+        void givenLimit_whenCountPrimeNumbersUsingLagariasMillerOdlyzko_thenMatchSegmentedSieveWheel() {
+            long count = service.countPrimeNumbersUsingLagariasMillerOdlyzko(executorService, 10_000_000L);
+            Assertions.assertEquals(
+                    service.getPrimeNumbersUsingConcurrentSegmentedSieveWheel(executorService, 2L, 10_000_000L).length(),
+                    count);
+        }
+
+        @Test
+        void givenTenToTheThirteen_whenCountPrimeNumbersUsingLagariasMillerOdlyzko_thenReturnKnownPrimeCount() {
+            long count = service.countPrimeNumbersUsingLagariasMillerOdlyzko(executorService, 10_000_000_000_000L);
+            Assertions.assertEquals(346_065_536_839L, count);
+        }
+
+        @AfterAll
+        static void shutDown() {
+            executorService.shutdown();
+        }
+    }
+
+    @Nested
+    class GetNthPrimeNumber {
+        private static final ExecutorService executorService = new ExecutorServiceProvider()
+                .getExecutorService();
+
+        @Test
+        void givenFirstThousandIndices_whenGetNthPrimeNumber_thenMatchSegmentedSieveWheel() {
+            long[] primes = service.getPrimeNumbersUsingConcurrentSegmentedSieveWheel(executorService, 2L, 7_919L).toLongArray();
+            for (int n = 1; n <= primes.length; n++) {
+                Assertions.assertEquals(primes[n - 1], service.getNthPrimeNumber(executorService, n), "n = " + n);
+            }
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+                "10000, 104729",
+                "1000000, 15485863",
+                "100000000, 2038074743",
+                "10000000000, 252097800623"
+        })
+        void givenPowerOfTen_whenGetNthPrimeNumber_thenReturnKnownPrime(long n, long expected) {
+            Assertions.assertEquals(expected, service.getNthPrimeNumber(executorService, n));
+        }
+
+        @Test
+        void givenZero_whenGetNthPrimeNumber_thenThrowIllegalArgumentException() {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> service.getNthPrimeNumber(executorService, 0));
+        }
+
+        @AfterAll
+        static void shutDown() {
+            executorService.shutdown();
+        }
+    }
+
+    @Nested
+    class IsPrimeUsingMillerRabin {
+        private static final ExecutorService executorService = new ExecutorServiceProvider()
+                .getExecutorService();
+
+        @Test
+        void givenPrimeNearTenToTheFifteen_whenIsPrimeUsingMillerRabin_thenReturnTrue() {
+            Assertions.assertTrue(service.isPrimeUsingMillerRabin(1_000_000_000_000_037L));
+        }
+
+        @Test
+        void givenComposite_whenIsPrimeUsingMillerRabin_thenReturnFalse() {
+            Assertions.assertFalse(service.isPrimeUsingMillerRabin(1_000_000_000_000_039L));
+        }
+
+        @Test
+        void givenLargeBatch_whenIsPrimeUsingMillerRabin_thenMatchSingleChecksInOrder() {
+            long[] numbers = LongStream.range(1_000_000_000_000_000L, 1_000_000_000_020_000L).toArray();
+
+            boolean[] results = service.isPrimeUsingMillerRabin(executorService, numbers);
+
+            Assertions.assertEquals(numbers.length, results.length);
+            for (int i = 0; i < numbers.length; i++) {
+                Assertions.assertEquals(service.isPrimeUsingMillerRabin(numbers[i]), results[i]);
+            }
+        }
+
+        @AfterAll
+        static void shutDown() {
+            executorService.shutdown();
+        }
+    }
+}
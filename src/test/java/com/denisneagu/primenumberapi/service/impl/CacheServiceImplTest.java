@@ -1,12 +1,19 @@
 package com.denisneagu.primenumberapi.service.impl;
 
+import com.denisneagu.primenumberapi.dto.CacheStatisticsResponse;
+import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
+import com.denisneagu.primenumberapi.service.CacheService;
 import com.denisneagu.primenumberapi.exception.MemoryConstraintException;
+import com.denisneagu.primenumberapi.util.CompressedPrimeSequence;
 import com.denisneagu.primenumberapi.util.Util;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
+import java.math.BigInteger;
 import java.util.Map;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -16,13 +23,12 @@ public class CacheServiceImplTest {
     @Test
     void givenSafeCaching_whenAddPrimeNumbersToCache_thenPrimesAreAdded() {
         CacheServiceImpl cacheService = new CacheServiceImpl();
-        long[] primes = {2L, 3L, 5L, 7L};
+        CompressedPrimeSequence primes = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L});
 
         cacheService.addPrimeNumbersToCache(10L, primes);
 
-        assertThat(cacheService.getCachedPrimeNumbers(10L)).containsExactly(2L, 3L, 5L, 7L);
-        assertThat(cacheService.getAllCachedLimitToPrimeNumbers().get(10L)).containsExactly(2L, 3L, 5L, 7L);
-        assertThat(cacheService.getExistingCache()).isEqualTo(32L);
+        assertThat(cacheService.getCachedPrimeNumbers(10L).toArray().toLongArray()).containsExactly(2L, 3L, 5L, 7L);
+        assertThat(cacheService.getExistingCache()).isEqualTo(primes.getSizeInBytes());
     }
 
     @Test
@@ -32,29 +38,40 @@ public class CacheServiceImplTest {
                     .thenThrow(new MemoryConstraintException("Insufficient memory"));
 
             CacheServiceImpl cacheService = new CacheServiceImpl();
-            long[] primes = {2L, 3L, 5L, 7L};
+            CompressedPrimeSequence primes = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L});
 
             cacheService.addPrimeNumbersToCache(10L, primes);
 
             assertThat(cacheService.getCachedPrimeNumbers(10L)).isNull();
-            assertThat(cacheService.getAllCachedLimitToPrimeNumbers()).isEmpty();
+            assertThat(cacheService.getHighestCachedPrimeNumbersEntry()).isNull();
             assertThat(cacheService.getExistingCache()).isEqualTo(0L);
         }
     }
 
+    @Test
+    void givenSameLimitCachedTwice_whenAddPrimeNumbersToCache_thenExistingCacheCountsLatestOnly() {
+        CacheServiceImpl cacheService = new CacheServiceImpl();
+        CompressedPrimeSequence primes = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L});
+
+        cacheService.addPrimeNumbersToCache(10L, primes);
+        cacheService.addPrimeNumbersToCache(10L, primes);
+
+        assertThat(cacheService.getExistingCache()).isEqualTo(primes.getSizeInBytes());
+    }
+
     @Test
     void givenCacheReset_whenClearCache_thenReturnEmptyCache() {
         CacheServiceImpl cacheService = new CacheServiceImpl();
-        long[] primes1 = {2L, 3L, 5L, 7L};
+        CompressedPrimeSequence primes1 = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L});
         cacheService.addPrimeNumbersToCache(10L, primes1);
 
         assertThat(cacheService.getExistingCache()).isGreaterThan(0);
-        assertThat(cacheService.getAllCachedLimitToPrimeNumbers()).isNotEmpty();
+        assertThat(cacheService.getHighestCachedPrimeNumbersEntry()).isNotNull();
 
         cacheService.clearCache();
 
         assertThat(cacheService.getExistingCache()).isEqualTo(0);
-        assertThat(cacheService.getAllCachedLimitToPrimeNumbers()).isEmpty();
+        assertThat(cacheService.getHighestCachedPrimeNumbersEntry()).isNull();
         assertThat(cacheService.getCachedPrimeNumbers(10L)).isNull();
     }
 
@@ -62,7 +79,7 @@ public class CacheServiceImplTest {
     void givenEmptyCache_whenGetHighestCachedPrimeNumbersEntry_thenReturnNull() {
         CacheServiceImpl cacheService = new CacheServiceImpl();
 
-        Map.Entry<Long, long[]> result = cacheService.getHighestCachedPrimeNumbersEntry();
+        Map.Entry<Long, CompressedPrimeSequence> result = cacheService.getHighestCachedPrimeNumbersEntry();
 
         assertThat(result).isNull();
     }
@@ -71,16 +88,220 @@ public class CacheServiceImplTest {
     void givenCacheHasEntries_whenGetHighestCachedPrimeNumbersEntry_thenReturnHighestEntry() {
         CacheServiceImpl cacheService = new CacheServiceImpl();
 
-        long[] primes1 = {2L, 3L, 3L, 7L};
-        long[] primes2 = {2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L};
+        CompressedPrimeSequence primes1 = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L});
+        CompressedPrimeSequence primes2 = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L});
 
         cacheService.addPrimeNumbersToCache(10L, primes1);
         cacheService.addPrimeNumbersToCache(20L, primes2);
 
-        Map.Entry<Long, long[]> result = cacheService.getHighestCachedPrimeNumbersEntry();
+        Map.Entry<Long, CompressedPrimeSequence> result = cacheService.getHighestCachedPrimeNumbersEntry();
 
         assertThat(result).isNotNull();
         assertThat(result.getKey()).isEqualTo(20L);
-        assertThat(result.getValue()).containsExactly(2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L);
+        assertThat(result.getValue().toArray().toLongArray()).containsExactly(2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L);
+    }
+
+    @Test
+    void givenCachedPrefix_whenGetCachedPrimeNumbersBelowLimit_thenReturnHeadOfPrefix() {
+        CacheServiceImpl cacheService = new CacheServiceImpl();
+        cacheService.addPrimeNumbersToCache(20L, CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L}));
+
+        assertThat(cacheService.getCachedPrimeNumbers(12L).toArray().toLongArray()).containsExactly(2L, 3L, 5L, 7L, 11L);
+        assertThat(cacheService.getCachedPrimeNumbers(13L).size()).isEqualTo(6);
+        assertThat(cacheService.getCachedPrimeNumbers(2L).toArray().toLongArray()).containsExactly(2L);
+        assertThat(cacheService.getCachedPrimeNumbers(21L)).isNull();
+    }
+
+    @Test
+    void givenLongerPrefixCached_whenAddShorterPrefix_thenKeepLongerPrefix() {
+        CacheServiceImpl cacheService = new CacheServiceImpl();
+        CompressedPrimeSequence primes = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L});
+
+        cacheService.addPrimeNumbersToCache(20L, primes);
+        cacheService.addPrimeNumbersToCache(10L, CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L}));
+
+        assertThat(cacheService.getHighestCachedPrimeNumbersEntry().getKey()).isEqualTo(20L);
+        assertThat(cacheService.getExistingCache()).isEqualTo(primes.getSizeInBytes());
+    }
+
+    @Test
+    void givenPrefixAboveSafeMemory_whenAddPrimeNumbersToCache_thenKeepLongestHeadThatFits() {
+        try (MockedStatic<Util> utilMock = Mockito.mockStatic(Util.class, Mockito.CALLS_REAL_METHODS)) {
+            utilMock.when(Util::getMaxSafeMemory).thenReturn(100L);
+
+            CacheServiceImpl cacheService = new CacheServiceImpl();
+            CompressedPrimeSequence primes = CompressedPrimeSequence.of(
+                    LongStream.rangeClosed(2, 1000)
+                            .filter(n -> BigInteger.valueOf(n).isProbablePrime(50))
+                            .toArray());
+
+            cacheService.addPrimeNumbersToCache(1000L, primes);
+
+            // 25 primes take the 64 bytes of overhead, 24 gap bytes and a checkpoint
+            assertThat(cacheService.getHighestCachedPrimeNumbersEntry().getKey()).isEqualTo(97L);
+            assertThat(cacheService.getCachedPrimeNumbers(97L)).isEqualTo(primes.head(25));
+            assertThat(cacheService.getExistingCache()).isLessThanOrEqualTo(100L);
+            CacheStatisticsResponse statistics = cacheService.getCacheStatistics();
+            assertThat(statistics.evictions()).isEqualTo(1);
+            assertThat(statistics.evictedBytes()).isEqualTo(primes.getSizeInBytes() - cacheService.getExistingCache());
+        }
+    }
+
+    @Test
+    void givenTrimmedHeadNoLongerThanPrefix_whenAddPrimeNumbersToCache_thenDontCountEviction() {
+        try (MockedStatic<Util> utilMock = Mockito.mockStatic(Util.class, Mockito.CALLS_REAL_METHODS)) {
+            utilMock.when(Util::getMaxSafeMemory).thenReturn(100L);
+
+            CacheServiceImpl cacheService = new CacheServiceImpl();
+            CompressedPrimeSequence primes = CompressedPrimeSequence.of(
+                    LongStream.rangeClosed(2, 1000)
+                            .filter(n -> BigInteger.valueOf(n).isProbablePrime(50))
+                            .toArray());
+            cacheService.addPrimeNumbersToCache(97L, primes.head(25));
+
+            // the longest head that fits ends at 97 as well, so the cached prefix stays and nothing is evicted
+            cacheService.addPrimeNumbersToCache(1000L, primes);
+
+            assertThat(cacheService.getHighestCachedPrimeNumbersEntry().getKey()).isEqualTo(97L);
+            CacheStatisticsResponse statistics = cacheService.getCacheStatistics();
+            assertThat(statistics.evictions()).isZero();
+            assertThat(statistics.evictedBytes()).isZero();
+        }
+    }
+
+    @Test
+    void givenLookups_whenGetCacheStatistics_thenCountHitsAndMisses() {
+        CacheServiceImpl cacheService = new CacheServiceImpl();
+        cacheService.getCachedPrimeNumbers(10L);
+        cacheService.addPrimeNumbersToCache(10L, CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L}));
+        cacheService.getCachedPrimeNumbers(10L);
+        cacheService.getCachedPrimeNumbers(5L);
+
+        CacheStatisticsResponse statistics = cacheService.getCacheStatistics();
+
+        assertThat(statistics.cachedLimit()).isEqualTo(10L);
+        assertThat(statistics.hits()).isEqualTo(2);
+        assertThat(statistics.misses()).isEqualTo(1);
+        assertThat(statistics.evictions()).isZero();
+    }
+
+    @Test
+    void givenCachedPrefix_whenShrinkCache_thenKeepLongestHeadWithinSize() {
+        CacheServiceImpl cacheService = new CacheServiceImpl();
+        CompressedPrimeSequence primes = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L});
+        cacheService.addPrimeNumbersToCache(20L, primes);
+
+        cacheService.shrinkCache(primes.head(4).getSizeInBytes());
+
+        assertThat(cacheService.getHighestCachedPrimeNumbersEntry().getKey()).isEqualTo(7L);
+        assertThat(cacheService.getCachedPrimeNumbers(7L)).isEqualTo(primes.head(4));
+        assertThat(cacheService.getCachedPrimeNumbers(11L)).isNull();
+        assertThat(cacheService.getCacheStatistics().evictions()).isEqualTo(1);
+
+        cacheService.shrinkCache(0L);
+
+        assertThat(cacheService.getHighestCachedPrimeNumbersEntry()).isNull();
+        assertThat(cacheService.getCacheStatistics().evictions()).isEqualTo(2);
+        assertThat(cacheService.getCacheStatistics().evictedBytes()).isEqualTo(primes.getSizeInBytes());
+    }
+
+    private static CacheService.EncodedBodyKey getEncodedBodyKey(long limit) {
+        return new CacheService.EncodedBodyKey(2L, limit, PrimeEncoding.RAW_INT64, false);
+    }
+
+    private static CacheService.EncodedBody getEncodedBody(int sizeInBytes, long numOfPrimes) {
+        return new CacheService.EncodedBody(new byte[sizeInBytes], numOfPrimes, Algorithm.SIEVE_OF_ATKIN);
+    }
+
+    @Test
+    void givenEncodedBody_whenAddEncodedBody_thenBodyIsReturnedAndCounted() {
+        CacheServiceImpl cacheService = new CacheServiceImpl();
+        CompressedPrimeSequence primes = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L});
+        CacheService.EncodedBody body = getEncodedBody(32, 4L);
+        cacheService.addPrimeNumbersToCache(10L, primes);
+
+        cacheService.addEncodedBody(getEncodedBodyKey(10L), body);
+
+        assertThat(cacheService.getEncodedBody(getEncodedBodyKey(10L))).isSameAs(body);
+        assertThat(cacheService.getEncodedBody(getEncodedBodyKey(9L))).isNull();
+        assertThat(cacheService.getEncodedBody(
+                new CacheService.EncodedBodyKey(2L, 10L, PrimeEncoding.RAW_INT64, true)))
+                .isNull();
+        assertThat(cacheService.getExistingCache()).isEqualTo(primes.getSizeInBytes() + 32);
+        assertThat(cacheService.getCacheStatistics().encodedBodies()).isEqualTo(1);
+        assertThat(cacheService.getCacheStatistics().encodedBodiesSizeInBytes()).isEqualTo(32);
+    }
+
+    @Test
+    void givenEncodedBodiesAboveSafeMemory_whenAddEncodedBody_thenEvictLeastRecentlyUsed() {
+        try (MockedStatic<Util> utilMock = Mockito.mockStatic(Util.class, Mockito.CALLS_REAL_METHODS)) {
+            utilMock.when(Util::getMaxSafeMemory).thenReturn(100L);
+
+            CacheServiceImpl cacheService = new CacheServiceImpl();
+            cacheService.addEncodedBody(getEncodedBodyKey(10L), getEncodedBody(40, 4L));
+            cacheService.addEncodedBody(getEncodedBodyKey(20L), getEncodedBody(40, 8L));
+            // the first body is used again, so the second one is the least recently used
+            cacheService.getEncodedBody(getEncodedBodyKey(10L));
+
+            cacheService.addEncodedBody(getEncodedBodyKey(30L), getEncodedBody(40, 10L));
+
+            assertThat(cacheService.getEncodedBody(getEncodedBodyKey(10L))).isNotNull();
+            assertThat(cacheService.getEncodedBody(getEncodedBodyKey(20L))).isNull();
+            assertThat(cacheService.getEncodedBody(getEncodedBodyKey(30L))).isNotNull();
+            assertThat(cacheService.getExistingCache()).isEqualTo(80L);
+            assertThat(cacheService.isEncodedBodyCachingSafe(100L)).isTrue();
+            assertThat(cacheService.isEncodedBodyCachingSafe(101L)).isFalse();
+            assertThat(cacheService.getCacheStatistics().evictedBytes()).isEqualTo(40L);
+        }
+    }
+
+    @Test
+    void givenEncodedBodies_whenAddPrimeNumbersToCache_thenBodiesMakeRoomForPrefix() {
+        try (MockedStatic<Util> utilMock = Mockito.mockStatic(Util.class, Mockito.CALLS_REAL_METHODS)) {
+            utilMock.when(Util::getMaxSafeMemory).thenReturn(100L);
+
+            CacheServiceImpl cacheService = new CacheServiceImpl();
+            CompressedPrimeSequence primes = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L});
+            cacheService.addEncodedBody(getEncodedBodyKey(10L), getEncodedBody(60, 4L));
+
+            cacheService.addPrimeNumbersToCache(10L, primes);
+
+            assertThat(cacheService.getCachedPrimeNumbers(10L)).isEqualTo(primes);
+            assertThat(cacheService.getEncodedBody(getEncodedBodyKey(10L))).isNull();
+            assertThat(cacheService.getExistingCache()).isEqualTo(primes.getSizeInBytes());
+        }
+    }
+
+    @Test
+    void givenEncodedBodiesAndPrefix_whenShrinkCache_thenEvictBodiesBeforePrefix() {
+        CacheServiceImpl cacheService = new CacheServiceImpl();
+        CompressedPrimeSequence primes = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L});
+        cacheService.addPrimeNumbersToCache(10L, primes);
+        cacheService.addEncodedBody(getEncodedBodyKey(10L), getEncodedBody(32, 4L));
+
+        cacheService.shrinkCache(primes.getSizeInBytes());
+
+        assertThat(cacheService.getEncodedBody(getEncodedBodyKey(10L))).isNull();
+        assertThat(cacheService.getCachedPrimeNumbers(10L)).isEqualTo(primes);
+
+        cacheService.addEncodedBody(getEncodedBodyKey(10L), getEncodedBody(32, 4L));
+        cacheService.clearCache();
+
+        assertThat(cacheService.getEncodedBody(getEncodedBodyKey(10L))).isNull();
+        assertThat(cacheService.getExistingCache()).isZero();
+    }
+
+    @Test
+    void givenHeapPressureMonitoring_whenAddPrimeNumbersToCache_thenPrimesAreAddedWithinHeadroom() {
+        CacheServiceImpl cacheService = new CacheServiceImpl(0.9);
+        try {
+            CompressedPrimeSequence primes = CompressedPrimeSequence.of(new long[]{2L, 3L, 5L, 7L});
+
+            cacheService.addPrimeNumbersToCache(10L, primes);
+
+            assertThat(cacheService.getCachedPrimeNumbers(10L)).isEqualTo(primes);
+        } finally {
+            cacheService.close();
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,27 @@
 package com.denisneagu.primenumberapi.service.impl;
 
+import com.denisneagu.primenumberapi.dto.NthPrimeResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityBatchResponse;
+import com.denisneagu.primenumberapi.dto.PrimalityResponse;
+import com.denisneagu.primenumberapi.dto.PrimeCountResponse;
 import com.denisneagu.primenumberapi.dto.PrimeNumberResponse;
 import com.denisneagu.primenumberapi.enums.Algorithm;
 import com.denisneagu.primenumberapi.exception.IllegalLimitStateToAlgorithmException;
+import com.denisneagu.primenumberapi.exception.MemoryConstraintException;
 import com.denisneagu.primenumberapi.exception.UnknownAlgorithmException;
+import com.denisneagu.primenumberapi.util.CompressedPrimeSequence;
 import com.denisneagu.primenumberapi.util.ExecutorServiceProvider;
+import com.denisneagu.primenumberapi.util.PrimeSequence;
+import com.denisneagu.primenumberapi.util.Util;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -31,6 +41,12 @@ public class PrimeNumbersServiceImplTest {
     @Mock
     private ExecutorServiceProvider executorServiceProvider;
 
+    @Mock
+    private AlgorithmSelectionServiceImpl algorithmSelectionServiceImpl;
+
+    @Mock
+    private PrimeStoreServiceImpl primeStoreServiceImpl;
+
     @Mock
     private ExecutorService executorService;
 
@@ -43,7 +59,11 @@ public class PrimeNumbersServiceImplTest {
                 Arguments.of(30L, Algorithm.SIEVE_OF_ERATOSTHENES, false),
                 Arguments.of(30L, Algorithm.SIEVE_OF_ERATOSTHENES, true),
                 Arguments.of(40L, Algorithm.CONCURRENT_SEGMENTED_SIEVE, false),
-                Arguments.of(40L, Algorithm.CONCURRENT_SEGMENTED_SIEVE, true)
+                Arguments.of(40L, Algorithm.CONCURRENT_SEGMENTED_SIEVE, true),
+                Arguments.of(50L, Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL, false),
+                Arguments.of(50L, Algorithm.CONCURRENT_SEGMENTED_SIEVE_WHEEL, true),
+                Arguments.of(60L, Algorithm.SIEVE_OF_ATKIN, false),
+                Arguments.of(60L, Algorithm.SIEVE_OF_ATKIN, true)
         );
     }
 
@@ -59,26 +79,39 @@ public class PrimeNumbersServiceImplTest {
             switch (algorithm) {
                 case NAIVE_TRIAL_DIVISION -> Mockito
                         .when(algorithmServiceImpl.getPrimeNumbersUsingNaiveTrialDivision(startAt, limit))
-                        .thenReturn(primeNumbers);
+                        .thenReturn(PrimeSequence.of(primeNumbers));
                 case NAIVE_TRIAL_DIVISION_OPTIMISED -> Mockito
                         .when(algorithmServiceImpl.getPrimeNumbersUsingNaiveTrialDivisionOptimised(startAt, limit))
-                        .thenReturn(primeNumbers);
+                        .thenReturn(PrimeSequence.of(primeNumbers));
                 case SIEVE_OF_ERATOSTHENES -> Mockito
                         .when(algorithmServiceImpl.getPrimeNumbersUsingSieveOfEratosthenes(startAt, limit))
-                        .thenReturn(primeNumbers);
+                        .thenReturn(PrimeSequence.of(primeNumbers));
                 case CONCURRENT_SEGMENTED_SIEVE -> {
                     Mockito.when(executorServiceProvider.getExecutorService())
                             .thenReturn(executorService);
                     Mockito.when(algorithmServiceImpl
                                     .getPrimeNumbersUsingConcurrentSegmentedSieve(executorService, startAt, limit))
-                            .thenReturn(primeNumbers);
+                            .thenReturn(PrimeSequence.of(primeNumbers));
+                }
+                case CONCURRENT_SEGMENTED_SIEVE_WHEEL -> {
+                    Mockito.when(executorServiceProvider.getExecutorService())
+                            .thenReturn(executorService);
+                    Mockito.when(algorithmServiceImpl
+                                    .getPrimeNumbersUsingConcurrentSegmentedSieveWheel(executorService, startAt, limit))
+                            .thenReturn(PrimeSequence.of(primeNumbers));
+                }
+                case SIEVE_OF_ATKIN -> {
+                    Mockito.when(executorServiceProvider.getExecutorService())
+                            .thenReturn(executorService);
+                    Mockito.when(algorithmServiceImpl.getPrimeNumbersUsingSieveOfAtkin(executorService, startAt, limit))
+                            .thenReturn(PrimeSequence.of(primeNumbers));
                 }
             }
         }
 
         if (cache) {
             Mockito.when(cacheServiceImpl.getCachedPrimeNumbers(limit))
-                    .thenReturn(primeNumbers);
+                    .thenReturn(CompressedPrimeSequence.of(primeNumbers));
             Mockito.when(cacheServiceImpl.getExistingCache())
                     .thenReturn(limit);
         }
@@ -86,13 +119,15 @@ public class PrimeNumbersServiceImplTest {
         PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
                 cacheServiceImpl,
                 algorithmServiceImpl,
-                executorServiceProvider);
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
 
-        PrimeNumberResponse response = service.getPrimeNumbers(limit, true, algorithm, cache);
+        PrimeNumberResponse response = service.getPrimeNumbers(startAt, limit, true, algorithm, cache);
 
         Assertions.assertNotNull(response);
         Assertions.assertEquals(algorithm, response.algorithm());
-        Assertions.assertArrayEquals(primeNumbers, response.primes());
+        Assertions.assertArrayEquals(primeNumbers, response.primes().toLongArray());
         Assertions.assertEquals(primeNumbers.length, response.numOfPrimes());
 
         if (cache) {
@@ -102,6 +137,51 @@ public class PrimeNumbersServiceImplTest {
         }
     }
 
+    @ParameterizedTest
+    @MethodSource("whenGetPrimeNumbersTestCases")
+    void givenHiddenPrimesWithoutCache_whenGetPrimeNumbers_thenCountWithoutPrimeSequence(long limit,
+                                                                                      Algorithm algorithm,
+                                                                                      boolean cache) {
+        long startAt = 2L;
+        long count = 8L;
+        Mockito.lenient().when(executorServiceProvider.getExecutorService()).thenReturn(executorService);
+        switch (algorithm) {
+            case NAIVE_TRIAL_DIVISION -> Mockito
+                    .when(algorithmServiceImpl.countPrimeNumbersUsingNaiveTrialDivision(startAt, limit))
+                    .thenReturn(count);
+            case NAIVE_TRIAL_DIVISION_OPTIMISED -> Mockito
+                    .when(algorithmServiceImpl.countPrimeNumbersUsingNaiveTrialDivisionOptimised(startAt, limit))
+                    .thenReturn(count);
+            case SIEVE_OF_ERATOSTHENES -> Mockito
+                    .when(algorithmServiceImpl.countPrimeNumbersUsingSieveOfEratosthenes(startAt, limit))
+                    .thenReturn(count);
+            case CONCURRENT_SEGMENTED_SIEVE -> Mockito
+                    .when(algorithmServiceImpl
+                            .countPrimeNumbersUsingConcurrentSegmentedSieve(executorService, startAt, limit))
+                    .thenReturn(count);
+            case CONCURRENT_SEGMENTED_SIEVE_WHEEL -> Mockito
+                    .when(algorithmServiceImpl
+                            .countPrimeNumbersUsingConcurrentSegmentedSieveWheel(executorService, startAt, limit))
+                    .thenReturn(count);
+            case SIEVE_OF_ATKIN -> Mockito
+                    .when(algorithmServiceImpl.countPrimeNumbersUsingSieveOfAtkin(executorService, startAt, limit))
+                    .thenReturn(count);
+        }
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        PrimeNumberResponse response = service.getPrimeNumbers(startAt, limit, false, algorithm, false);
+
+        Assertions.assertEquals(count, response.numOfPrimes());
+        Assertions.assertArrayEquals(new long[]{}, response.primes().toLongArray());
+        Mockito.verifyNoInteractions(cacheServiceImpl);
+    }
+
     @Test
     void givenNoCacheWithNaiveAlgorithm_whenGetPrimeNumbers_thenComputeAndCache() {
         long startAt = 2L;
@@ -109,23 +189,25 @@ public class PrimeNumbersServiceImplTest {
         long[] primeNumbers = new long[]{2L, 3L, 5L, 7L, 11L};
 
         Mockito.when(cacheServiceImpl.getHighestCachedPrimeNumbersEntry()).thenReturn(null);
-        Mockito.when(algorithmServiceImpl.getPrimeNumbersUsingNaiveTrialDivision(startAt, limit)).thenReturn(primeNumbers);
-        Mockito.when(cacheServiceImpl.isCachingSafe(primeNumbers)).thenReturn(true);
+        Mockito.when(algorithmServiceImpl.getPrimeNumbersUsingNaiveTrialDivision(startAt, limit)).thenReturn(PrimeSequence.of(primeNumbers));
 
         PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
                 cacheServiceImpl,
                 algorithmServiceImpl,
-                executorServiceProvider
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl
         );
 
         PrimeNumberResponse response = service.getPrimeNumbers(
+                startAt,
                 limit,
                 true,
                 Algorithm.NAIVE_TRIAL_DIVISION,
                 true);
 
-        Assertions.assertArrayEquals(primeNumbers, response.primes());
-        Mockito.verify(cacheServiceImpl).addPrimeNumbersToCache(limit, primeNumbers);
+        Assertions.assertArrayEquals(primeNumbers, response.primes().toLongArray());
+        Mockito.verify(cacheServiceImpl).addPrimeNumbersToCache(limit, CompressedPrimeSequence.of(primeNumbers));
     }
 
     @Test
@@ -135,20 +217,22 @@ public class PrimeNumbersServiceImplTest {
         long[] newPrimeNumbers = new long[]{11L, 13L};
         long[] mergedPrimeNumbers = new long[]{2L, 3L, 5L, 7L, 11L, 13L};
 
-        Mockito.when(cacheServiceImpl.getHighestCachedPrimeNumbersEntry()).thenReturn(Map.entry(10L, cachedPrimes));
-        Mockito.when(algorithmServiceImpl.getPrimeNumbersUsingNaiveTrialDivision(10L, limit)).thenReturn(newPrimeNumbers);
-        Mockito.when(cacheServiceImpl.isCachingSafe(mergedPrimeNumbers)).thenReturn(true);
+        Mockito.when(cacheServiceImpl.getHighestCachedPrimeNumbersEntry())
+                .thenReturn(Map.entry(10L, CompressedPrimeSequence.of(cachedPrimes)));
+        Mockito.when(algorithmServiceImpl.getPrimeNumbersUsingNaiveTrialDivision(11L, limit)).thenReturn(PrimeSequence.of(newPrimeNumbers));
 
         PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
                 cacheServiceImpl,
                 algorithmServiceImpl,
-                executorServiceProvider
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl
         );
 
-        PrimeNumberResponse response = service.getPrimeNumbers(limit, true, Algorithm.NAIVE_TRIAL_DIVISION, true);
+        PrimeNumberResponse response = service.getPrimeNumbers(2L, limit, true, Algorithm.NAIVE_TRIAL_DIVISION, true);
 
-        Assertions.assertArrayEquals(new long[]{2L, 3L, 5L, 7L, 11L, 13L}, response.primes());
-        Mockito.verify(cacheServiceImpl).addPrimeNumbersToCache(limit, mergedPrimeNumbers);
+        Assertions.assertArrayEquals(new long[]{2L, 3L, 5L, 7L, 11L, 13L}, response.primes().toLongArray());
+        Mockito.verify(cacheServiceImpl).addPrimeNumbersToCache(limit, CompressedPrimeSequence.of(mergedPrimeNumbers));
     }
 
     @Test
@@ -156,10 +240,12 @@ public class PrimeNumbersServiceImplTest {
         PrimeNumberServiceImpl primeNumberService = new PrimeNumberServiceImpl(
                 cacheServiceImpl,
                 algorithmServiceImpl,
-                executorServiceProvider);
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
         Assertions.assertThrows(
                 UnknownAlgorithmException.class,
-                () -> {primeNumberService.getPrimeNumbers(2L, true, null, false);});
+                () -> {primeNumberService.getPrimeNumbers(2L, 2L, true, null, false);});
     }
 
     @Test
@@ -167,7 +253,9 @@ public class PrimeNumbersServiceImplTest {
         PrimeNumberServiceImpl primeNumberService = new PrimeNumberServiceImpl(
                 cacheServiceImpl,
                 algorithmServiceImpl,
-                executorServiceProvider
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl
         );
 
         long exceedingLimit = Integer.MAX_VALUE;
@@ -175,6 +263,7 @@ public class PrimeNumbersServiceImplTest {
         Assertions.assertThrows(
                 IllegalLimitStateToAlgorithmException.class,
                 () -> primeNumberService.getPrimeNumbers(
+                        2L,
                         exceedingLimit,
                         false,
                         Algorithm.SIEVE_OF_ERATOSTHENES,
@@ -183,4 +272,245 @@ public class PrimeNumbersServiceImplTest {
         );
     }
 
+    @ParameterizedTest
+    @EnumSource(
+            value = Algorithm.class,
+            names = {"CONCURRENT_SEGMENTED_SIEVE", "CONCURRENT_SEGMENTED_SIEVE_WHEEL", "SIEVE_OF_ATKIN"})
+    void givenPrimesFitButNotTheirSieve_whenGetPrimeNumbers_thenThrowMemoryConstraintException(Algorithm algorithm) {
+        long limit = 3_000_000L;
+        try (MockedStatic<Util> utilMock = Mockito.mockStatic(Util.class, Mockito.CALLS_REAL_METHODS)) {
+            // the primes alone fit, the sieved words of the range held until the result is written don't
+            utilMock.when(Util::getMaxSafeMemory).thenReturn(PrimeSequence.getMaxSizeInBytes(2L, limit) + 1);
+            PrimeNumberServiceImpl primeNumberService = new PrimeNumberServiceImpl(
+                    cacheServiceImpl,
+                    algorithmServiceImpl,
+                    executorServiceProvider,
+                    algorithmSelectionServiceImpl,
+                    primeStoreServiceImpl
+            );
+
+            Assertions.assertThrows(
+                    MemoryConstraintException.class,
+                    () -> primeNumberService.getPrimeNumbers(2L, limit, true, algorithm, false));
+        }
+    }
+
+    @Test
+    void givenRangeAboveIntegerMaxWithSieveAlgorithm_whenGetPrimeNumbers_thenComputeWindow() {
+        long from = 10_000_000_000L;
+        long limit = 10_000_000_100L;
+        long[] primeNumbers = new long[]{10_000_000_019L, 10_000_000_033L, 10_000_000_061L, 10_000_000_069L};
+        Mockito.when(algorithmServiceImpl.getPrimeNumbersUsingSieveOfEratosthenes(from, limit)).thenReturn(PrimeSequence.of(primeNumbers));
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        PrimeNumberResponse response = service.getPrimeNumbers(
+                from,
+                limit,
+                true,
+                Algorithm.SIEVE_OF_ERATOSTHENES,
+                false);
+
+        Assertions.assertArrayEquals(primeNumbers, response.primes().toLongArray());
+    }
+
+    @Test
+    void givenRangeCoveredByCache_whenGetPrimeNumbers_thenSliceCachedPrimeNumbers() {
+        long[] cachedPrimes = new long[]{2L, 3L, 5L, 7L, 11L, 13L, 17L, 19L, 23L, 29L};
+        Mockito.when(cacheServiceImpl.getHighestCachedPrimeNumbersEntry())
+                .thenReturn(Map.entry(30L, CompressedPrimeSequence.of(cachedPrimes)));
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        PrimeNumberResponse response = service.getPrimeNumbers(8L, 23L, true, Algorithm.NAIVE_TRIAL_DIVISION, true);
+
+        Assertions.assertTrue(response.cache());
+        Assertions.assertArrayEquals(new long[]{11L, 13L, 17L, 19L, 23L}, response.primes().toLongArray());
+        Mockito.verifyNoInteractions(algorithmServiceImpl);
+    }
+
+    @Test
+    void givenRangeNotCoveredByCache_whenGetPrimeNumbers_thenComputeWithoutCaching() {
+        long[] primeNumbers = new long[]{101L, 103L, 107L, 109L};
+        Mockito.when(cacheServiceImpl.getHighestCachedPrimeNumbersEntry()).thenReturn(null);
+        Mockito.when(algorithmServiceImpl.getPrimeNumbersUsingNaiveTrialDivision(100L, 110L)).thenReturn(PrimeSequence.of(primeNumbers));
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        PrimeNumberResponse response = service.getPrimeNumbers(100L, 110L, true, Algorithm.NAIVE_TRIAL_DIVISION, true);
+
+        Assertions.assertFalse(response.cache());
+        Assertions.assertArrayEquals(primeNumbers, response.primes().toLongArray());
+        Mockito.verify(cacheServiceImpl, Mockito.never()).addPrimeNumbersToCache(Mockito.anyLong(), Mockito.any());
+    }
+
+    @Test
+    void givenFromGreaterThanLimit_whenGetPrimeNumbers_thenThrowIllegalArgumentException() {
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> service.getPrimeNumbers(20L, 10L, true, Algorithm.NAIVE_TRIAL_DIVISION, false));
+    }
+
+    @Test
+    void givenLimit_whenCountPrimeNumbers_thenReturnPrimeCountResponse() {
+        long limit = 1_000_000_000_000L;
+        Mockito.when(executorServiceProvider.getExecutorService()).thenReturn(executorService);
+        Mockito.when(algorithmServiceImpl.countPrimeNumbersUsingLagariasMillerOdlyzko(executorService, limit))
+                .thenReturn(37_607_912_018L);
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        PrimeCountResponse response = service.countPrimeNumbers(limit);
+
+        Assertions.assertEquals(limit, response.limit());
+        Assertions.assertEquals(37_607_912_018L, response.numOfPrimes());
+        Mockito.verifyNoInteractions(cacheServiceImpl);
+    }
+
+    @Test
+    void givenN_whenGetNthPrimeNumber_thenReturnNthPrimeResponse() {
+        long n = 10_000_000_000L;
+        Mockito.when(executorServiceProvider.getExecutorService()).thenReturn(executorService);
+        Mockito.when(algorithmServiceImpl.getNthPrimeNumber(executorService, n)).thenReturn(252_097_800_623L);
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        NthPrimeResponse response = service.getNthPrimeNumber(n);
+
+        Assertions.assertEquals(n, response.n());
+        Assertions.assertEquals(252_097_800_623L, response.prime());
+    }
+
+    @Test
+    void givenLimitCoveredByPrimeStore_whenGetPrimeNumbersWithCache_thenReadFromStore() {
+        long[] primeNumbers = new long[]{2L, 3L, 5L, 7L};
+        Mockito.when(primeStoreServiceImpl.isCovered(10L)).thenReturn(true);
+        Mockito.when(primeStoreServiceImpl.getPrimeNumbers(2L, 10L)).thenReturn(PrimeSequence.of(primeNumbers));
+        Mockito.when(primeStoreServiceImpl.countPrimeNumbers(2L, 10L)).thenReturn(4L);
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        PrimeNumberResponse response = service.getPrimeNumbers(2L, 10L, true, Algorithm.NAIVE_TRIAL_DIVISION, true);
+        PrimeNumberResponse countResponse = service.getPrimeNumbers(
+                2L, 10L, false, Algorithm.NAIVE_TRIAL_DIVISION, true);
+
+        Assertions.assertTrue(response.cache());
+        Assertions.assertArrayEquals(primeNumbers, response.primes().toLongArray());
+        Assertions.assertEquals(4L, countResponse.numOfPrimes());
+        Mockito.verifyNoInteractions(algorithmServiceImpl);
+    }
+
+    @Test
+    void givenNoCache_whenGetPrimeNumbersWithCache_thenExtendPrimeStore() {
+        long[] primeNumbers = new long[]{2L, 3L, 5L, 7L, 11L};
+        Mockito.when(algorithmServiceImpl.getPrimeNumbersUsingNaiveTrialDivision(2L, 11L)).thenReturn(PrimeSequence.of(primeNumbers));
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        service.getPrimeNumbers(2L, 11L, true, Algorithm.NAIVE_TRIAL_DIVISION, true);
+
+        Mockito.verify(primeStoreServiceImpl).storePrimeNumbers(CompressedPrimeSequence.of(primeNumbers), 11L);
+    }
+
+    @Test
+    void givenAutoAlgorithm_whenGetPrimeNumbers_thenReturnResponseWithSelectedAlgorithm() {
+        long[] primeNumbers = new long[]{2L, 3L, 5L, 7L};
+        Mockito.when(algorithmSelectionServiceImpl.selectAlgorithm(2L, 10L, true))
+                .thenReturn(Algorithm.SEGMENTED_SIEVE_BITSET);
+        Mockito.when(algorithmServiceImpl.getPrimeNumbersUsingSegmentedSieveBitset(2L, 10L))
+                .thenReturn(PrimeSequence.of(primeNumbers));
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        PrimeNumberResponse response = service.getPrimeNumbers(2L, 10L, true, Algorithm.AUTO, false);
+
+        Assertions.assertEquals(Algorithm.SEGMENTED_SIEVE_BITSET, response.algorithm());
+        Assertions.assertArrayEquals(primeNumbers, response.primes().toLongArray());
+    }
+
+    @Test
+    void givenNumber_whenIsPrime_thenReturnPrimalityResponse() {
+        long number = 1_000_000_000_000_037L;
+        Mockito.when(algorithmServiceImpl.isPrimeUsingMillerRabin(number)).thenReturn(true);
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        PrimalityResponse response = service.isPrime(number);
+
+        Assertions.assertEquals(number, response.number());
+        Assertions.assertTrue(response.prime());
+    }
+
+    @Test
+    void givenNumbers_whenIsPrime_thenReturnPrimalityBatchResponse() {
+        long[] numbers = new long[]{7L, 8L, 11L};
+        Mockito.when(executorServiceProvider.getExecutorService()).thenReturn(executorService);
+        Mockito.when(algorithmServiceImpl.isPrimeUsingMillerRabin(executorService, numbers))
+                .thenReturn(new boolean[]{true, false, true});
+
+        PrimeNumberServiceImpl service = new PrimeNumberServiceImpl(
+                cacheServiceImpl,
+                algorithmServiceImpl,
+                executorServiceProvider,
+                algorithmSelectionServiceImpl,
+                primeStoreServiceImpl);
+
+        PrimalityBatchResponse response = service.isPrime(numbers);
+
+        Assertions.assertEquals(3, response.numOfNumbers());
+        Assertions.assertEquals(2, response.numOfPrimes());
+        Assertions.assertArrayEquals(new boolean[]{true, false, true}, response.results());
+    }
 }
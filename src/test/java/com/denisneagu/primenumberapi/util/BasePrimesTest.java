@@ -0,0 +1,96 @@
+package com.denisneagu.primenumberapi.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+public class BasePrimesTest {
+    private static final int[] PRIMES = getPrimes(5_000_000);
+
+    private static int[] getPrimes(int limit) {
+        boolean[] composite = new boolean[limit + 1];
+        for (int p = 2; (long) p * p <= limit; p++) {
+            if (!composite[p]) {
+                for (int j = p * p; j <= limit; j += p) {
+                    composite[j] = true;
+                }
+            }
+        }
+        return IntStream.rangeClosed(2, limit).filter(i -> !composite[i]).toArray();
+    }
+
+    // the base primes are shared by the whole process, so only the primes up to the bound asked for are compared
+    private static int[] getPrimesUpTo(int[] primes, int bound) {
+        int count = 0;
+        while (count < primes.length && primes[count] <= bound) {
+            count++;
+        }
+        return Arrays.copyOf(primes, count);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3, 4, 100, 7919, 65_536, 1_000_000, 5_000_000})
+    void givenBound_whenGetPrimes_thenHoldEveryPrimeUpToBound(int bound) {
+        int[] primes = BasePrimes.getPrimes(bound);
+
+        Assertions.assertArrayEquals(getPrimesUpTo(PRIMES, bound), getPrimesUpTo(primes, bound));
+        Assertions.assertTrue(BasePrimes.getBound() >= bound);
+    }
+
+    @Test
+    void givenBoundAlreadyCovered_whenGetPrimes_thenReturnSameArray() {
+        int[] primes = BasePrimes.getPrimes(1000);
+
+        Assertions.assertSame(primes, BasePrimes.getPrimes(999));
+    }
+
+    @Test
+    void givenBoundAboveSharedBound_whenGetPrimes_thenSieveOwnArrayWithoutGrowingSharedOne() {
+        int bound = BasePrimes.MAX_SHARED_BOUND + 1_000_000;
+        int[] primes = BasePrimes.getPrimes(bound);
+
+        Assertions.assertTrue(BasePrimes.getBound() <= BasePrimes.MAX_SHARED_BOUND);
+        Assertions.assertTrue(primes[primes.length - 1] <= bound);
+        Assertions.assertArrayEquals(
+                IntStream.rangeClosed(bound - 10_000, bound).filter(BasePrimesTest::isPrime).toArray(),
+                Arrays.stream(primes).filter(p -> p >= bound - 10_000).toArray());
+    }
+
+    private static boolean isPrime(int n) {
+        for (int p : PRIMES) {
+            if ((long) p * p > n) {
+                return true;
+            }
+            if (n % p == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    void givenGrowingBoundsFromManyThreads_whenGetPrimes_thenEveryThreadSeesEveryPrime() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<int[]>> tasks = IntStream.range(0, 32)
+                    .mapToObj(i -> (Callable<int[]>) () -> getPrimesUpTo(BasePrimes.getPrimes(100_000 * (i + 1)), 100_000 * (i + 1)))
+                    .toList();
+            List<Future<int[]>> results = executorService.invokeAll(tasks);
+
+            for (int i = 0; i < results.size(); i++) {
+                Assertions.assertArrayEquals(getPrimesUpTo(PRIMES, 100_000 * (i + 1)), results.get(i).get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
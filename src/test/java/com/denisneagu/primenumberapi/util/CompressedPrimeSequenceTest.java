@@ -0,0 +1,205 @@
+package com.denisneagu.primenumberapi.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class CompressedPrimeSequenceTest {
+    private static final long[] PRIMES = getPrimes(1_000_000);
+
+    private static long[] getPrimes(int limit) {
+        boolean[] composite = new boolean[limit + 1];
+        for (int p = 2; (long) p * p <= limit; p++) {
+            if (!composite[p]) {
+                for (int j = p * p; j <= limit; j += p) {
+                    composite[j] = true;
+                }
+            }
+        }
+        return IntStream.rangeClosed(2, limit).filter(i -> !composite[i]).asLongStream().toArray();
+    }
+
+    @Test
+    void givenPrimes_whenToArray_thenReturnSamePrimes() {
+        CompressedPrimeSequence sequence = CompressedPrimeSequence.of(PRIMES);
+
+        Assertions.assertEquals(PRIMES.length, sequence.size());
+        Assertions.assertArrayEquals(PRIMES, sequence.toArray().toLongArray());
+    }
+
+    @Test
+    void givenPrimes_whenGet_thenReturnPrimeAtEveryIndex() {
+        CompressedPrimeSequence sequence = CompressedPrimeSequence.of(PRIMES);
+
+        for (int i = 0; i < PRIMES.length; i += 97) {
+            Assertions.assertEquals(PRIMES[i], sequence.get(i));
+        }
+        Assertions.assertEquals(PRIMES[PRIMES.length - 1], sequence.last());
+    }
+
+    @Test
+    void givenPrimes_whenGetSizeInBytes_thenAboutOneBytePerPrime() {
+        CompressedPrimeSequence sequence = CompressedPrimeSequence.of(PRIMES);
+
+        // a long[] takes 8 bytes per prime, the gaps plus checkpoints take a little over 1
+        Assertions.assertTrue(sequence.getSizeInBytes() < PRIMES.length * 6L / 4);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 0", "2, 0", "3, 1", "4, 2", "100, 25", "7919, 999", "7920, 1000", "1000000, 78498"})
+    void givenValue_whenLowerBound_thenReturnIndexOfFirstPrimeAtLeastValue(long value, int expectedIndex) {
+        CompressedPrimeSequence sequence = CompressedPrimeSequence.of(PRIMES);
+
+        Assertions.assertEquals(expectedIndex, sequence.lowerBound(value));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 0", "0, 64", "63, 65", "1000, 5000", "78000, 78498"})
+    void givenIndexRange_whenToArray_thenReturnSlice(int fromIndex, int toIndex) {
+        CompressedPrimeSequence sequence = CompressedPrimeSequence.of(PRIMES);
+
+        Assertions.assertArrayEquals(
+                Arrays.copyOfRange(PRIMES, fromIndex, toIndex),
+                sequence.toArray(fromIndex, toIndex).toLongArray());
+    }
+
+    @Test
+    void givenGapsAboveSingleByte_whenToArray_thenDecodeVarints() {
+        // gaps of 300 and 1550 need a two byte varint
+        long[] primes = {2L, 3L, 1_000_003L, 1_000_303L, 1_001_853L};
+        CompressedPrimeSequence sequence = CompressedPrimeSequence.of(primes);
+
+        Assertions.assertArrayEquals(primes, sequence.toArray().toLongArray());
+        Assertions.assertEquals(3, sequence.lowerBound(1_000_004L));
+        Assertions.assertEquals(1_001_853L, sequence.get(4));
+    }
+
+    @Test
+    void givenPrefix_whenAppend_thenEqualToSequenceOfAllPrimes() {
+        int split = 40_000;
+        CompressedPrimeSequence prefix = CompressedPrimeSequence.of(Arrays.copyOfRange(PRIMES, 0, split));
+        PrimeSequence suffix = PrimeSequence.of(Arrays.copyOfRange(PRIMES, split, PRIMES.length));
+
+        CompressedPrimeSequence appended = prefix.append(suffix);
+
+        Assertions.assertEquals(CompressedPrimeSequence.of(PRIMES), appended);
+        Assertions.assertArrayEquals(PRIMES, appended.toArray().toLongArray());
+        Assertions.assertEquals(split, prefix.size());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0", "1", "64", "65", "5000", "78497"})
+    void givenSize_whenHead_thenEqualToSequenceOfFirstPrimes(int size) {
+        CompressedPrimeSequence head = CompressedPrimeSequence.of(PRIMES).head(size);
+        CompressedPrimeSequence expected = CompressedPrimeSequence.of(Arrays.copyOf(PRIMES, size));
+
+        Assertions.assertEquals(expected, head);
+        Assertions.assertEquals(expected.hashCode(), head.hashCode());
+        Assertions.assertEquals(expected.getSizeInBytes(), head.getSizeInBytes());
+        Assertions.assertArrayEquals(Arrays.copyOf(PRIMES, size), head.toArray().toLongArray());
+        Assertions.assertEquals(size, head.lowerBound(PRIMES[PRIMES.length - 1]));
+    }
+
+    @Test
+    void givenHead_whenCompact_thenKeepOnlyItsOwnBytes() {
+        CompressedPrimeSequence head = CompressedPrimeSequence.of(PRIMES).head(1000);
+
+        CompressedPrimeSequence compacted = head.compact();
+
+        Assertions.assertEquals(head, compacted);
+        Assertions.assertEquals(head.getSizeInBytes(), compacted.getSizeInBytes());
+        Assertions.assertSame(compacted, compacted.compact());
+    }
+
+    @Test
+    void givenAppendedSequence_whenGetSizeInBytes_thenCountSpareCapacity() {
+        int split = PRIMES.length / 2;
+        CompressedPrimeSequence appended = CompressedPrimeSequence.of(Arrays.copyOf(PRIMES, split))
+                .append(PrimeSequence.of(Arrays.copyOfRange(PRIMES, split, split + 10)));
+
+        // the arrays grew by half for 10 more primes, the room for the rest is still held
+        Assertions.assertTrue(appended.getSizeInBytes() > appended.compact().getSizeInBytes() + split / 4);
+        Assertions.assertEquals(
+                CompressedPrimeSequence.of(Arrays.copyOf(PRIMES, split + 10)).getSizeInBytes(),
+                appended.compact().getSizeInBytes());
+    }
+
+    @Test
+    void givenHead_whenAppend_thenEqualToSequenceOfAllPrimes() {
+        int split = 40_001;
+        CompressedPrimeSequence head = CompressedPrimeSequence.of(PRIMES).head(split);
+
+        CompressedPrimeSequence appended = head.append(PrimeSequence.of(Arrays.copyOfRange(PRIMES, split, PRIMES.length)));
+
+        Assertions.assertEquals(CompressedPrimeSequence.of(PRIMES), appended);
+        Assertions.assertArrayEquals(PRIMES, appended.toArray().toLongArray());
+    }
+
+    @Test
+    void givenSameBase_whenAppendTwice_thenNeitherAppendSeesTheOther() {
+        int split = 30_000;
+        CompressedPrimeSequence base = CompressedPrimeSequence.of(Arrays.copyOf(PRIMES, split));
+        CompressedPrimeSequence extended = base.append(PrimeSequence.of(Arrays.copyOfRange(PRIMES, split, split + 100)));
+
+        // the first append owns the free capacity, the second one has to copy
+        CompressedPrimeSequence other = base.append(PrimeSequence.of(new long[]{1_000_003L}));
+        CompressedPrimeSequence extendedAgain = extended.append(
+                PrimeSequence.of(Arrays.copyOfRange(PRIMES, split + 100, PRIMES.length)));
+
+        Assertions.assertEquals(CompressedPrimeSequence.of(Arrays.copyOf(PRIMES, split)), base);
+        Assertions.assertEquals(CompressedPrimeSequence.of(Arrays.copyOf(PRIMES, split + 100)), extended);
+        Assertions.assertEquals(1_000_003L, other.last());
+        Assertions.assertEquals(PRIMES[split - 1], other.get(split - 1));
+        Assertions.assertArrayEquals(PRIMES, extendedAgain.toArray().toLongArray());
+    }
+
+    @Test
+    void givenHeadOfLongerSequence_whenAppend_thenLongerSequenceIsUnchanged() {
+        CompressedPrimeSequence sequence = CompressedPrimeSequence.of(PRIMES);
+        CompressedPrimeSequence head = sequence.head(100);
+
+        CompressedPrimeSequence appended = head.append(PrimeSequence.of(new long[]{1_000_003L, 1_000_033L}));
+
+        Assertions.assertEquals(102, appended.size());
+        Assertions.assertEquals(1_000_033L, appended.last());
+        Assertions.assertArrayEquals(PRIMES, sequence.toArray().toLongArray());
+    }
+
+    @Test
+    void givenUnsortedAppend_whenAppend_thenBaseCanStillAppendInPlace() {
+        CompressedPrimeSequence base = CompressedPrimeSequence.of(Arrays.copyOf(PRIMES, 1000))
+                .append(PrimeSequence.of(new long[]{PRIMES[1000]}));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> base.append(PrimeSequence.of(new long[]{5L})));
+
+        CompressedPrimeSequence appended = base.append(PrimeSequence.of(Arrays.copyOfRange(PRIMES, 1001, 2000)));
+        Assertions.assertArrayEquals(Arrays.copyOf(PRIMES, 2000), appended.toArray().toLongArray());
+    }
+
+    @Test
+    void givenPrimesWithoutThree_whenToArray_thenGapFromTwoIsRestored() {
+        long[] primes = {2L, 5L, 7L};
+
+        Assertions.assertArrayEquals(primes, CompressedPrimeSequence.of(primes).toArray().toLongArray());
+    }
+
+    @Test
+    void givenEmptySequence_whenQuery_thenReturnEmptyResults() {
+        CompressedPrimeSequence sequence = CompressedPrimeSequence.of(new long[0]);
+
+        Assertions.assertTrue(sequence.isEmpty());
+        Assertions.assertEquals(0, sequence.lowerBound(10L));
+        Assertions.assertArrayEquals(new long[0], sequence.toArray().toLongArray());
+        PrimeSequence primes = PrimeSequence.of(new int[]{2, 3});
+        Assertions.assertEquals(primes, sequence.append(primes).toArray());
+    }
+
+    @Test
+    void givenUnsortedPrimes_whenOf_thenThrowIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompressedPrimeSequence.of(new long[]{5L, 3L}));
+    }
+}
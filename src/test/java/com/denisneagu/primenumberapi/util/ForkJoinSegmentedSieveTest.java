@@ -0,0 +1,79 @@
+package com.denisneagu.primenumberapi.util;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+public class ForkJoinSegmentedSieveTest {
+    private static final ExecutorService executorService = new ExecutorServiceProvider().getExecutorService();
+    // tiny chunks so a small range is split into many forked chunks
+    private final ForkJoinSegmentedSieve sieve = new ForkJoinSegmentedSieve(64);
+
+    @ParameterizedTest
+    @CsvSource({"2, 2", "2, 6", "0, 30", "29, 31", "31, 59", "1000, 1000", "7, 100000", "99991, 100003"})
+    void givenRange_whenGetPrimeNumbers_thenMatchTrialDivision(long startAt, long limit) {
+        long[] expected = LongStream.rangeClosed(startAt, limit).filter(TestPrimes::isPrime).toArray();
+        int[] smallPrimes = TestPrimes.getSmallPrimes(limit);
+        long[] primes = sieve.getPrimeNumbers(executorService, smallPrimes, startAt, limit).toLongArray();
+        Assertions.assertArrayEquals(expected, primes);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"2, 2", "0, 30", "29, 31", "7, 100000", "99991, 100003"})
+    void givenRange_whenCountPrimeNumbers_thenMatchNumberOfPrimes(long startAt, long limit) {
+        long expected = LongStream.rangeClosed(startAt, limit).filter(TestPrimes::isPrime).count();
+        int[] smallPrimes = TestPrimes.getSmallPrimes(limit);
+        Assertions.assertEquals(expected, sieve.countPrimeNumbers(executorService, smallPrimes, startAt, limit));
+    }
+
+    @Test
+    void givenDefaultChunkSize_whenCountPrimeNumbers_thenMatchPrimeCountingFunction() {
+        long limit = 100_000_000L;
+        int[] smallPrimes = TestPrimes.getSmallPrimes(limit);
+        long count = new ForkJoinSegmentedSieve().countPrimeNumbers(executorService, smallPrimes, 2L, limit);
+        Assertions.assertEquals(5_761_455L, count);
+    }
+
+    @Test
+    void givenSingleWorker_whenGetPrimeNumbers_thenCarryNextMultiplesAcrossLongRuns() {
+        // one worker sieves four runs of hundreds of chunks, primes whose squares fall mid run join it on the way
+        ForkJoinPool singleWorkerPool = new ForkJoinPool(1);
+        try {
+            long[] expected = LongStream.rangeClosed(1000, 100_000).filter(TestPrimes::isPrime).toArray();
+            int[] smallPrimes = TestPrimes.getSmallPrimes(100_000);
+            long[] primes = sieve.getPrimeNumbers(singleWorkerPool, smallPrimes, 1000L, 100_000L).toLongArray();
+            Assertions.assertArrayEquals(expected, primes);
+        } finally {
+            singleWorkerPool.shutdown();
+        }
+    }
+
+    @Test
+    void givenStartAfterLimit_whenGetPrimeNumbers_thenReturnEmptyArray() {
+        long[] primes = sieve.getPrimeNumbers(executorService, TestPrimes.getSmallPrimes(10), 11L, 10L).toLongArray();
+        Assertions.assertArrayEquals(new long[]{}, primes);
+    }
+
+    @Test
+    void givenNonForkJoinExecutor_whenGetForkJoinPool_thenFallBackToCommonPool() {
+        ExecutorService fixedThreadPool = Executors.newSingleThreadExecutor();
+        try {
+            Assertions.assertSame(ForkJoinPool.commonPool(), ForkJoinSegmentedSieve.getForkJoinPool(fixedThreadPool));
+            Assertions.assertSame(executorService, ForkJoinSegmentedSieve.getForkJoinPool(executorService));
+        } finally {
+            fixedThreadPool.shutdown();
+        }
+    }
+
+    @AfterAll
+    static void shutDown() {
+        executorService.shutdown();
+    }
+}
@@ -0,0 +1,49 @@
+package com.denisneagu.primenumberapi.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class HeapPressureMonitorTest {
+
+    @Test
+    void givenHighWatermark_whenGetHeadroom_thenReturnRoomBelowWatermark() {
+        try (HeapPressureMonitor monitor = new HeapPressureMonitor(1.0, overshoot -> {})) {
+            Assumptions.assumeTrue(monitor.isMonitoring());
+
+            long headroom = monitor.getHeadroom();
+
+            Assertions.assertTrue(headroom > 0);
+            Assertions.assertTrue(headroom <= Runtime.getRuntime().maxMemory());
+        }
+    }
+
+    @Test
+    void givenLiveDataAboveWatermark_whenCollect_thenNotifyOvershoot() throws InterruptedException {
+        CountDownLatch notified = new CountDownLatch(1);
+        // the threshold is a handful of bytes, so whatever survives a full collection crosses it
+        try (HeapPressureMonitor monitor = new HeapPressureMonitor(Double.MIN_VALUE, overshoot -> {
+            if (overshoot > 0) {
+                notified.countDown();
+            }
+        })) {
+            Assumptions.assumeTrue(monitor.isMonitoring());
+
+            System.gc();
+
+            Assertions.assertTrue(notified.await(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(0, monitor.getHeadroom());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0.0, -0.5, 1.5})
+    void givenWatermarkOutsideUnitInterval_whenCreate_thenThrowIllegalArgumentException(double highWatermark) {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new HeapPressureMonitor(highWatermark, overshoot -> {}));
+    }
+}
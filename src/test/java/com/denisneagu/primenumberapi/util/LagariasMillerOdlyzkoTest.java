@@ -0,0 +1,73 @@
+package com.denisneagu.primenumberapi.util;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.concurrent.ExecutorService;
+
+public class LagariasMillerOdlyzkoTest {
+    private static final ExecutorService executorService = new ExecutorServiceProvider().getExecutorService();
+    private final LagariasMillerOdlyzko lagariasMillerOdlyzko = new LagariasMillerOdlyzko();
+
+    @Test
+    void givenLimitsUpToOneHundredThousand_whenCountPrimeNumbers_thenMatchSieve() {
+        int n = 100_000;
+        boolean[] composite = new boolean[n + 1];
+        for (int p = 2; p * p <= n; p++) {
+            if (!composite[p]) {
+                for (int j = p * p; j <= n; j += p) {
+                    composite[j] = true;
+                }
+            }
+        }
+
+        long pi = 0;
+        for (int x = 0; x <= n; x++) {
+            if (x >= 2 && !composite[x]) {
+                pi++;
+            }
+            // every limit while the leaves are set up differently, then a sample
+            if (x <= 3_000 || x % 997 == 0) {
+                Assertions.assertEquals(pi, lagariasMillerOdlyzko.countPrimeNumbers(executorService, x), "x = " + x);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "10, 4",
+            "100, 25",
+            "1000, 168",
+            "10000, 1229",
+            "100000, 9592",
+            "1000000, 78498",
+            "10000000, 664579",
+            "100000000, 5761455",
+            "1000000000, 50847534",
+            "10000000000, 455052511",
+            "100000000000, 4118054813",
+            "1000000000000, 37607912018"
+    })
+    void givenPowerOfTen_whenCountPrimeNumbers_thenReturnKnownPrimeCount(long x, long expected) {
+        Assertions.assertEquals(expected, lagariasMillerOdlyzko.countPrimeNumbers(executorService, x));
+    }
+
+    @Test
+    void givenLimitBelowTwo_whenCountPrimeNumbers_thenReturnZero() {
+        Assertions.assertEquals(0, lagariasMillerOdlyzko.countPrimeNumbers(executorService, 1));
+    }
+
+    @Test
+    void givenLimitWithSqrtAboveIntegerMax_whenCountPrimeNumbers_thenThrowIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> lagariasMillerOdlyzko.countPrimeNumbers(executorService, 1L << 62));
+    }
+
+    @AfterAll
+    static void shutDown() {
+        executorService.shutdown();
+    }
+}
@@ -0,0 +1,49 @@
+package com.denisneagu.primenumberapi.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+public class MillerRabinTest {
+
+    private static boolean isProbablePrime(long number) {
+        return BigInteger.valueOf(number).isProbablePrime(64);
+    }
+
+    @Test
+    void givenSmallNumbers_whenIsPrime_thenMatchBigInteger() {
+        for (long n = -10; n <= 200_000; n++) {
+            Assertions.assertEquals(n > 1 && isProbablePrime(n), MillerRabin.isPrime(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void givenRandomNumbersNearTenToTheFifteenAndLongMax_whenIsPrime_thenMatchBigInteger() {
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            long nearTenToTheFifteen = 1_000_000_000_000_000L + random.nextInt(1_000_000_000);
+            long nearLongMax = Long.MAX_VALUE - random.nextInt(1_000_000_000);
+            Assertions.assertEquals(isProbablePrime(nearTenToTheFifteen), MillerRabin.isPrime(nearTenToTheFifteen));
+            Assertions.assertEquals(isProbablePrime(nearLongMax), MillerRabin.isPrime(nearLongMax));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {2_305_843_009_213_693_951L, 1_000_000_000_000_037L, 9_223_372_036_854_775_783L, 4_294_967_291L})
+    void givenKnownPrimes_whenIsPrime_thenReturnTrue(long prime) {
+        Assertions.assertTrue(MillerRabin.isPrime(prime));
+    }
+
+    // carmichael numbers and strong pseudoprimes to several small bases
+    @ParameterizedTest
+    @ValueSource(longs = {561L, 3_215_031_751L, 3_474_749_660_383L, 341_550_071_728_321L, 3_825_123_056_546_413_051L,
+            Long.MAX_VALUE, 4_294_967_297L})
+    void givenKnownComposites_whenIsPrime_thenReturnFalse(long composite) {
+        Assertions.assertEquals(isProbablePrime(composite), MillerRabin.isPrime(composite));
+        Assertions.assertFalse(MillerRabin.isPrime(composite));
+    }
+}
@@ -0,0 +1,121 @@
+package com.denisneagu.primenumberapi.util;
+
+import com.denisneagu.primenumberapi.enums.PrimeEncoding;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+public class PrimeBinaryWriterTest {
+    private static final long[] PRIMES = getPrimes(200_000);
+
+    private static long[] getPrimes(int limit) {
+        boolean[] composite = new boolean[limit + 1];
+        for (int p = 2; (long) p * p <= limit; p++) {
+            if (!composite[p]) {
+                for (int j = p * p; j <= limit; j += p) {
+                    composite[j] = true;
+                }
+            }
+        }
+        return IntStream.rangeClosed(2, limit).filter(i -> !composite[i]).asLongStream().toArray();
+    }
+
+    private static ByteBuffer write(PrimeEncoding encoding, long[] primes, long from, long limit) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PrimeBinaryWriter.write(encoding, PrimeSequence.of(primes), from, limit, outputStream);
+        return ByteBuffer.wrap(outputStream.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    @Test
+    void givenPrimes_whenWriteRawInt64_thenWriteEveryPrimeAsLittleEndianLong() throws IOException {
+        ByteBuffer buffer = write(PrimeEncoding.RAW_INT64, PRIMES, 2, 200_000);
+
+        Assertions.assertEquals(PRIMES.length * 8L, buffer.remaining());
+        Assertions.assertEquals(PRIMES.length * 8L, PrimeBinaryWriter.getRawInt64SizeInBytes(PrimeSequence.of(PRIMES)));
+        for (long prime : PRIMES) {
+            Assertions.assertEquals(prime, buffer.getLong());
+        }
+    }
+
+    @Test
+    void givenPrimes_whenWriteDeltaVarint_thenHeaderAndGapsRestorePrimes() throws IOException {
+        ByteBuffer buffer = write(PrimeEncoding.DELTA_VARINT, PRIMES, 0, 200_000);
+
+        Assertions.assertEquals(PrimeBinaryWriter.DELTA_VARINT_ENCODING, buffer.get());
+        Assertions.assertEquals(0, buffer.getLong());
+        Assertions.assertEquals(200_000, buffer.getLong());
+        Assertions.assertEquals(PRIMES.length, buffer.getLong());
+        Assertions.assertEquals(PrimeBinaryWriter.DELTA_VARINT_HEADER_BYTES, buffer.position());
+
+        long prime = 0;
+        for (long expected : PRIMES) {
+            prime += readVarint(buffer);
+            Assertions.assertEquals(expected, prime);
+        }
+        Assertions.assertFalse(buffer.hasRemaining());
+        // every gap below 200000 is below 128, so it takes a single byte
+        Assertions.assertEquals(PrimeBinaryWriter.DELTA_VARINT_HEADER_BYTES + PRIMES.length, buffer.limit());
+    }
+
+    @Test
+    void givenPrimes_whenGetSizeInBytes_thenMatchWrittenLength() throws IOException {
+        long[] primes = {2, 3, 131, 10_000_000_019L, 1_000_000_000_000_000_003L};
+
+        for (PrimeEncoding encoding : PrimeEncoding.values()) {
+            Assertions.assertEquals(
+                    write(encoding, primes, 0, 1_000_000_000_000_000_003L).remaining(),
+                    PrimeBinaryWriter.getSizeInBytes(encoding, PrimeSequence.of(primes)));
+        }
+    }
+
+    @Test
+    void givenPrimes_whenWriteGzip_thenDecompressToSameBody() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PrimeBinaryWriter.writeGzip(PrimeEncoding.RAW_INT64, PrimeSequence.of(PRIMES), 2, 200_000, outputStream);
+
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray())).readAllBytes();
+
+        Assertions.assertArrayEquals(write(PrimeEncoding.RAW_INT64, PRIMES, 2, 200_000).array(), body);
+        Assertions.assertTrue(outputStream.size() < body.length);
+    }
+
+    @Test
+    void givenLargeGaps_whenWriteDeltaVarint_thenGapsTakeSeveralBytes() throws IOException {
+        long[] primes = {10_000_000_019L, 10_000_000_033L, 1_000_000_000_000_000_003L};
+        ByteBuffer buffer = write(PrimeEncoding.DELTA_VARINT, primes, 10_000_000_000L, 1_000_000_000_000_000_003L);
+        buffer.position(PrimeBinaryWriter.DELTA_VARINT_HEADER_BYTES);
+
+        long prime = 0;
+        for (long expected : primes) {
+            prime += readVarint(buffer);
+            Assertions.assertEquals(expected, prime);
+        }
+        Assertions.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void givenNoPrimes_whenWrite_thenOnlyTheVarintHeaderIsWritten() throws IOException {
+        Assertions.assertEquals(0, write(PrimeEncoding.RAW_INT64, new long[0], 24, 28).remaining());
+        Assertions.assertEquals(
+                PrimeBinaryWriter.DELTA_VARINT_HEADER_BYTES,
+                write(PrimeEncoding.DELTA_VARINT, new long[0], 24, 28).remaining());
+    }
+}
@@ -0,0 +1,103 @@
+package com.denisneagu.primenumberapi.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class PrimeBitmapStoreTest {
+    // 1024 odd numbers per segment, so the primes below 10^5 span many segments
+    private static final int SEGMENT_BITS = 1024;
+    private static final long[] PRIMES = getPrimes(100_000);
+
+    @TempDir
+    Path tempDir;
+
+    private static long[] getPrimes(int limit) {
+        boolean[] composite = new boolean[limit + 1];
+        for (int p = 2; (long) p * p <= limit; p++) {
+            if (!composite[p]) {
+                for (int j = p * p; j <= limit; j += p) {
+                    composite[j] = true;
+                }
+            }
+        }
+        return IntStream.rangeClosed(2, limit).filter(i -> !composite[i]).asLongStream().toArray();
+    }
+
+    private static long[] getPrimesInRange(long from, long limit) {
+        return Arrays.stream(PRIMES).filter(p -> p >= from && p <= limit).toArray();
+    }
+
+    private PrimeBitmapStore getFilledStore() throws IOException {
+        PrimeBitmapStore store = new PrimeBitmapStore(tempDir.resolve("primes.bitmap"), SEGMENT_BITS);
+        store.append(CompressedPrimeSequence.of(PRIMES), 100_000L);
+        return store;
+    }
+
+    @Test
+    void givenPrimes_whenAppend_thenOnlyWholeSegmentsAreStored() throws IOException {
+        try (PrimeBitmapStore store = getFilledStore()) {
+            // 48 segments of 2048 numbers end at 98303, the next one would need primes past 10^5
+            Assertions.assertEquals(98_303L, store.getLimit());
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 1", "0, 2", "2, 3", "0, 100", "3, 2047", "2047, 2049", "1000, 50000", "0, 98303", "98000, 98303"})
+    void givenRange_whenGetPrimeNumbers_thenMatchSieve(long from, long limit) throws IOException {
+        try (PrimeBitmapStore store = getFilledStore()) {
+            long[] expected = getPrimesInRange(from, limit);
+            Assertions.assertArrayEquals(expected, store.getPrimeNumbers(from, limit).toLongArray());
+            Assertions.assertEquals(expected.length, store.countPrimeNumbers(from, limit));
+        }
+    }
+
+    @Test
+    void givenStoreReopened_whenGetPrimeNumbers_thenPrimesSurviveRestart() throws IOException {
+        getFilledStore().close();
+
+        try (PrimeBitmapStore store = new PrimeBitmapStore(tempDir.resolve("primes.bitmap"), SEGMENT_BITS)) {
+            Assertions.assertEquals(98_303L, store.getLimit());
+            Assertions.assertArrayEquals(getPrimesInRange(0, 98_303L), store.getPrimeNumbers(0, 98_303L).toLongArray());
+        }
+    }
+
+    @Test
+    void givenSmallerPrefixThenLarger_whenAppend_thenExtendWithNewSegments() throws IOException {
+        try (PrimeBitmapStore store = new PrimeBitmapStore(tempDir.resolve("primes.bitmap"), SEGMENT_BITS)) {
+            store.append(CompressedPrimeSequence.of(getPrimesInRange(0, 10_000L)), 10_000L);
+            Assertions.assertEquals(8_191L, store.getLimit());
+
+            store.append(CompressedPrimeSequence.of(PRIMES), 100_000L);
+            Assertions.assertEquals(98_303L, store.getLimit());
+            Assertions.assertArrayEquals(
+                    getPrimesInRange(5_000L, 60_000L),
+                    store.getPrimeNumbers(5_000L, 60_000L).toLongArray());
+        }
+    }
+
+    @Test
+    void givenFileWithAnotherLayout_whenOpen_thenStartEmpty() throws IOException {
+        Path path = tempDir.resolve("primes.bitmap");
+        Files.write(path, new byte[100_000]);
+
+        try (PrimeBitmapStore store = new PrimeBitmapStore(path, SEGMENT_BITS)) {
+            Assertions.assertEquals(0L, store.getLimit());
+        }
+    }
+
+    @Test
+    void givenRangeBeyondStore_whenGetPrimeNumbers_thenThrowIllegalArgumentException() throws IOException {
+        try (PrimeBitmapStore store = getFilledStore()) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> store.getPrimeNumbers(2L, 98_304L));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.denisneagu.primenumberapi.util;
+
+import com.denisneagu.primenumberapi.enums.Algorithm;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+public class PrimeCsvStreamWriterTest {
+
+    private static List<String> write(long[]... segments) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (PrimeCsvStreamWriter writer = new PrimeCsvStreamWriter(outputStream, Algorithm.SIEVE_OF_ATKIN)) {
+            long count = 0;
+            for (long[] segment : segments) {
+                writer.accept(segment, segment.length);
+                count += segment.length;
+            }
+            writer.writeSummary(count, 1_500_000, 1);
+        }
+        return Arrays.asList(outputStream.toString(StandardCharsets.US_ASCII).split("\n"));
+    }
+
+    @Test
+    void givenSegments_whenWrite_thenHeaderPrimesAndTrailerLines() throws IOException {
+        List<String> lines = write(new long[]{2, 3, 5, 7}, new long[]{}, new long[]{1_000_000_000_000_000_003L});
+
+        Assertions.assertEquals(List.of("prime", "2", "3", "5", "7", "1000000000000000003"), lines.subList(0, 6));
+        Assertions.assertTrue(lines.get(6).startsWith(
+                "# algorithm=SIEVE_OF_ATKIN,cache=false,numOfPrimes=5,execTimeInNs=1500000,execTimeInMs=1,timestamp="));
+        Assertions.assertEquals(7, lines.size());
+    }
+
+    @Test
+    void givenMorePrimesThanFitInBuffer_whenWrite_thenNoLineIsCutAtBufferBoundary() throws IOException {
+        // about 12 bytes per line, so the segment spans several buffers
+        long[] primes = LongStream.range(0, 50_000).map(i -> 10_000_000_000L + i).toArray();
+
+        List<String> lines = write(primes);
+
+        Assertions.assertEquals(primes.length + 2, lines.size());
+        for (int i = 0; i < primes.length; i++) {
+            Assertions.assertEquals(String.valueOf(primes[i]), lines.get(i + 1));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.denisneagu.primenumberapi.util;
+
+import com.denisneagu.primenumberapi.dto.PrimeNumberResponse;
+import com.denisneagu.primenumberapi.enums.Algorithm;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class PrimeSequenceTest {
+
+    @Test
+    void givenLimitBelowIntegerMax_whenAllocate_thenIntBacked() {
+        PrimeSequence primes = PrimeSequence.allocate(3, Integer.MAX_VALUE);
+        primes.set(0, 2L);
+        primes.set(1, 3L);
+        primes.set(2, 2_147_483_647L);
+
+        Assertions.assertTrue(primes.isIntBacked());
+        Assertions.assertEquals(12L, primes.getSizeInBytes());
+        Assertions.assertArrayEquals(new long[]{2L, 3L, 2_147_483_647L}, primes.toLongArray());
+    }
+
+    @Test
+    void givenLimitAboveIntegerMax_whenAllocate_thenLongBacked() {
+        PrimeSequence primes = PrimeSequence.allocate(1, Integer.MAX_VALUE + 1L);
+        primes.set(0, 10_000_000_019L);
+
+        Assertions.assertFalse(primes.isIntBacked());
+        Assertions.assertEquals(10_000_000_019L, primes.get(0));
+    }
+
+    @Test
+    void givenLongPrimes_whenOf_thenNarrowOnlyWhenLastPrimeFits() {
+        Assertions.assertTrue(PrimeSequence.of(new long[]{2L, 3L, 5L}).isIntBacked());
+        Assertions.assertFalse(PrimeSequence.of(new long[]{2L, 10_000_000_019L}).isIntBacked());
+    }
+
+    @Test
+    void givenDifferentBackings_whenEquals_thenCompareValues() {
+        PrimeSequence ints = PrimeSequence.of(new int[]{2, 3, 5});
+        PrimeSequence longs = PrimeSequence.allocate(3, Long.MAX_VALUE);
+        for (int i = 0; i < 3; i++) {
+            longs.set(i, ints.get(i));
+        }
+
+        Assertions.assertEquals(ints, longs);
+        Assertions.assertEquals(ints.hashCode(), longs.hashCode());
+    }
+
+    @Test
+    void givenMoreThanOnePage_whenAllocate_thenIndexAcrossPages() {
+        long length = PrimeSequence.PAGE_SIZE * 2L + 3;
+        PrimeSequence primes = PrimeSequence.allocate(length, Integer.MAX_VALUE);
+        primes.set(PrimeSequence.PAGE_SIZE - 1, 7L);
+        primes.set(PrimeSequence.PAGE_SIZE, 11L);
+        primes.set(length - 1, 13L);
+
+        Assertions.assertEquals(length, primes.length());
+        Assertions.assertEquals(7L, primes.get(PrimeSequence.PAGE_SIZE - 1));
+        Assertions.assertEquals(11L, primes.get(PrimeSequence.PAGE_SIZE));
+        Assertions.assertEquals(13L, primes.get(length - 1));
+        Assertions.assertEquals(length * Integer.BYTES, primes.getSizeInBytes());
+    }
+
+    @Test
+    void givenUnknownCount_whenBuild_thenKeepEveryPrimeAcrossPages() {
+        PrimeSequence.Builder builder = new PrimeSequence.Builder(Long.MAX_VALUE);
+        long length = PrimeSequence.PAGE_SIZE + 5L;
+        for (long i = 0; i < length; i++) {
+            builder.add(10_000_000_000L + i);
+        }
+
+        PrimeSequence primes = builder.build();
+
+        Assertions.assertFalse(primes.isIntBacked());
+        Assertions.assertEquals(length, primes.length());
+        for (long i = 0; i < length; i += 4099) {
+            Assertions.assertEquals(10_000_000_000L + i, primes.get(i));
+        }
+        Assertions.assertEquals(10_000_000_000L + length - 1, primes.get(length - 1));
+    }
+
+    @Test
+    void givenNothingAdded_whenBuild_thenReturnEmptySequence() {
+        Assertions.assertEquals(PrimeSequence.EMPTY, new PrimeSequence.Builder(100L).build());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"2, 100, 25", "2, 1000000, 78498", "1000000000, 1000001000, 49", "9, 10, 0"})
+    void givenRange_whenGetMaxPrimeCount_thenBoundNumberOfPrimes(long from, long limit, long numOfPrimes) {
+        Assertions.assertTrue(PrimeSequence.getMaxPrimeCount(from, limit) >= numOfPrimes);
+    }
+
+    @Test
+    void givenResponse_whenSerializeToJson_thenWritePlainArrayAndReadItBack() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        PrimeNumberResponse response = new PrimeNumberResponse(
+                Algorithm.SIEVE_OF_ERATOSTHENES, false, 0L, 0L, 3L, PrimeSequence.of(new int[]{2, 3, 5}));
+
+        String json = objectMapper.writeValueAsString(response);
+
+        Assertions.assertTrue(json.contains("\"primes\":[2,3,5]"));
+        Assertions.assertEquals(response.primes(), objectMapper.readValue(json, PrimeNumberResponse.class).primes());
+    }
+
+    @Test
+    void givenResponse_whenSerializeToXml_thenWrapPrimes() throws Exception {
+        XmlMapper xmlMapper = (XmlMapper) new XmlMapper().registerModule(new JavaTimeModule());
+        PrimeNumberResponse response = new PrimeNumberResponse(
+                Algorithm.SIEVE_OF_ERATOSTHENES, false, 0L, 0L, 2L, PrimeSequence.of(new long[]{2L, 10_000_000_019L}));
+
+        String xml = xmlMapper.writeValueAsString(response);
+
+        Assertions.assertTrue(xml.contains("<primes><prime>2</prime><prime>10000000019</prime></primes>"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.denisneagu.primenumberapi.util;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.LongStream;
+
+public class SegmentedSieveOfAtkinTest {
+    private static final ExecutorService executorService = new ExecutorServiceProvider().getExecutorService();
+    // tiny segments so a small range spans many segments and tasks
+    private final SegmentedSieveOfAtkin sieve = new SegmentedSieveOfAtkin(8);
+
+    @ParameterizedTest
+    @CsvSource({"2, 2", "2, 6", "0, 30", "29, 31", "31, 59", "1000, 1000", "7, 100000", "99991, 100003"})
+    void givenRange_whenGetPrimeNumbers_thenMatchTrialDivision(long startAt, long limit) {
+        long[] expected = LongStream.rangeClosed(startAt, limit).filter(TestPrimes::isPrime).toArray();
+        int[] smallPrimes = TestPrimes.getSmallPrimes(limit);
+        long[] primes = sieve.getPrimeNumbers(executorService, smallPrimes, startAt, limit).toLongArray();
+        Assertions.assertArrayEquals(expected, primes);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"8, 0, 300000", "64, 0, 300000", "512, 250000, 300000"})
+    void givenSegmentSize_whenGetPrimeNumbers_thenMatchTrialDivision(int segmentBytes,
+                                                                  long startAt,
+                                                                  long limit) {
+        long[] expected = LongStream.rangeClosed(startAt, limit).filter(TestPrimes::isPrime).toArray();
+        long[] primes = new SegmentedSieveOfAtkin(segmentBytes)
+                .getPrimeNumbers(executorService, TestPrimes.getSmallPrimes(limit), startAt, limit).toLongArray();
+        Assertions.assertArrayEquals(expected, primes);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"2, 2", "0, 30", "29, 31", "7, 100000", "99991, 100003"})
+    void givenRange_whenCountPrimeNumbers_thenMatchNumberOfPrimes(long startAt, long limit) {
+        long expected = LongStream.rangeClosed(startAt, limit).filter(TestPrimes::isPrime).count();
+        int[] smallPrimes = TestPrimes.getSmallPrimes(limit);
+        Assertions.assertEquals(expected, sieve.countPrimeNumbers(executorService, smallPrimes, startAt, limit));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"2, 2", "0, 30", "29, 31", "7, 100000", "99991, 100003", "11, 10"})
+    void givenRange_whenStreamPrimeNumbers_thenEmitEveryPrimeInOrderSegmentBySegment(long startAt, long limit)
+            throws IOException {
+        long[] expected = LongStream.rangeClosed(startAt, limit).filter(TestPrimes::isPrime).toArray();
+        List<Long> streamed = new ArrayList<>();
+        List<Integer> segmentLengths = new ArrayList<>();
+
+        long count = sieve.streamPrimeNumbers(TestPrimes.getSmallPrimes(limit), startAt, limit, (primes, length) -> {
+            segmentLengths.add(length);
+            for (int i = 0; i < length; i++) {
+                streamed.add(primes[i]);
+            }
+        });
+
+        Assertions.assertArrayEquals(expected, streamed.stream().mapToLong(Long::longValue).toArray());
+        Assertions.assertEquals(expected.length, count);
+        // 8 byte segments hold at most 64 primes, plus the wheel primes handed over on their own
+        Assertions.assertTrue(segmentLengths.stream().allMatch(length -> length > 0 && length <= 64));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"2, 2", "0, 30", "29, 31", "7, 100000", "99991, 100003", "100000, 100000"})
+    void givenRange_whenGetBitmap_thenBitOfEveryWheelNumberMatchesTrialDivision(long startAt, long limit) {
+        int[] residues = {1, 7, 11, 13, 17, 19, 23, 29};
+        long expectedCount = LongStream.rangeClosed(startAt, limit).filter(TestPrimes::isPrime).count();
+
+        int[] smallPrimes = TestPrimes.getSmallPrimes(limit);
+        AbstractSegmentedWheelSieve.Bitmap bitmap = sieve.getBitmap(executorService, smallPrimes, startAt, limit);
+
+        long offset = Math.max(startAt, 2) / 30 * 30;
+        Assertions.assertEquals(limit / 30 + 1 - offset / 30, bitmap.bits().length);
+        for (int k = 0; k < bitmap.bits().length; k++) {
+            for (int i = 0; i < residues.length; i++) {
+                long num = offset + 30L * k + residues[i];
+                boolean expected = num >= startAt && num <= limit && TestPrimes.isPrime(num);
+                Assertions.assertEquals(expected, (bitmap.bits()[k] & (1 << i)) != 0, "bit of " + num);
+            }
+        }
+        Assertions.assertEquals(expectedCount, bitmap.primeCount());
+    }
+
+    @Test
+    void givenStartAfterLimit_whenGetPrimeNumbers_thenReturnEmptyArray() {
+        long[] primes = sieve.getPrimeNumbers(executorService, TestPrimes.getSmallPrimes(10), 11L, 10L).toLongArray();
+        Assertions.assertArrayEquals(new long[]{}, primes);
+    }
+
+    @Test
+    void givenSegmentSizeNotMultipleOfEight_whenCreate_thenThrowIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SegmentedSieveOfAtkin(12));
+    }
+
+    @AfterAll
+    static void shutDown() {
+        executorService.shutdown();
+    }
+}
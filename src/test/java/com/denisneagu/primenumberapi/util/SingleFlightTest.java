@@ -0,0 +1,67 @@
+package com.denisneagu.primenumberapi.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    @Test
+    void givenComputationInFlight_whenExecuteSameKey_thenShareResult() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        CompletableFuture<String> covering = new CompletableFuture<>();
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> singleFlight.execute(100L, () -> {
+            computations.incrementAndGet();
+            started.countDown();
+            release.join();
+            return "primes";
+        }));
+        Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        Thread secondThread = new Thread(() -> second.complete(singleFlight.execute(100L, () -> {
+            computations.incrementAndGet();
+            return "again";
+        })));
+        Thread coveringThread = new Thread(() -> covering.complete(singleFlight.joinMatching(limit -> limit >= 50L)));
+        secondThread.start();
+        coveringThread.start();
+        // both callers are parked on the computation in flight before it's released
+        while (secondThread.getState() != Thread.State.WAITING || coveringThread.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+        release.complete(null);
+
+        Assertions.assertEquals("primes", first.get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals("primes", second.get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals("primes", covering.get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, computations.get());
+        Assertions.assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    void givenNoComputationInFlight_whenJoinMatching_thenReturnNull() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+        Assertions.assertNull(singleFlight.joinMatching(limit -> true));
+    }
+
+    @Test
+    void givenFailingComputation_whenExecute_thenThrowSameExceptionAndForgetKey() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> singleFlight.execute(1L, () -> {
+            throw new IllegalArgumentException("From can't be greater than limit");
+        }));
+        Assertions.assertEquals(0, singleFlight.getInFlightCount());
+        Assertions.assertEquals("primes", singleFlight.execute(1L, () -> "primes"));
+    }
+}
@@ -0,0 +1,24 @@
+package com.denisneagu.primenumberapi.util;
+
+// the reference primes the sieve engines are checked against
+final class TestPrimes {
+    private TestPrimes() {
+    }
+
+    static boolean isPrime(long num) {
+        if (num < 2) {
+            return false;
+        }
+        for (long i = 2; i * i <= num; i++) {
+            if (num % i == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the shared base primes the engines get in the application, they may hold primes past sqrt(limit)
+    static int[] getSmallPrimes(long limit) {
+        return BasePrimes.getPrimes((int) Math.sqrt(limit));
+    }
+}